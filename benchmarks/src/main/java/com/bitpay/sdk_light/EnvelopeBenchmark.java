@@ -0,0 +1,44 @@
+package com.bitpay.sdk_light;
+
+import com.bitpay.sdk_light.benchmarks.Payloads;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code data}/{@code error} envelope handling every API call goes through.
+ * <p>
+ * Lives in the client package because {@link Client#responseToJsonString(HttpResponse)} is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EnvelopeBenchmark {
+
+    @Param({"invoice.json", "bill.json", "rates.json"})
+    public String payload;
+
+    private Client client;
+    private StringEntity entity;
+
+    @Setup
+    public void setUp() throws BitPayException {
+        client = new Client("benchmark", Env.Test);
+        entity = new StringEntity(Payloads.load(payload), ContentType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public String responseToJsonString() throws BitPayException {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(entity);
+        return client.responseToJsonString(response);
+    }
+}
@@ -0,0 +1,38 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of the benchmarks jar.
+ * <p>
+ * Accepts the regular JMH command line and always attaches the GC profiler, so every run reports
+ * the allocation rate ({@code gc.alloc.rate.norm}, bytes per operation) next to the timings.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws IOException, RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+
+        Runner runner = new Runner(new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .build());
+
+        if (cmd.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
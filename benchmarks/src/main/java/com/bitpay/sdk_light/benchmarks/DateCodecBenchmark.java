@@ -0,0 +1,55 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.bitpay.sdk_light.util.DateDeserializer;
+import com.bitpay.sdk_light.util.DateSerializer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ISO-8601 date codecs in {@code com.bitpay.sdk_light.util}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DateCodecBenchmark {
+
+    private static final String DATE = "\"2020-04-15T12:55:31.172Z\"";
+    private static final Long TIMESTAMP = 1586955331172L;
+
+    private JsonFactory factory;
+    private DateSerializer serializer;
+    private DateDeserializer deserializer;
+
+    @Setup
+    public void setUp() {
+        factory = new JsonFactory();
+        serializer = new DateSerializer();
+        deserializer = new DateDeserializer();
+    }
+
+    @Benchmark
+    public Long deserialize() throws IOException {
+        try (JsonParser parser = factory.createParser(DATE)) {
+            parser.nextToken();
+            return deserializer.deserialize(parser, null);
+        }
+    }
+
+    @Benchmark
+    public String serialize() throws IOException {
+        StringWriter writer = new StringWriter(32);
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            serializer.serialize(TIMESTAMP, generator, null);
+        }
+        return writer.toString();
+    }
+}
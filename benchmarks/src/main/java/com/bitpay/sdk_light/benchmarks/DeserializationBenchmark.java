@@ -0,0 +1,68 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.bitpay.sdk_light.model.Bill.Bill;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Rate.Rate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response-side binding of captured {@code invoices}, {@code bills} and {@code rates} payloads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DeserializationBenchmark {
+
+    @Param({"beans", "afterburner", "codecs"})
+    public String binding;
+
+    private ObjectMapper mapper;
+    private String invoiceJson;
+    private String billJson;
+    private String ratesJson;
+
+    @Setup
+    public void setUp() {
+        mapper = Mappers.create(binding);
+        invoiceJson = Payloads.loadData(Payloads.INVOICE);
+        billJson = Payloads.loadData(Payloads.BILL);
+        ratesJson = Payloads.loadData(Payloads.RATES);
+    }
+
+    @Benchmark
+    public Invoice readInvoice() throws IOException {
+        return mapper.readValue(invoiceJson, Invoice.class);
+    }
+
+    /**
+     * Reads an invoice and touches every nested part, which the codecs otherwise bind only on first access.
+     */
+    @Benchmark
+    public void readInvoiceGraph(Blackhole bh) throws IOException {
+        Invoice invoice = mapper.readValue(invoiceJson, Invoice.class);
+        bh.consume(invoice.getTransactions());
+        bh.consume(invoice.getExchangeRates());
+        bh.consume(invoice.getInvoiceBuyerProvidedInfo());
+        bh.consume(invoice.getSupportedTransactionCurrencies());
+        bh.consume(invoice.getMinerFees());
+        bh.consume(invoice.getShopper());
+    }
+
+    @Benchmark
+    public Bill readBill() throws IOException {
+        return mapper.readValue(billJson, Bill.class);
+    }
+
+    @Benchmark
+    public Rate[] readRates() throws IOException {
+        return mapper.readValue(ratesJson, Rate[].class);
+    }
+}
@@ -0,0 +1,116 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceDiff;
+import com.bitpay.sdk_light.model.Rate.Rate;
+import com.bitpay.sdk_light.model.Rate.Rates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups performed on every request, rate query or invoice poll: {@link Rates#getRate(String)},
+ * {@link Invoice#getExchangeRate(String, String)}, {@link Currency#isValid(String)} and
+ * {@link InvoiceDiff#changes(Invoice, Invoice)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LookupBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class RatesState {
+
+        // First, middle and last entry of the captured rate table.
+        @Param({"AED", "MXN", "ZWL"})
+        public String code;
+
+        Rates rates;
+
+        @Setup
+        public void setUp() throws IOException {
+            Rate[] table = new ObjectMapper().readValue(Payloads.loadData(Payloads.RATES), Rate[].class);
+            rates = new Rates(Arrays.asList(table), null);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExchangeRatesState {
+
+        Invoice invoice;
+        Hashtable<String, Hashtable<String, String>> table;
+
+        @Setup
+        public void setUp() throws IOException {
+            invoice = Mappers.create("codecs").readValue(Payloads.loadData(Payloads.INVOICE), Invoice.class);
+            table = new ObjectMapper().readValue(Payloads.loadData(Payloads.INVOICE), Invoice.class).getExchangeRates();
+            invoice.getExchangeRate(Currency.BTC, Currency.USD);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DiffState {
+
+        Invoice before;
+        Invoice unchanged;
+        Invoice confirming;
+
+        @Setup
+        public void setUp() throws IOException {
+            ObjectMapper mapper = Mappers.create("codecs");
+            before = mapper.readValue(Payloads.loadData(Payloads.INVOICE), Invoice.class);
+            unchanged = mapper.readValue(Payloads.loadData(Payloads.INVOICE), Invoice.class);
+            confirming = mapper.readValue(Payloads.loadData(Payloads.INVOICE), Invoice.class);
+            confirming.getTransactions().get(0).setConfirmations(confirming.getTransactions().get(0).getConfirmations() + 1);
+            // Bind the deferred transactions outside the measurement
+            InvoiceDiff.changes(before, unchanged);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CurrencyState {
+
+        @Param({"BTC", "USD", "XXX"})
+        public String code;
+    }
+
+    @Benchmark
+    public double getRate(RatesState state) {
+        return state.rates.getRate(state.code);
+    }
+
+    @Benchmark
+    public double getExchangeRate(ExchangeRatesState state) {
+        return state.invoice.getExchangeRate(Currency.GUSD, Currency.USDC);
+    }
+
+    /**
+     * The lookup callers had to write against {@code Invoice.getExchangeRates()}.
+     */
+    @Benchmark
+    public double getExchangeRateFromTable(ExchangeRatesState state) {
+        return Double.parseDouble(state.table.get(Currency.GUSD).get(Currency.USDC));
+    }
+
+    @Benchmark
+    public int diffUnchanged(DiffState state) {
+        return InvoiceDiff.changes(state.before, state.unchanged);
+    }
+
+    @Benchmark
+    public int diffConfirmations(DiffState state) {
+        return InvoiceDiff.changes(state.before, state.confirming);
+    }
+
+    @Benchmark
+    public boolean isValidCurrency(CurrencyState state) {
+        return Currency.isValid(state.code);
+    }
+}
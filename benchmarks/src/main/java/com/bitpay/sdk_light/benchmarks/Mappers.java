@@ -0,0 +1,31 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.bitpay.sdk_light.util.AfterburnerSupport;
+import com.bitpay.sdk_light.util.codec.CodecModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The mapper configurations compared by the binding benchmarks.
+ */
+public final class Mappers {
+
+    private Mappers() {
+    }
+
+    /**
+     * @param binding {@code beans}, {@code afterburner} or {@code codecs}.
+     * @return A mapper configured for the binding.
+     */
+    public static ObjectMapper create(String binding) {
+        switch (binding) {
+            case "beans":
+                return new ObjectMapper();
+            case "afterburner":
+                return AfterburnerSupport.register(new ObjectMapper());
+            case "codecs":
+                return new ObjectMapper().registerModule(new CodecModule());
+            default:
+                throw new IllegalArgumentException("Unknown binding: " + binding);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the captured API responses bundled under {@code /payloads}.
+ */
+public final class Payloads {
+
+    public static final String INVOICE = "invoice.json";
+    public static final String BILL = "bill.json";
+    public static final String RATES = "rates.json";
+
+    private Payloads() {
+    }
+
+    /**
+     * Read a bundled payload, including its {@code data} envelope.
+     *
+     * @param name The payload file name.
+     * @return The raw response body.
+     */
+    public static String load(String name) {
+        try (InputStream in = Payloads.class.getResourceAsStream("/payloads/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown payload: " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read payload " + name, e);
+        }
+    }
+
+    /**
+     * Read a bundled payload and strip its {@code data} envelope, as the client does before binding.
+     *
+     * @param name The payload file name.
+     * @return The JSON of the {@code data} node.
+     */
+    public static String loadData(String name) {
+        try {
+            return new ObjectMapper().readTree(load(name)).get("data").toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to parse payload " + name, e);
+        }
+    }
+}
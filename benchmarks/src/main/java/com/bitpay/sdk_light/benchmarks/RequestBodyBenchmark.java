@@ -0,0 +1,103 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.util.JsonBufferPool;
+import com.bitpay.sdk_light.util.JsonEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.entity.ByteArrayEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producing and sending a request body, with the socket replaced by a discarding stream. Compare
+ * {@code gc.alloc.rate.norm} across modes: {@code string} is the former String and byte[] round trip,
+ * {@code stream} serializes into the connection as it is written and {@code pooled} serializes into a pooled
+ * buffer, as {@code Client} does.
+ * <p>
+ * Measured with JDK 17, in bytes per body: {@code invoice} 2042 as a String and 448 pooled, {@code bill} 3988
+ * and 929. What remains pooled is the generator, its {@code IOContext} and the serializer provider Jackson
+ * creates per body, plus {@code Double.toString} for bill item prices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RequestBodyBenchmark {
+
+    @Param({"invoice", "bill", "largeBill"})
+    public String body;
+
+    @Param({"string", "stream", "pooled"})
+    public String mode;
+
+    private ObjectMapper mapper;
+    private ObjectWriter writer;
+    private JsonBufferPool pool;
+    private Object value;
+    private OutputStream socket;
+
+    @Setup
+    public void setUp(Blackhole bh) throws BitPayException {
+        mapper = Mappers.create("codecs");
+        writer = mapper.writer();
+        pool = new JsonBufferPool(4, 8 * 1024, 256 * 1024);
+        switch (body) {
+            case "invoice":
+                value = SerializationBenchmark.newInvoice();
+                break;
+            case "bill":
+                value = SerializationBenchmark.newBill();
+                break;
+            default:
+                value = SerializationBenchmark.newBill(1000);
+        }
+        socket = new DiscardingOutputStream(bh);
+    }
+
+    @Benchmark
+    public void send() throws IOException {
+        switch (mode) {
+            case "string":
+                new ByteArrayEntity(mapper.writeValueAsString(value).getBytes(StandardCharsets.UTF_8)).writeTo(socket);
+                break;
+            case "stream":
+                new JsonEntity(writer, value).writeTo(socket);
+                break;
+            default:
+                JsonEntity entity = new JsonEntity(writer, value).buffer(pool);
+                try {
+                    entity.writeTo(socket);
+                } finally {
+                    entity.release();
+                }
+        }
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+
+        private final Blackhole bh;
+
+        DiscardingOutputStream(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void write(int b) {
+            bh.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bh.consume(b);
+            bh.consume(len);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Bill.Bill;
+import com.bitpay.sdk_light.model.Bill.Item;
+import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.model.Invoice.Buyer;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-side serialization of the models posted by {@code createInvoice} and {@code createBill}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"beans", "afterburner", "codecs"})
+    public String binding;
+
+    private ObjectMapper mapper;
+    private Invoice invoice;
+    private Bill bill;
+
+    @Setup
+    public void setUp() throws BitPayException {
+        mapper = Mappers.create(binding);
+        invoice = newInvoice();
+        bill = newBill();
+    }
+
+    @Benchmark
+    public String writeInvoice() throws JsonProcessingException {
+        return mapper.writeValueAsString(invoice);
+    }
+
+    @Benchmark
+    public String writeBill() throws JsonProcessingException {
+        return mapper.writeValueAsString(bill);
+    }
+
+    static Invoice newInvoice() throws BitPayException {
+        Buyer buyer = new Buyer();
+        buyer.setName("Satoshi Nakamoto");
+        buyer.setAddress1("100 Main Street");
+        buyer.setAddress2("Suite 42");
+        buyer.setLocality("Atlanta");
+        buyer.setRegion("GA");
+        buyer.setPostalCode("30301");
+        buyer.setCountry("US");
+        buyer.setEmail("satoshi@example.com");
+        buyer.setPhone("555-0100");
+        buyer.setNotify(true);
+
+        Invoice invoice = new Invoice(129.99, Currency.USD);
+        invoice.setToken("Hn2WCJfDcVKT5kzS8YST33WghmUV3n7WDRKh5mhk4bW6");
+        invoice.setGuid("48213901");
+        invoice.setOrderId("ORD-20200415-0042");
+        invoice.setItemDesc("Hardware wallet bundle");
+        invoice.setPosData("{\"orderId\":\"ORD-20200415-0042\",\"store\":\"eu-01\"}");
+        invoice.setNotificationURL("https://merchant.example.com/bitpay/ipn");
+        invoice.setRedirectURL("https://merchant.example.com/orders/ORD-20200415-0042");
+        invoice.setNotificationEmail("orders@example.com");
+        invoice.setTransactionSpeed("medium");
+        invoice.setExtendedNotifications(true);
+        invoice.setFullNotifications(true);
+        invoice.setPaymentCurrencies(Arrays.asList(Currency.BTC, Currency.BCH, Currency.ETH));
+        invoice.setBuyer(buyer);
+        return invoice;
+    }
+
+    static Bill newBill() {
+        return newBill(20);
+    }
+
+    static Bill newBill(int itemCount) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setDescription("product-" + i);
+            item.setPrice(10.0 + i);
+            item.setQuantity(1 + i % 5);
+            items.add(item);
+        }
+
+        Bill bill = new Bill("bill1234-ABCD", Currency.USD, "billing@example.com", items);
+        bill.setToken("Hn2WCJfDcVKT5kzS8YST33WghmUV3n7WDRKh5mhk4bW6");
+        bill.setName("Acme Hardware");
+        bill.setAddress1("2630 Hegal Place");
+        bill.setCity("Alexandria");
+        bill.setState("VA");
+        bill.setZip("23242");
+        bill.setCountry("US");
+        bill.setCc(Arrays.asList("accounts@example.com", "finance@example.com"));
+        bill.setPhone("555-123-456");
+        bill.setDueDate("2020-04-30T00:00:00.000Z");
+        bill.setPassProcessingFee(true);
+        return bill;
+    }
+}
@@ -0,0 +1,50 @@
+package com.bitpay.sdk_light.benchmarks;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.loadtest.StubServer;
+import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from a fresh JVM to the first successful call: creating a {@link Client} and completing one request
+ * against {@link StubServer}. Every fork measures a single call, so class loading, mapper construction and the
+ * first connection are all included.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    StubServer server;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new StubServer(0, 2, 0, 0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public Invoice firstGetInvoice() throws BitPayException {
+        Client client = new Client("token", server.getBaseUrl(), HttpClients.createDefault());
+        return client.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+    }
+
+    @Benchmark
+    public Invoice firstCreateInvoice() throws BitPayException {
+        Client client = new Client("token", server.getBaseUrl(), HttpClients.createDefault());
+        return client.createInvoice(new Invoice(129.99, Currency.USD));
+    }
+}
@@ -0,0 +1,242 @@
+package com.bitpay.sdk_light.loadtest;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Bill.Bill;
+import com.bitpay.sdk_light.model.Bill.Item;
+import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load generator driving a real {@link Client} against an embedded {@link StubServer}.
+ * <p>
+ * For every concurrency level a fresh client and connection pool are built, warmed up and then measured for
+ * a fixed duration. The report gives throughput, latency percentiles, errors and the bytes allocated by the
+ * calling thread per operation, which is what is needed to size worker pools and connection limits.
+ * <pre>
+ * java -cp target/benchmarks.jar com.bitpay.sdk_light.loadtest.LoadTest \
+ *      --concurrency 1,8,32 --connections 0 --duration 10 --warmup 3 \
+ *      --latency-ms 20 --error-rate 0.01 --payload-kb 8 \
+ *      --mix createInvoice=4,getInvoice=10,getRates=2,createBill=1,getBill=2,deliverBill=1
+ * </pre>
+ */
+public class LoadTest {
+
+    private static final String TOKEN = "LoadTestToken00000000000000000000000000000";
+
+    interface Operation {
+        void run(Client client) throws BitPayException;
+    }
+
+    private static final Map<String, Operation> OPERATIONS = new LinkedHashMap<>();
+
+    static {
+        OPERATIONS.put("createInvoice", client -> {
+            Invoice invoice = new Invoice(129.99, Currency.USD);
+            invoice.setOrderId("ORD-" + ThreadLocalRandom.current().nextInt(1000000));
+            invoice.setNotificationURL("https://merchant.example.com/bitpay/ipn");
+            client.createInvoice(invoice);
+        });
+        OPERATIONS.put("getInvoice", client -> client.getInvoice("G3viJEJgE8Jk2oekSdgT2A"));
+        OPERATIONS.put("getRates", client -> client.getRates().getRate(Currency.USD));
+        OPERATIONS.put("createBill", client -> {
+            List<Item> items = new ArrayList<>();
+            Item item = new Item();
+            item.setDescription("product-a");
+            item.setPrice(30.0);
+            item.setQuantity(9);
+            items.add(item);
+            client.createBill(new Bill("bill-" + ThreadLocalRandom.current().nextInt(1000000), Currency.USD, "billing@example.com", items));
+        });
+        OPERATIONS.put("getBill", client -> client.getBill("X6KJbe9RxAGWNReCwd1xRw"));
+        OPERATIONS.put("deliverBill", client -> client.deliverBill("X6KJbe9RxAGWNReCwd1xRw", "6EBQR37MgDJPfEiLY3jtRqBM"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] levels = Arrays.stream(options.getOrDefault("concurrency", "1,8,32").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        int connections = Integer.parseInt(options.getOrDefault("connections", "0"));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "10")));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "3")));
+        long latencyMicros = (long) (Double.parseDouble(options.getOrDefault("latency-ms", "20")) * 1000);
+        double errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+        int payloadBytes = Integer.parseInt(options.getOrDefault("payload-kb", "0")) * 1024;
+        Mix mix = new Mix(options.getOrDefault("mix", "createInvoice=4,getInvoice=10,getRates=2,createBill=1,getBill=2,deliverBill=1"));
+
+        int maxLevel = Arrays.stream(levels).max().orElse(1);
+        try (StubServer server = new StubServer(0, Math.max(16, maxLevel * 2), latencyMicros, errorRate, payloadBytes)) {
+            System.out.printf("Stub %s, latency %.1f ms, error rate %.3f, invoice payload %d bytes, mix %s%n",
+                    server.getBaseUrl(), latencyMicros / 1000.0, errorRate, server.getInvoiceSize(), mix);
+            System.out.printf("%8s %6s %10s %9s %9s %9s %9s %9s %8s %11s%n",
+                    "threads", "conns", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "alloc B/op");
+
+            for (int threads : levels) {
+                int poolSize = connections > 0 ? connections : threads;
+                PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+                pool.setMaxTotal(poolSize);
+                pool.setDefaultMaxPerRoute(poolSize);
+                try (CloseableHttpClient httpClient = HttpClientBuilder.create().setConnectionManager(pool).build()) {
+                    Client client = new Client(TOKEN, server.getBaseUrl(), httpClient);
+                    run(client, mix, threads, warmup);
+                    Result result = run(client, mix, threads, duration);
+                    result.print(threads, poolSize, duration);
+                }
+            }
+        }
+    }
+
+    private static Result run(Client client, Mix mix, int threads, long durationNanos) throws InterruptedException {
+        Worker[] workers = new Worker[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + durationNanos;
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(client, mix, start, deadline);
+            workers[i].start();
+        }
+        start.countDown();
+
+        Result result = new Result();
+        for (Worker worker : workers) {
+            worker.join();
+            result.merge(worker);
+        }
+        return result;
+    }
+
+    private static class Worker extends Thread {
+
+        private final Client _client;
+        private final Mix _mix;
+        private final CountDownLatch _start;
+        private final long _deadline;
+        private final com.sun.management.ThreadMXBean _threads;
+        long[] latencies = new long[4096];
+        int count;
+        long errors;
+        long allocated;
+
+        Worker(Client client, Mix mix, CountDownLatch start, long deadline) {
+            _client = client;
+            _mix = mix;
+            _start = start;
+            _deadline = deadline;
+            _threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                _start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long id = getId();
+            while (System.nanoTime() < _deadline) {
+                Operation operation = _mix.next();
+                long bytesBefore = _threads.getThreadAllocatedBytes(id);
+                long begin = System.nanoTime();
+                try {
+                    operation.run(_client);
+                } catch (BitPayException e) {
+                    errors++;
+                }
+                long elapsed = System.nanoTime() - begin;
+                allocated += _threads.getThreadAllocatedBytes(id) - bytesBefore;
+
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = elapsed;
+            }
+        }
+    }
+
+    private static class Result {
+
+        private long[] _latencies = new long[0];
+        private int _count;
+        private long _errors;
+        private long _allocated;
+
+        void merge(Worker worker) {
+            _latencies = Arrays.copyOf(_latencies, _count + worker.count);
+            System.arraycopy(worker.latencies, 0, _latencies, _count, worker.count);
+            _count += worker.count;
+            _errors += worker.errors;
+            _allocated += worker.allocated;
+        }
+
+        void print(int threads, int connections, long durationNanos) {
+            Arrays.sort(_latencies, 0, _count);
+            double seconds = durationNanos / 1e9;
+            System.out.printf("%8d %6d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d %11d%n",
+                    threads, connections, _count / seconds,
+                    percentile(0.50), percentile(0.90), percentile(0.99), percentile(0.999),
+                    _count == 0 ? 0 : _latencies[_count - 1] / 1e6,
+                    _errors, _count == 0 ? 0 : _allocated / _count);
+        }
+
+        private double percentile(double p) {
+            if (_count == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(_count - 1, Math.ceil(p * _count) - 1);
+            return _latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private static class Mix {
+
+        private final Operation[] _table;
+        private final String _description;
+
+        Mix(String spec) {
+            List<Operation> table = new ArrayList<>();
+            for (String entry : spec.split(",")) {
+                String[] pair = entry.trim().split("=");
+                Operation operation = OPERATIONS.get(pair[0]);
+                if (operation == null) {
+                    throw new IllegalArgumentException("Unknown operation " + pair[0] + ", expected one of " + OPERATIONS.keySet());
+                }
+                int weight = pair.length > 1 ? Integer.parseInt(pair[1]) : 1;
+                for (int i = 0; i < weight; i++) {
+                    table.add(operation);
+                }
+            }
+            _table = table.toArray(new Operation[0]);
+            _description = spec;
+        }
+
+        Operation next() {
+            return _table[ThreadLocalRandom.current().nextInt(_table.length)];
+        }
+
+        @Override
+        public String toString() {
+            return _description;
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bitpay.sdk_light.loadtest;
+
+import com.bitpay.sdk_light.benchmarks.Payloads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP server emulating the {@code invoices}, {@code bills}, {@code rates} and {@code deliveries}
+ * endpoints of the BitPay API with the captured payloads.
+ * <p>
+ * Latency, error rate and invoice payload size are configurable so the client can be exercised under
+ * conditions close to production without reaching bitpay.com.
+ */
+public class StubServer implements AutoCloseable {
+
+    private final HttpServer _server;
+    private final ExecutorService _executor;
+    private final long _latencyMicros;
+    private final double _errorRate;
+    private final byte[] _invoice;
+    private final byte[] _bill;
+    private final byte[] _rates;
+    private final byte[] _delivery;
+    private final byte[] _error;
+    private final byte[] _notFound;
+    private final AtomicLong _requests = new AtomicLong();
+
+    /**
+     * @param port          The port to listen on, 0 for an ephemeral one.
+     * @param threads       The number of server threads; must exceed the client concurrency when latency is set.
+     * @param latencyMicros The mean latency added to every response, jittered by +/- 20%.
+     * @param errorRate     The fraction of requests, between 0 and 1, answered with an API error.
+     * @param invoiceBytes  The minimum invoice payload size; the transaction list is padded to reach it.
+     * @throws IOException If the server cannot bind.
+     */
+    public StubServer(int port, int threads, long latencyMicros, double errorRate, int invoiceBytes) throws IOException {
+        _latencyMicros = latencyMicros;
+        _errorRate = errorRate;
+        _invoice = padInvoice(Payloads.load(Payloads.INVOICE), invoiceBytes);
+        _bill = utf8(Payloads.load(Payloads.BILL));
+        _rates = utf8(Payloads.load(Payloads.RATES));
+        _delivery = utf8("{\"data\":\"Success\"}");
+        _error = utf8("{\"status\":\"error\",\"code\":500,\"data\":null,\"error\":\"Stubbed failure\"}");
+        _notFound = utf8("{\"status\":\"error\",\"code\":404,\"data\":null,\"error\":\"Object not found\"}");
+
+        // Headers and body are written separately; without this Nagle adds ~40 ms to every exchange.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        _executor = Executors.newFixedThreadPool(threads);
+        _server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        _server.createContext("/", this::handle);
+        _server.setExecutor(_executor);
+        _server.start();
+    }
+
+    /**
+     * @return The base URL to hand to the client, including the trailing slash.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + _server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return The number of requests served so far.
+     */
+    public long getRequestCount() {
+        return _requests.get();
+    }
+
+    /**
+     * @return The size of the invoice responses in bytes.
+     */
+    public int getInvoiceSize() {
+        return _invoice.length;
+    }
+
+    @Override
+    public void close() {
+        _server.stop(0);
+        _executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        _requests.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] drain = new byte[4096];
+            while (in.read(drain) != -1) {
+                // consume the request body so the connection can be reused
+            }
+        }
+
+        if (_latencyMicros > 0) {
+            long jitter = _latencyMicros / 5;
+            long delay = _latencyMicros + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+            try {
+                TimeUnit.MICROSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        if (_errorRate > 0 && ThreadLocalRandom.current().nextDouble() < _errorRate) {
+            respond(exchange, 500, _error);
+        } else if (path.endsWith("/deliveries") && method.equals("POST")) {
+            respond(exchange, 200, _delivery);
+        } else if (path.startsWith("/invoices")) {
+            respond(exchange, 200, _invoice);
+        } else if (path.startsWith("/bills")) {
+            respond(exchange, 200, _bill);
+        } else if (path.equals("/rates") && method.equals("GET")) {
+            respond(exchange, 200, _rates);
+        } else {
+            respond(exchange, 404, _notFound);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] padInvoice(String payload, int minBytes) throws IOException {
+        byte[] body = utf8(payload);
+        if (body.length >= minBytes) {
+            return body;
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = (ObjectNode) mapper.readTree(payload);
+        ArrayNode transactions = (ArrayNode) root.get("data").get("transactions");
+        ObjectNode template = (ObjectNode) transactions.get(0);
+        int copies = (minBytes - body.length) / (mapper.writeValueAsBytes(template).length + 1) + 1;
+        for (int i = 0; i < copies; i++) {
+            transactions.add(template.deepCopy());
+        }
+        body = mapper.writeValueAsBytes(root);
+        while (body.length < minBytes) {
+            transactions.add(template.deepCopy());
+            body = mapper.writeValueAsBytes(root);
+        }
+        return body;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,15 +1,27 @@
 package com.bitpay.sdk_light;
 
 import com.bitpay.sdk_light.model.Bill.Bill;
-import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Bill.Item;
+import com.bitpay.sdk_light.model.Invoice.*;
 import com.bitpay.sdk_light.model.Rate.Rate;
 import com.bitpay.sdk_light.model.Rate.Rates;
+import com.bitpay.sdk_light.store.InvoiceNotRecordedException;
+import com.bitpay.sdk_light.store.InvoiceStore;
+import com.bitpay.sdk_light.util.AfterburnerSupport;
 import com.bitpay.sdk_light.util.BitPayLogger;
+import com.bitpay.sdk_light.util.JsonBufferPool;
+import com.bitpay.sdk_light.util.JsonEntity;
+import com.bitpay.sdk_light.util.codec.CodecModule;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
@@ -21,10 +33,17 @@ import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 /**
  * <img src="https://bitpay.com/_nuxt/img/1c0494b.svg" width="120" alt="BitPay">
  * <h1>BitPay Java light client</h1>
@@ -40,10 +59,34 @@ import java.util.*;
 public class Client {
 
     private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    /**
+     * The model types bound from API responses, nested types included. The deprecated payment codes and totals
+     * are discarded by the invoice codec, not bound.
+     */
+    static final Class<?>[] MODEL_TYPES = {
+            Invoice.class, InvoiceSummary.class, Buyer.class, InvoiceTransaction.class, InvoiceBuyerProvidedInfo.class,
+            SupportedTransactionCurrencies.class, SupportedTransactionCurrency.class, MinerFees.class,
+            MinerFeesItem.class, Shopper.class, RefundInfo.class, Bill.class, Item.class, Rate.class,
+    };
+    /**
+     * The model types written to API requests, nested types included.
+     */
+    static final Class<?>[] REQUEST_TYPES = {Invoice.class, Buyer.class, Bill.class, Item.class};
+    private static final String WARM_UP_URI = "rates/BTC/USD";
+    private static final long WARM_UP_HOLD_MILLIS = 2000;
+    private static final int MAX_WARM_UP_CONNECTIONS = 64;
+    private static final AtomicInteger WARM_UP_COUNT = new AtomicInteger();
+
     private String _env;
     private String _token;
     private String _baseUrl;
     private HttpClient _httpClient = null;
+    // Replaced, never changed, by enableAfterburner(); a request may read the new mapper and the old writer
+    private volatile ObjectMapper _mapper;
+    private volatile ObjectWriter _writer;
+    private boolean _afterburner;
+    private InvoiceStore _invoiceStore = null;
 
     /**
      * Constructor for use if the keys and SIN are managed by this library.
@@ -78,6 +121,45 @@ public class Client {
         }
     }
 
+    /**
+     * Constructor for use with a custom API endpoint and transport, e.g. a local stub server or a tuned connection pool.
+     *
+     * @param token The token generated on the BitPay account.
+     * @param baseUrl The API base URL, including the trailing slash.
+     * @param httpClient The HTTP client used to reach the API.
+     * @throws BitPayException BitPayException class
+     */
+    public Client(String token, String baseUrl, HttpClient httpClient) throws BitPayException {
+        if (baseUrl == null || httpClient == null) {
+            throw new BitPayException("Error - base URL and HTTP client are required");
+        }
+        this._token = token;
+        this._baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this._httpClient = httpClient;
+        this._mapper = newMapper();
+        this._writer = _mapper.writer();
+    }
+
+    /**
+     * Constructor for clients that share their transport and JSON mapper with others, see {@link ClientPool}.
+     */
+    Client(String token, String baseUrl, HttpClient httpClient, ObjectMapper mapper, ObjectWriter writer) {
+        this._token = token;
+        this._baseUrl = baseUrl;
+        this._httpClient = httpClient;
+        this._mapper = mapper;
+        this._writer = writer;
+    }
+
+    /**
+     * Create a mapper configured as the client's, with the model codecs registered.
+     *
+     * @return A new mapper.
+     */
+    public static ObjectMapper newMapper() {
+        return new ObjectMapper().registerModule(new CodecModule());
+    }
+
     /**
      * Initialize this object with the client name and the environment Url.
      *
@@ -87,6 +169,8 @@ public class Client {
         try {
             this._baseUrl = this._env.equals(Env.Test) ? Env.TestUrl : Env.ProdUrl;
             _httpClient = HttpClientBuilder.create().build();
+            _mapper = newMapper();
+            _writer = _mapper.writer();
         } catch (Exception e) {
             throw new BitPayException("Error - failed to build configuration : " + e.getMessage());
         }
@@ -103,23 +187,15 @@ public class Client {
         invoice.setToken(this._token);
         invoice.setGuid(this.getGuid());
 
-        ObjectMapper mapper = new ObjectMapper();
-
-        String json;
-
-        try {
-            json = mapper.writeValueAsString(invoice);
-        } catch (JsonProcessingException e) {
-            throw new BitPayException("Error - failed to serialize Invoice object : " + e.getMessage());
-        }
-
-        HttpResponse response = this.post("invoices", json);
+        HttpResponse response = this.postJson("invoices", new JsonEntity(_writer, invoice));
 
+        String json = this.responseToJsonString(response);
         try {
-            invoice = mapper.readerForUpdating(invoice).readValue(this.responseToJsonString(response));
+            invoice = _mapper.readerForUpdating(invoice).readValue(json);
         } catch (JsonProcessingException e) {
             throw new BitPayException("Error - failed to deserialize BitPay server response (Invoice) : " + e.getMessage());
         }
+        this.recordInvoice(invoice, json);
 
         return invoice;
     }
@@ -137,16 +213,38 @@ public class Client {
 
         HttpResponse response = this.get("invoices/" + invoiceId, params);
 
+        String json = this.responseToJsonString(response);
         Invoice invoice;
         try {
-            invoice = new ObjectMapper().readValue(this.responseToJsonString(response), Invoice.class);
+            invoice = _mapper.readValue(json, Invoice.class);
         } catch (JsonProcessingException e) {
             throw new BitPayException("Error - failed to deserialize BitPay server response (Invoice) : " + e.getMessage());
         }
+        this.recordInvoice(invoice, json);
 
         return invoice;
     }
 
+    /**
+     * Retrieve the status fields of a BitPay invoice by invoice id using the public facade.
+     * <p>
+     * Cheaper than {@link #getInvoice(String)} for status checks: the response is streamed and only the id,
+     * status, exception status, amount paid and expiration time are read; transactions, exchange rates and
+     * the other nested objects are skipped without being bound.
+     *
+     * @param invoiceId The id of the invoice to retrieve.
+     * @return The invoice summary.
+     * @throws BitPayException BitPayException class
+     */
+    public InvoiceSummary getInvoiceSummary(String invoiceId) throws BitPayException {
+        final List<BasicNameValuePair> params = new ArrayList<>();
+        params.add(new BasicNameValuePair("token", this._token));
+
+        HttpResponse response = this.get("invoices/" + invoiceId, params);
+
+        return this.readResponseData(response, InvoiceSummary.class, "Invoice");
+    }
+
     /**
      * Retrieve the exchange rate table maintained by BitPay.  See https://bitpay.com/bitcoin-exchange-rates.
      *
@@ -159,7 +257,7 @@ public class Client {
         List<Rate> rates;
 
         try {
-            rates = Arrays.asList(new ObjectMapper().readValue(this.responseToJsonString(response), Rate[].class));
+            rates = Arrays.asList(_mapper.readValue(this.responseToJsonString(response), Rate[].class));
         } catch (JsonProcessingException e) {
             throw new BitPayException("Error - failed to deserialize BitPay server response (Rates) : " + e.getMessage());
         }
@@ -177,19 +275,11 @@ public class Client {
     public Bill createBill(Bill bill) throws BitPayException {
         String token = this._token;
         bill.setToken(token);
-        ObjectMapper mapper = new ObjectMapper();
-        String json;
-
-        try {
-            json = mapper.writeValueAsString(bill);
-        } catch (JsonProcessingException e) {
-            throw new BitPayException("Error - failed to serialize Bill object : " + e.getMessage());
-        }
 
-        HttpResponse response = this.post("bills", json);
+        HttpResponse response = this.postJson("bills", new JsonEntity(_writer, bill));
 
         try {
-            bill = mapper.readerForUpdating(bill).readValue(this.responseToJsonString(response));
+            bill = _mapper.readerForUpdating(bill).readValue(this.responseToJsonString(response));
         } catch (JsonProcessingException e) {
             throw new BitPayException("Error - failed to deserialize BitPay server response (Bill) : " + e.getMessage());
         }
@@ -213,7 +303,7 @@ public class Client {
 
         Bill bill;
         try {
-            bill = new ObjectMapper().readValue(this.responseToJsonString(response), Bill.class);
+            bill = _mapper.readValue(this.responseToJsonString(response), Bill.class);
         } catch (JsonProcessingException e) {
             throw new BitPayException("Error - failed to deserialize BitPay server response (Bill) : " + e.getMessage());
         }
@@ -232,14 +322,8 @@ public class Client {
     public String deliverBill(String billId, String billToken) throws BitPayException {
         Map<String, String> map = new HashMap<>();
         map.put("token", billToken);
-        ObjectMapper mapper = new ObjectMapper();
-        String json;
-        try {
-            json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(map);
-        } catch (JsonProcessingException e) {
-            throw new BitPayException("Error - failed to serialize Bill object : " + e.getMessage());
-        }
-        HttpResponse response = this.post("bills/" + billId + "/deliveries", json);
+
+        HttpResponse response = this.postJson("bills/" + billId + "/deliveries", new JsonEntity(_mapper.writerWithDefaultPrettyPrinter(), map));
 
         return this.responseToJsonString(response).replace("\"", "");
     }
@@ -259,11 +343,7 @@ public class Client {
                 fullURL += "?" + URLEncodedUtils.format(parameters, "UTF-8");
                 get.setURI(new URI(fullURL));
             }
-            get.addHeader("x-bitpay-plugin-info", Env.BitpayPluginInfo);
-            get.addHeader("x-accept-version", Env.BitpayApiVersion);
-            get.addHeader("x-bitpay-api-frame", Env.BitpayApiFrame);
-            get.addHeader("x-bitpay-api-frame-version", Env.BitpayApiFrameVersion);
-
+            addApiHeaders(get);
 
             _log.info(get.toString());
             return _httpClient.execute(get);
@@ -273,30 +353,79 @@ public class Client {
         }
     }
 
+    private static void addApiHeaders(HttpRequest request) {
+        request.addHeader("x-bitpay-plugin-info", Env.BitpayPluginInfo);
+        request.addHeader("x-accept-version", Env.BitpayApiVersion);
+        request.addHeader("x-bitpay-api-frame", Env.BitpayApiFrame);
+        request.addHeader("x-bitpay-api-frame-version", Env.BitpayApiFrameVersion);
+    }
+
     public HttpResponse get(String uri) throws BitPayException {
         return this.get(uri, null);
     }
 
     public HttpResponse post(String uri, String json) throws BitPayException {
+        return this.post(uri, new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * POST a request body, e.g. a {@link JsonEntity} that serializes a model object while it is sent.
+     */
+    public HttpResponse post(String uri, HttpEntity entity) throws BitPayException {
         try {
             HttpPost post = new HttpPost(_baseUrl + uri);
 
-            post.setEntity(new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8)));
-            post.addHeader("x-accept-version", Env.BitpayApiVersion);
-            post.addHeader("x-bitpay-plugin-info", Env.BitpayPluginInfo);
-            post.addHeader("x-bitpay-api-frame", Env.BitpayApiFrame);
-            post.addHeader("x-bitpay-api-frame-version", Env.BitpayApiFrameVersion);
+            post.setEntity(entity);
+            addApiHeaders(post);
             post.addHeader("Content-Type", "application/json");
 
             _log.info(post.toString());
             return _httpClient.execute(post);
 
+        } catch (JsonProcessingException e) {
+            throw new BitPayException("Error - failed to serialize request body : " + e.getMessage());
         } catch (IOException e) {
             throw new BitPayException("Error: POST failed\n" + e.getMessage());
         }
     }
 
-    private String responseToJsonString(HttpResponse response) throws BitPayException {
+    /**
+     * POST a JSON body serialized into a pooled buffer, so that it is sent with a Content-Length and the buffer
+     * is reused by later requests.
+     */
+    private HttpResponse postJson(String uri, JsonEntity entity) throws BitPayException {
+        try {
+            entity.buffer(JsonBufferPool.SHARED);
+        } catch (IOException e) {
+            throw new BitPayException("Error - failed to serialize request body : " + e.getMessage());
+        }
+
+        try {
+            return this.post(uri, entity);
+        } finally {
+            entity.release();
+        }
+    }
+
+    String responseToJsonString(HttpResponse response) throws BitPayException {
+        try {
+            return readResponseString(response);
+        } catch (BitPayException e) {
+            onResponseFailed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Called when a response reports an error or cannot be read, just before the exception is thrown, by every
+     * method that reads a response.
+     *
+     * @param e The exception about to be thrown.
+     */
+    void onResponseFailed(BitPayException e) {
+    }
+
+    private String readResponseString(HttpResponse response) throws BitPayException {
         if (response == null) {
             throw new BitPayException("Error: HTTP response is null");
         }
@@ -310,9 +439,7 @@ public class Client {
             jsonString = EntityUtils.toString(entity, "UTF-8");
             _log.info("RESPONSE: " + jsonString);
 
-            ObjectMapper mapper = new ObjectMapper();
-
-            JsonNode rootNode = mapper.readTree(jsonString);
+            JsonNode rootNode = _mapper.readTree(jsonString);
             JsonNode node = rootNode.get("error");
 
             if (node != null) {
@@ -348,6 +475,83 @@ public class Client {
         }
     }
 
+    /**
+     * Stream the response body, applying the same error handling as {@link #responseToJsonString(HttpResponse)},
+     * and bind the {@code data} node without first materializing the body as a String or a tree. Like it, a
+     * response without a {@code data} node is bound as a whole.
+     */
+    private <T> T readResponseData(HttpResponse response, Class<T> type, String typeName) throws BitPayException {
+        try {
+            return bindResponseData(response, type, typeName);
+        } catch (BitPayException e) {
+            onResponseFailed(e);
+            throw e;
+        }
+    }
+
+    private <T> T bindResponseData(HttpResponse response, Class<T> type, String typeName) throws BitPayException {
+        if (response == null) {
+            throw new BitPayException("Error: HTTP response is null");
+        }
+
+        _log.info("RESPONSE: " + response.getStatusLine());
+
+        try (InputStream in = response.getEntity().getContent(); JsonParser p = _mapper.getFactory().createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new BitPayException("Error - failed to parse json response to map : expected an object");
+            }
+
+            T data = null;
+            boolean hasData = false;
+            // The fields before data, kept in case there is none; BitPay sends only the facade before it
+            TokenBuffer root = new TokenBuffer(_mapper, false);
+            root.writeStartObject();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                switch (name) {
+                    case "error":
+                        throw new BitPayException("Error: " + (t.isScalarValue() ? p.getText() : ""));
+                    case "errors":
+                        if (t == JsonToken.START_ARRAY) {
+                            StringBuilder message = new StringBuilder("Multiple errors:");
+                            while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                                message.append("\n").append(t.isScalarValue() ? p.getText() : "");
+                                p.skipChildren();
+                            }
+                            throw new BitPayException(message.toString());
+                        }
+                        p.skipChildren();
+                        break;
+                    case "data":
+                        data = _mapper.readValue(p, type);
+                        hasData = true;
+                        break;
+                    default:
+                        if (hasData) {
+                            p.skipChildren();
+                        } else {
+                            root.writeFieldName(name);
+                            root.copyCurrentStructure(p);
+                        }
+                }
+            }
+
+            if (!hasData) {
+                root.writeEndObject();
+                try (JsonParser whole = root.asParser()) {
+                    data = _mapper.readValue(whole, type);
+                }
+            }
+            return data;
+
+        } catch (JsonProcessingException e) {
+            throw new BitPayException("Error - failed to deserialize BitPay server response (" + typeName + ") : " + e.getMessage());
+        } catch (IOException e) {
+            throw new BitPayException("Error - failed to retrieve HTTP response body : " + e.getMessage());
+        }
+    }
+
     private String getGuid() {
         int Min = 0;
         int Max = 99999999;
@@ -355,6 +559,155 @@ public class Client {
         return Min + (int) (Math.random() * ((Max - Min) + 1)) + "";
     }
 
+    /**
+     * Switches this client to a mapper with the Jackson Afterburner module registered, replacing reflective
+     * property access with generated bytecode for the classes not covered by the built-in model codecs.
+     * <p>
+     * The mapper in use is not modified: a new one is built and published to all threads, so this may be called
+     * while other threads send requests, which finish with the mapper they started with.
+     * <p>
+     * Requires {@code com.fasterxml.jackson.module:jackson-module-afterburner} on the classpath; it is an optional
+     * dependency of this library. Calling this more than once has no further effect.
+     *
+     * @throws BitPayException If the Afterburner module is not available.
+     */
+    public synchronized void enableAfterburner() throws BitPayException {
+        if (_afterburner) {
+            return;
+        }
+        try {
+            ObjectMapper mapper = AfterburnerSupport.register(newMapper());
+            _mapper = mapper;
+            _writer = mapper.writer();
+            _afterburner = true;
+        } catch (NoClassDefFoundError e) {
+            throw new BitPayException("Error - jackson-module-afterburner is not on the classpath : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prepares this client for its first requests, which otherwise pay for DNS lookups, TCP and TLS handshakes
+     * and the construction of the JSON serializers and deserializers.
+     * <p>
+     * Opens up to {@code connections} connections to the API at once, at most 64, with a small rate request, and
+     * keeps them in the HTTP client's pool when it reuses connections. The HTTP client opens at most its per-route limit,
+     * 2 by default, and later requests wait up to 2 seconds for a connection held by the warm-up. Then binds and
+     * writes an empty payload of every model type.
+     *
+     * @param connections The number of connections to open.
+     * @return The time it took, in milliseconds.
+     * @throws BitPayException If a connection cannot be opened.
+     */
+    public long warmUp(int connections) throws BitPayException {
+        if (connections < 0) {
+            throw new IllegalArgumentException("Error - connections must not be negative");
+        }
+        long start = System.nanoTime();
+        openConnections(connections);
+        long connected = System.nanoTime();
+        primeMapper();
+        long end = System.nanoTime();
+
+        _log.info("Warmed up " + connections + " connections in " + TimeUnit.NANOSECONDS.toMillis(connected - start)
+                + " ms and the JSON mapper in " + TimeUnit.NANOSECONDS.toMillis(end - connected) + " ms");
+        return TimeUnit.NANOSECONDS.toMillis(end - start);
+    }
+
+    /**
+     * Send the requests concurrently and hold each response until all have arrived, so that each one takes a
+     * separate connection instead of reusing one released by an earlier request.
+     */
+    private void openConnections(int connections) throws BitPayException {
+        int count = Math.min(connections, MAX_WARM_UP_CONNECTIONS);
+        if (count == 0) {
+            return;
+        }
+        CountDownLatch received = new CountDownLatch(count);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        String prefix = "bitpay-warmup-" + WARM_UP_COUNT.incrementAndGet() + "-";
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(count, runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < count; i++) {
+            executor.execute(() -> {
+                HttpResponse response = null;
+                try {
+                    HttpGet get = new HttpGet(_baseUrl + WARM_UP_URI);
+                    addApiHeaders(get);
+                    response = _httpClient.execute(get);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    received.countDown();
+                }
+                try {
+                    received.await(WARM_UP_HOLD_MILLIS, TimeUnit.MILLISECONDS);
+                    if (response != null) {
+                        EntityUtils.consume(response.getEntity());
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            // Each request ends by itself, bounded by the HTTP client's timeouts
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new BitPayException("Error - interrupted while warming up connections");
+        }
+        if (failure.get() != null) {
+            throw new BitPayException("Error - failed to warm up connections : " + failure.get().getMessage());
+        }
+    }
+
+    private void primeMapper() throws BitPayException {
+        for (Class<?> type : MODEL_TYPES) {
+            try {
+                Object value = _mapper.readValue("{}", type);
+                if (Arrays.asList(REQUEST_TYPES).contains(type)) {
+                    _writer.writeValueAsBytes(value);
+                }
+            } catch (IOException e) {
+                throw new BitPayException("Error - failed to prime JSON binding (" + type.getSimpleName() + ") : " + e.getMessage());
+            }
+        }
+        try {
+            _mapper.readValue("[]", Rate[].class);
+        } catch (IOException e) {
+            throw new BitPayException("Error - failed to prime JSON binding (Rates) : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records every invoice created or retrieved by this client in a local store, before returning it. If the
+     * store fails, the call throws an {@link InvoiceNotRecordedException} holding the invoice.
+     *
+     * @param invoiceStore The store, or null to stop recording.
+     */
+    public void setInvoiceStore(InvoiceStore invoiceStore) {
+        _invoiceStore = invoiceStore;
+    }
+
+    private void recordInvoice(Invoice invoice, String json) throws InvoiceNotRecordedException {
+        InvoiceStore store = _invoiceStore;
+        if (store == null || invoice.getId() == null) {
+            return;
+        }
+        try {
+            store.put(invoice.getId(), json);
+        } catch (IOException e) {
+            _log.err("Failed to record invoice " + invoice.getId() + " : " + e.getMessage());
+            throw new InvoiceNotRecordedException(invoice, "Error - failed to record invoice " + invoice.getId() + " : " + e.getMessage());
+        }
+    }
+
     /**
      * Sets the logger level of reporting.
      *
@@ -0,0 +1,196 @@
+package com.bitpay.sdk_light;
+
+import com.bitpay.sdk_light.util.AfterburnerSupport;
+import com.bitpay.sdk_light.util.BitPayLogger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out a {@link MerchantClient} per merchant token, all sharing one HTTP connection pool and one JSON
+ * mapper.
+ * <p>
+ * A merchant client holds its token, its quota and a few counters, so a process serving many merchants pays for
+ * connections, serializers and deserializers once. Each merchant may be given a request quota; requests beyond
+ * it fail at once instead of taking connections from the other merchants.
+ */
+public class ClientPool implements Closeable {
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final String _baseUrl;
+    private final HttpClient _httpClient;
+    private final CloseableHttpClient _ownedHttpClient;
+    // Guarded by this; replaced, never changed, by enableAfterburner()
+    private ObjectMapper _mapper = Client.newMapper();
+    private ObjectWriter _writer = _mapper.writer();
+    private final ConcurrentHashMap<String, MerchantClient> _clients = new ConcurrentHashMap<>();
+
+    private volatile double _defaultRequestsPerSecond;
+    private volatile int _defaultBurst;
+
+    /**
+     * Constructor, create a pool for an environment with its own connection pool.
+     *
+     * @param environment    The target environment, see {@link Env}.
+     * @param maxConnections The number of connections open to BitPay at most, shared by all merchants.
+     */
+    public ClientPool(String environment, int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Error - maxConnections must be at least 1");
+        }
+        this._baseUrl = Env.Test.equals(environment) ? Env.TestUrl : Env.ProdUrl;
+        this._ownedHttpClient = HttpClientBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .build();
+        this._httpClient = _ownedHttpClient;
+    }
+
+    /**
+     * Constructor for use with a custom API endpoint and transport, e.g. a local stub server or a tuned connection pool.
+     *
+     * @param baseUrl    The API base URL.
+     * @param httpClient The HTTP client shared by all merchants. It is not closed by {@link #close()}.
+     */
+    public ClientPool(String baseUrl, HttpClient httpClient) {
+        if (baseUrl == null || httpClient == null) {
+            throw new IllegalArgumentException("Error - base URL and HTTP client are required");
+        }
+        this._baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this._httpClient = httpClient;
+        this._ownedHttpClient = null;
+    }
+
+    /**
+     * Get the client for a merchant, creating it on first use with the default quota.
+     *
+     * @param token The token generated on the merchant's BitPay account.
+     * @return The merchant's client.
+     */
+    public MerchantClient getClient(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Error - token is required");
+        }
+        MerchantClient existing = _clients.get(token);
+        if (existing != null) {
+            return existing;
+        }
+        // Under the lock of enableAfterburner(), so that no client is created while the mapper changes
+        synchronized (this) {
+            return _clients.computeIfAbsent(token, t -> {
+                MerchantClient client = new MerchantClient(t, _baseUrl, _httpClient, _mapper, _writer);
+                if (_defaultRequestsPerSecond > 0) {
+                    client.setQuota(_defaultRequestsPerSecond, _defaultBurst);
+                }
+                _log.info("Created merchant client " + _clients.size());
+                return client;
+            });
+        }
+    }
+
+    /**
+     * Forget a merchant's client. Requests already handed to it still complete.
+     *
+     * @param token The merchant's token.
+     * @return Whether the pool held a client for the token.
+     */
+    public boolean removeClient(String token) {
+        return _clients.remove(token) != null;
+    }
+
+    /**
+     * Limit the requests of one merchant, creating its client if needed.
+     *
+     * @param token             The merchant's token.
+     * @param requestsPerSecond The sustained request rate.
+     * @param burst             The number of requests that may be sent at once after an idle period, at least 1.
+     */
+    public void setQuota(String token, double requestsPerSecond, int burst) {
+        getClient(token).setQuota(requestsPerSecond, burst);
+    }
+
+    /**
+     * Limit the requests of every merchant client created from now on.
+     *
+     * @param requestsPerSecond The sustained request rate, or 0 for no limit.
+     * @param burst             The number of requests that may be sent at once after an idle period.
+     */
+    public void setDefaultQuota(double requestsPerSecond, int burst) {
+        if (requestsPerSecond < 0 || (requestsPerSecond > 0 && burst < 1)) {
+            throw new IllegalArgumentException("Error - requestsPerSecond must not be negative and burst at least 1");
+        }
+        _defaultBurst = burst;
+        _defaultRequestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * Switches the merchant clients created from now on to a shared mapper with the Jackson Afterburner module
+     * registered, see {@link Client#enableAfterburner()}.
+     * <p>
+     * Must be called before the first client is created, so that all merchants share one mapper.
+     *
+     * @throws BitPayException If the Afterburner module is not available.
+     */
+    public synchronized void enableAfterburner() throws BitPayException {
+        if (!_clients.isEmpty()) {
+            throw new IllegalStateException("Error - enable Afterburner before creating merchant clients");
+        }
+        try {
+            ObjectMapper mapper = AfterburnerSupport.register(Client.newMapper());
+            _mapper = mapper;
+            _writer = mapper.writer();
+        } catch (NoClassDefFoundError e) {
+            throw new BitPayException("Error - jackson-module-afterburner is not on the classpath : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the merchant clients held by the pool.
+     */
+    public List<MerchantClient> getClients() {
+        return new ArrayList<>(_clients.values());
+    }
+
+    /**
+     * Get the number of merchant clients held by the pool.
+     */
+    public int size() {
+        return _clients.size();
+    }
+
+    /**
+     * Get the HTTP client shared by the merchant clients.
+     */
+    public HttpClient getHttpClient() {
+        return _httpClient;
+    }
+
+    /**
+     * Close the connection pool, if the pool created it. The merchant clients cannot be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        _clients.clear();
+        if (_ownedHttpClient != null) {
+            _ownedHttpClient.close();
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+}
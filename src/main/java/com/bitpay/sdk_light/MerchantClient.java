@@ -0,0 +1,140 @@
+package com.bitpay.sdk_light;
+
+import com.bitpay.sdk_light.tracking.RequestBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.message.BasicNameValuePair;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A client for one merchant of a {@link ClientPool}, sharing the pool's connections and JSON mapper.
+ * <p>
+ * Requests beyond the merchant's quota fail with a {@link BitPayException} without being sent. The client counts
+ * the requests it sent, those that failed or were rejected by the quota, and the time spent waiting for responses.
+ */
+public class MerchantClient extends Client {
+
+    private volatile RequestBudget _quota;
+
+    private final LongAdder _requests = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private final LongAdder _throttled = new LongAdder();
+    private final LongAdder _latencyNanos = new LongAdder();
+
+    MerchantClient(String token, String baseUrl, HttpClient httpClient, ObjectMapper mapper, ObjectWriter writer) {
+        super(token, baseUrl, httpClient, mapper, writer);
+    }
+
+    /**
+     * Limit the requests of this merchant.
+     *
+     * @param requestsPerSecond The sustained request rate.
+     * @param burst             The number of requests that may be sent at once after an idle period, at least 1.
+     */
+    public void setQuota(double requestsPerSecond, int burst) {
+        _quota = new RequestBudget(requestsPerSecond, burst);
+    }
+
+    /**
+     * Remove the request limit of this merchant.
+     */
+    public void clearQuota() {
+        _quota = null;
+    }
+
+    /**
+     * Get the request limit of this merchant.
+     *
+     * @return The sustained request rate, or 0 for no limit.
+     */
+    public double getQuota() {
+        RequestBudget quota = _quota;
+        return quota == null ? 0 : quota.getRequestsPerSecond();
+    }
+
+    @Override
+    public HttpResponse get(String uri, List<BasicNameValuePair> parameters) throws BitPayException {
+        acquire();
+        long start = System.nanoTime();
+        try {
+            return super.get(uri, parameters);
+        } catch (BitPayException e) {
+            _failures.increment();
+            throw e;
+        } finally {
+            _latencyNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public HttpResponse post(String uri, HttpEntity entity) throws BitPayException {
+        acquire();
+        long start = System.nanoTime();
+        try {
+            return super.post(uri, entity);
+        } catch (BitPayException e) {
+            _failures.increment();
+            throw e;
+        } finally {
+            _latencyNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    void onResponseFailed(BitPayException e) {
+        _failures.increment();
+    }
+
+    /**
+     * The mapper is shared with the other merchants of the pool, see {@link ClientPool#enableAfterburner()}.
+     *
+     * @throws BitPayException Always.
+     */
+    @Override
+    public void enableAfterburner() throws BitPayException {
+        throw new BitPayException("Error - enable Afterburner on the ClientPool before creating merchant clients");
+    }
+
+    private void acquire() throws BitPayException {
+        RequestBudget quota = _quota;
+        if (quota != null && !quota.tryAcquire()) {
+            _throttled.increment();
+            throw new BitPayException("Error - request quota of " + quota.getRequestsPerSecond() + "/s exceeded");
+        }
+        _requests.increment();
+    }
+
+    /**
+     * Get the number of requests sent.
+     */
+    public long getRequestCount() {
+        return _requests.sum();
+    }
+
+    /**
+     * Get the number of requests that failed, or whose response reported an error.
+     */
+    public long getFailureCount() {
+        return _failures.sum();
+    }
+
+    /**
+     * Get the number of requests rejected by the quota.
+     */
+    public long getThrottledCount() {
+        return _throttled.sum();
+    }
+
+    /**
+     * Get the mean time from sending a request to receiving the response headers, in milliseconds.
+     */
+    public double getMeanLatencyMillis() {
+        long requests = _requests.sum();
+        return requests == 0 ? 0 : _latencyNanos.sum() / 1e6 / requests;
+    }
+}
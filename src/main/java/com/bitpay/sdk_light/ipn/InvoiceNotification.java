@@ -0,0 +1,89 @@
+package com.bitpay.sdk_light.ipn;
+
+/**
+ * An instant payment notification (IPN) for an invoice, as posted by BitPay to the invoice's notification URL.
+ * <p>
+ * Holds the event and the invoice fields needed to route the notification. The notification is not signed:
+ * verify it by fetching the invoice with {@code Client.getInvoice} before acting on it.
+ */
+public final class InvoiceNotification {
+
+    private final int _eventCode;
+    private final String _eventName;
+    private final String _invoiceId;
+    private final String _url;
+    private final String _status;
+    private final String _exceptionStatus;
+    private final String _orderId;
+    private final String _posData;
+    private final long _currentTime;
+
+    /**
+     * Constructor, create an invoice notification.
+     *
+     * @param eventCode       The event code, e.g. 1003 for invoice_paidInFull, or 0 for a notification without
+     *                        event (sent when extended notifications are off).
+     * @param eventName       The event name, or null.
+     * @param invoiceId       The invoice id.
+     * @param url             The invoice url.
+     * @param status          The invoice status, see {@link com.bitpay.sdk_light.model.Invoice.InvoiceStatus}.
+     * @param exceptionStatus The exception status, {@code "false"} when there is none.
+     * @param orderId         The merchant order id.
+     * @param posData         The merchant passthru data.
+     * @param currentTime     The time the notification was sent, in milliseconds since the epoch, or 0.
+     */
+    public InvoiceNotification(int eventCode, String eventName, String invoiceId, String url, String status,
+                               String exceptionStatus, String orderId, String posData, long currentTime) {
+        this._eventCode = eventCode;
+        this._eventName = eventName;
+        this._invoiceId = invoiceId;
+        this._url = url;
+        this._status = status;
+        this._exceptionStatus = exceptionStatus;
+        this._orderId = orderId;
+        this._posData = posData;
+        this._currentTime = currentTime;
+    }
+
+    public int getEventCode() {
+        return _eventCode;
+    }
+
+    public String getEventName() {
+        return _eventName;
+    }
+
+    public String getInvoiceId() {
+        return _invoiceId;
+    }
+
+    public String getUrl() {
+        return _url;
+    }
+
+    public String getStatus() {
+        return _status;
+    }
+
+    public String getExceptionStatus() {
+        return _exceptionStatus;
+    }
+
+    public String getOrderId() {
+        return _orderId;
+    }
+
+    public String getPosData() {
+        return _posData;
+    }
+
+    public long getCurrentTime() {
+        return _currentTime;
+    }
+
+    @Override
+    public String toString() {
+        return "InvoiceNotification{event=" + _eventCode + " " + _eventName + ", invoiceId=" + _invoiceId
+                + ", status=" + _status + ", exceptionStatus=" + _exceptionStatus + "}";
+    }
+}
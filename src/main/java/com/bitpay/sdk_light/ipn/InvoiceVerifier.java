@@ -0,0 +1,230 @@
+package com.bitpay.sdk_light.ipn;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.util.BitPayLogger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies notifications by re-fetching their invoice with {@link Client#getInvoice(String)}, as BitPay
+ * recommends, and hands the verified invoice to a {@link VerifiedInvoiceHandler}.
+ * <p>
+ * The first notification for an invoice opens a short window; notifications for the same invoice that arrive
+ * within it join the same fetch, so a burst of notifications during settlement costs one request. A
+ * notification arriving while the fetch is running opens a new window, so the last status is always fetched.
+ * <p>
+ * A failed fetch is retried, 3 times by default, after a delay that doubles with each attempt. The invoice's
+ * notifications are kept meanwhile, and new ones join them. Only then is the handler told that the verification
+ * failed.
+ */
+public class InvoiceVerifier implements NotificationHandler, Closeable {
+
+    private static final AtomicInteger VERIFIER_COUNT = new AtomicInteger();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final Client _client;
+    private final VerifiedInvoiceHandler _handler;
+    private final long _windowNanos;
+    private final ScheduledThreadPoolExecutor _fetchers;
+    private final ConcurrentHashMap<String, List<InvoiceNotification>> _pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> _attempts = new ConcurrentHashMap<>();
+    private volatile int _retries = 3;
+    private volatile long _retryDelayNanos = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongAdder _notifications = new LongAdder();
+    private final LongAdder _fetches = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private final LongAdder _retried = new LongAdder();
+
+    /**
+     * Constructor, create a verifier.
+     *
+     * @param client   The client to fetch invoices with.
+     * @param handler  The handler verified invoices are delivered to.
+     * @param window   How long to wait for more notifications about an invoice before fetching it.
+     * @param unit     The unit of the window.
+     * @param fetchers The number of threads fetching invoices.
+     */
+    public InvoiceVerifier(Client client, VerifiedInvoiceHandler handler, long window, TimeUnit unit, int fetchers) {
+        this._client = client;
+        this._handler = handler;
+        this._windowNanos = unit.toNanos(window);
+        this._fetchers = new ScheduledThreadPoolExecutor(fetchers, newThreadFactory());
+        this._fetchers.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public void onNotification(InvoiceNotification notification) {
+        _notifications.increment();
+        String invoiceId = notification.getInvoiceId();
+        _pending.compute(invoiceId, (id, notifications) -> {
+            if (notifications == null) {
+                notifications = new ArrayList<>(2);
+                _fetchers.schedule(() -> verify(id), _windowNanos, TimeUnit.NANOSECONDS);
+            }
+            notifications.add(notification);
+            return notifications;
+        });
+    }
+
+    private void verify(String invoiceId) {
+        // Once removed, later notifications open a new window instead of joining this list
+        List<InvoiceNotification> notifications = _pending.remove(invoiceId);
+        if (notifications == null) {
+            return;
+        }
+
+        _fetches.increment();
+        Invoice invoice;
+        try {
+            invoice = _client.getInvoice(invoiceId);
+        } catch (BitPayException e) {
+            _failures.increment();
+            _log.err("IPN: failed to verify invoice " + invoiceId + " : " + e.getMessage());
+            int attempt = _attempts.merge(invoiceId, 1, Integer::sum);
+            if (attempt <= _retries && retry(invoiceId, notifications, _retryDelayNanos << (attempt - 1))) {
+                return;
+            }
+            _attempts.remove(invoiceId);
+            _handler.onVerificationFailed(invoiceId, notifications, e);
+            return;
+        }
+        _attempts.remove(invoiceId);
+
+        try {
+            _handler.onVerifiedInvoice(invoice, notifications);
+        } catch (Exception e) {
+            _failures.increment();
+            _log.err("IPN: handler failed for invoice " + invoiceId + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Put the notifications of a failed fetch back, ahead of any that arrived meanwhile, and fetch again later.
+     *
+     * @return Whether the fetch was rescheduled; not once the verifier is closed.
+     */
+    private boolean retry(String invoiceId, List<InvoiceNotification> notifications, long delayNanos) {
+        try {
+            _pending.compute(invoiceId, (id, arrived) -> {
+                List<InvoiceNotification> merged = new ArrayList<>(notifications);
+                if (arrived == null) {
+                    _fetchers.schedule(() -> verify(id), delayNanos, TimeUnit.NANOSECONDS);
+                } else {
+                    merged.addAll(arrived);
+                }
+                return merged;
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        _retried.increment();
+        return true;
+    }
+
+    /**
+     * Set how often a failed fetch is retried.
+     *
+     * @param retries The number of retries, 0 to report failures at once.
+     * @param delay   The delay before the first retry; it doubles with each retry.
+     * @param unit    The unit of the delay.
+     */
+    public void setRetries(int retries, long delay, TimeUnit unit) {
+        if (retries < 0 || retries > 30 || delay < 0) {
+            throw new IllegalArgumentException("Error - retries must be between 0 and 30 and delay not negative");
+        }
+        _retryDelayNanos = unit.toNanos(delay);
+        _retries = retries;
+    }
+
+    /**
+     * Get the number of fetches retried.
+     */
+    public long getRetryCount() {
+        return _retried.sum();
+    }
+
+    /**
+     * Get the number of notifications received.
+     */
+    public long getNotificationCount() {
+        return _notifications.sum();
+    }
+
+    /**
+     * Get the number of invoices fetched.
+     */
+    public long getFetchCount() {
+        return _fetches.sum();
+    }
+
+    /**
+     * Get the number of fetches or handler calls that failed.
+     */
+    public long getFailureCount() {
+        return _failures.sum();
+    }
+
+    /**
+     * Get the number of invoices waiting for their window to close.
+     */
+    public int getPendingCount() {
+        return _pending.size();
+    }
+
+    /**
+     * Stop accepting notifications, and wait for the pending invoices to be fetched and handled.
+     *
+     * @param timeout The longest time to wait.
+     * @param unit    The unit of the timeout.
+     * @return Whether all pending invoices were handled within the timeout.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        _fetchers.shutdown();
+        return _fetchers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stop accepting notifications, and wait up to 30 seconds for the pending invoices to be handled.
+     */
+    @Override
+    public void close() {
+        try {
+            close(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        String prefix = "bitpay-ipn-verifier-" + VERIFIER_COUNT.incrementAndGet() + "-";
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.bitpay.sdk_light.ipn;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serves an {@link IpnReceiver} on the JDK's built-in HTTP server:
+ * <pre>
+ * HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
+ * server.createContext("/bitpay/ipn", new IpnHttpHandler(receiver));
+ * server.start();
+ * </pre>
+ * Answers POST requests with the receiver's status and an empty body, and anything else with 405.
+ */
+public class IpnHttpHandler implements HttpHandler {
+
+    private final IpnReceiver _receiver;
+
+    public IpnHttpHandler(IpnReceiver receiver) {
+        this._receiver = receiver;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            int status;
+            if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                try (InputStream body = exchange.getRequestBody()) {
+                    status = _receiver.receive(body);
+                }
+            } else {
+                status = HttpStatus.SC_METHOD_NOT_ALLOWED;
+            }
+            exchange.sendResponseHeaders(status, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.bitpay.sdk_light.ipn;
+
+import com.bitpay.sdk_light.util.BitPayLogger;
+import org.apache.http.HttpStatus;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receives BitPay instant payment notifications (IPN) and hands them to a {@link NotificationHandler} on a
+ * bounded pool of worker threads.
+ * <p>
+ * {@link #receive(InputStream)} parses the body on the calling thread, queues the notification and returns the
+ * HTTP status to answer with, without waiting for the handler, so that BitPay gets its acknowledgement quickly.
+ * When the queue is full it returns 503 instead of queueing: BitPay then delivers the notification again later,
+ * which is the backpressure. It can be called from any HTTP server; {@link IpnHttpHandler} adapts it to the
+ * JDK's {@code com.sun.net.httpserver}, and from a servlet it is
+ * {@code response.setStatus(receiver.receive(request.getInputStream()))}.
+ */
+public class IpnReceiver implements Closeable {
+
+    /**
+     * The default size limit of a notification body, in bytes.
+     */
+    public static final int DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+
+    private static final AtomicInteger RECEIVER_COUNT = new AtomicInteger();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final NotificationHandler _handler;
+    private final ThreadPoolExecutor _workers;
+    private final int _maxBodyBytes;
+
+    private final LongAdder _received = new LongAdder();
+    private final LongAdder _accepted = new LongAdder();
+    private final LongAdder _rejected = new LongAdder();
+    private final LongAdder _malformed = new LongAdder();
+    private final LongAdder _handled = new LongAdder();
+    private final LongAdder _failed = new LongAdder();
+
+    /**
+     * Constructor, create a receiver with the default body size limit.
+     *
+     * @param handler       The handler notifications are dispatched to.
+     * @param workers       The number of worker threads.
+     * @param queueCapacity The number of notifications that can wait for a worker before new ones are refused.
+     */
+    public IpnReceiver(NotificationHandler handler, int workers, int queueCapacity) {
+        this(handler, workers, queueCapacity, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * Constructor, create a receiver.
+     *
+     * @param handler       The handler notifications are dispatched to.
+     * @param workers       The number of worker threads.
+     * @param queueCapacity The number of notifications that can wait for a worker before new ones are refused.
+     * @param maxBodyBytes  The size limit of a notification body, in bytes.
+     */
+    public IpnReceiver(NotificationHandler handler, int workers, int queueCapacity, int maxBodyBytes) {
+        this._handler = handler;
+        this._maxBodyBytes = maxBodyBytes;
+        this._workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), newThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Receive a notification body and queue it for the handler.
+     *
+     * @param body The request body. It is read but not closed.
+     * @return The HTTP status to answer with: 200 when queued, 400 when the body is not a notification, 413 when it
+     * is too large, and 503 when the queue is full or the receiver is closed.
+     */
+    public int receive(InputStream body) {
+        _received.increment();
+
+        final InvoiceNotification notification;
+        try {
+            notification = NotificationParser.parse(new LimitedInputStream(body, _maxBodyBytes));
+        } catch (BodyTooLargeException e) {
+            _malformed.increment();
+            return HttpStatus.SC_REQUEST_TOO_LONG;
+        } catch (IOException e) {
+            _malformed.increment();
+            _log.warn("IPN: rejected malformed notification : " + e.getMessage());
+            return HttpStatus.SC_BAD_REQUEST;
+        }
+
+        try {
+            _workers.execute(() -> dispatch(notification));
+        } catch (RejectedExecutionException e) {
+            _rejected.increment();
+            return HttpStatus.SC_SERVICE_UNAVAILABLE;
+        }
+        _accepted.increment();
+        return HttpStatus.SC_OK;
+    }
+
+    private void dispatch(InvoiceNotification notification) {
+        try {
+            _handler.onNotification(notification);
+            _handled.increment();
+        } catch (Exception e) {
+            _failed.increment();
+            _log.err("IPN: handler failed for " + notification + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the number of bodies received.
+     */
+    public long getReceivedCount() {
+        return _received.sum();
+    }
+
+    /**
+     * Get the number of notifications queued for the handler.
+     */
+    public long getAcceptedCount() {
+        return _accepted.sum();
+    }
+
+    /**
+     * Get the number of notifications refused because the queue was full or the receiver closed.
+     */
+    public long getRejectedCount() {
+        return _rejected.sum();
+    }
+
+    /**
+     * Get the number of bodies that were not a notification or too large.
+     */
+    public long getMalformedCount() {
+        return _malformed.sum();
+    }
+
+    /**
+     * Get the number of notifications the handler completed.
+     */
+    public long getHandledCount() {
+        return _handled.sum();
+    }
+
+    /**
+     * Get the number of notifications the handler failed on.
+     */
+    public long getFailedCount() {
+        return _failed.sum();
+    }
+
+    /**
+     * Get the number of notifications waiting for a worker.
+     */
+    public int getQueueSize() {
+        return _workers.getQueue().size();
+    }
+
+    /**
+     * Stop accepting notifications, and wait for the queued ones to be handled.
+     *
+     * @param timeout The longest time to wait.
+     * @param unit    The unit of the timeout.
+     * @return Whether all queued notifications were handled within the timeout.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        _workers.shutdown();
+        return _workers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stop accepting notifications, and wait up to 30 seconds for the queued ones to be handled.
+     */
+    @Override
+    public void close() {
+        try {
+            close(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        String prefix = "bitpay-ipn-" + RECEIVER_COUNT.incrementAndGet() + "-";
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException(int limit) {
+            super("Notification body exceeds " + limit + " bytes");
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private int _remaining;
+        private final int _limit;
+
+        LimitedInputStream(InputStream in, int limit) {
+            super(in);
+            this._remaining = limit;
+            this._limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && --_remaining < 0) {
+                throw new BodyTooLargeException(_limit);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0 && (_remaining -= n) < 0) {
+                throw new BodyTooLargeException(_limit);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // The server owns the request stream
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.bitpay.sdk_light.ipn;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops repeated deliveries of the same notification before they reach the wrapped handler.
+ * <p>
+ * Two notifications are the same when they have the same invoice id, status and event code. Seen keys are
+ * kept in two generations: new keys go into the current one, and every half window the older generation is
+ * discarded and the current one takes its place. A key is therefore remembered for between half a window and
+ * a whole window. Each generation holds at most half of {@code maxEntries} keys; when the current one fills up
+ * it is rotated early, which bounds memory at the cost of a shorter window under heavy load.
+ * <p>
+ * A key is forgotten again when the wrapped handler fails, so that a later delivery is handled.
+ */
+public class NotificationDeduplicator implements NotificationHandler {
+
+    private final NotificationHandler _handler;
+    private final long _halfWindowNanos;
+    private final int _maxGenerationSize;
+
+    private volatile ConcurrentHashMap<String, Boolean> _current;
+    private volatile ConcurrentHashMap<String, Boolean> _previous;
+    private volatile long _generationStart;
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _rotations = new LongAdder();
+
+    /**
+     * Constructor, wrap a handler.
+     *
+     * @param handler    The handler that receives the first delivery of each notification.
+     * @param window     How long a notification is remembered for, at most.
+     * @param unit       The unit of the window.
+     * @param maxEntries The number of notifications remembered, at most.
+     */
+    public NotificationDeduplicator(NotificationHandler handler, long window, TimeUnit unit, int maxEntries) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("Error - maxEntries must be at least 2");
+        }
+        this._handler = handler;
+        this._halfWindowNanos = unit.toNanos(window) / 2;
+        this._maxGenerationSize = maxEntries / 2;
+        this._current = new ConcurrentHashMap<>();
+        this._previous = new ConcurrentHashMap<>();
+        this._generationStart = System.nanoTime();
+    }
+
+    @Override
+    public void onNotification(InvoiceNotification notification) throws Exception {
+        String key = key(notification);
+        if (!markSeen(key)) {
+            _hits.increment();
+            return;
+        }
+        _misses.increment();
+
+        try {
+            _handler.onNotification(notification);
+        } catch (Exception e) {
+            _current.remove(key);
+            _previous.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Record a notification as seen.
+     *
+     * @return Whether the notification had not been seen within the window.
+     */
+    private boolean markSeen(String key) {
+        rotateIfDue();
+        if (_previous.containsKey(key)) {
+            return false;
+        }
+        return _current.putIfAbsent(key, Boolean.TRUE) == null;
+    }
+
+    private void rotateIfDue() {
+        long now = System.nanoTime();
+        if (now - _generationStart < _halfWindowNanos && _current.size() < _maxGenerationSize) {
+            return;
+        }
+        synchronized (this) {
+            if (now - _generationStart < _halfWindowNanos && _current.size() < _maxGenerationSize) {
+                return;
+            }
+            // Keys move to the previous generation before the current one is replaced, so none are missed;
+            // after a whole window without traffic both generations have expired
+            _previous = now - _generationStart < 2 * _halfWindowNanos ? _current : new ConcurrentHashMap<>();
+            _current = new ConcurrentHashMap<>();
+            _generationStart = now;
+            _rotations.increment();
+        }
+    }
+
+    private static String key(InvoiceNotification notification) {
+        return notification.getInvoiceId() + '|' + notification.getStatus() + '|' + notification.getEventCode();
+    }
+
+    /**
+     * Get the number of notifications dropped as repeats.
+     */
+    public long getHitCount() {
+        return _hits.sum();
+    }
+
+    /**
+     * Get the number of notifications passed to the wrapped handler.
+     */
+    public long getMissCount() {
+        return _misses.sum();
+    }
+
+    /**
+     * Get the share of notifications dropped as repeats, between 0 and 1.
+     */
+    public double getHitRatio() {
+        long hits = _hits.sum();
+        long total = hits + _misses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Get the number of times the generations were rotated.
+     */
+    public long getRotationCount() {
+        return _rotations.sum();
+    }
+
+    /**
+     * Get the number of notifications currently remembered.
+     */
+    public int size() {
+        return _current.size() + _previous.size();
+    }
+}
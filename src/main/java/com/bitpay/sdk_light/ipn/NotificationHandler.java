@@ -0,0 +1,16 @@
+package com.bitpay.sdk_light.ipn;
+
+/**
+ * Receives the notifications accepted by an {@link IpnReceiver}, on one of its worker threads.
+ */
+public interface NotificationHandler {
+
+    /**
+     * Handle a notification. The notification has already been acknowledged to BitPay, so a failure here is
+     * not retried: record what is needed to recover, or verify against {@code Client.getInvoice} later.
+     *
+     * @param notification The notification.
+     * @throws Exception If handling failed; the receiver counts and logs it.
+     */
+    void onNotification(InvoiceNotification notification) throws Exception;
+}
@@ -0,0 +1,145 @@
+package com.bitpay.sdk_light.ipn;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads an {@link InvoiceNotification} from a notification body with a streaming parser, keeping only the
+ * routing fields and skipping the rest of the invoice.
+ * <p>
+ * Accepts both the extended format, {@code {"event": {...}, "data": {invoice}}}, and the plain format where
+ * the invoice fields are at the top level.
+ * <p>
+ * Notifications are not signed, and the invoice id is later used in the path of an authenticated request, so
+ * ids that are not in BitPay's alphanumeric format are rejected.
+ */
+public final class NotificationParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private NotificationParser() {
+    }
+
+    /**
+     * Parse a notification body.
+     *
+     * @param in The body, read to its end but not closed.
+     * @return The notification.
+     * @throws IOException If the body cannot be read, is not JSON, or has no invoice id.
+     */
+    public static InvoiceNotification parse(InputStream in) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(p, "Expected a notification object");
+            }
+
+            Fields fields = new Fields();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                if ("event".equals(name) && t == JsonToken.START_OBJECT) {
+                    readEvent(p, fields);
+                } else if ("data".equals(name) && t == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = p.getCurrentName();
+                        p.nextToken();
+                        readInvoiceField(p, fields, field);
+                    }
+                } else {
+                    readInvoiceField(p, fields, name);
+                }
+            }
+
+            if (fields.invoiceId == null) {
+                throw new JsonParseException(p, "Notification has no invoice id");
+            }
+            if (!isInvoiceId(fields.invoiceId)) {
+                throw new JsonParseException(p, "Notification has a malformed invoice id");
+            }
+            return new InvoiceNotification(fields.eventCode, fields.eventName, fields.invoiceId, fields.url,
+                    fields.status, fields.exceptionStatus, fields.orderId, fields.posData, fields.currentTime);
+        }
+    }
+
+    private static boolean isInvoiceId(String id) {
+        if (id.isEmpty() || id.length() > 64) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void readEvent(JsonParser p, Fields fields) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            if (p.nextToken().isStructStart()) {
+                p.skipChildren();
+                continue;
+            }
+            switch (name) {
+                case "code":
+                    fields.eventCode = p.getValueAsInt();
+                    break;
+                case "name":
+                    fields.eventName = p.getValueAsString();
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+    }
+
+    private static void readInvoiceField(JsonParser p, Fields fields, String name) throws IOException {
+        if (p.currentToken().isStructStart()) {
+            p.skipChildren();
+            return;
+        }
+        switch (name) {
+            case "id":
+                fields.invoiceId = p.getValueAsString();
+                break;
+            case "url":
+                fields.url = p.getValueAsString();
+                break;
+            case "status":
+                fields.status = p.getValueAsString();
+                break;
+            case "exceptionStatus":
+                fields.exceptionStatus = p.getValueAsString();
+                break;
+            case "orderId":
+                fields.orderId = p.getValueAsString();
+                break;
+            case "posData":
+                fields.posData = p.getValueAsString();
+                break;
+            case "currentTime":
+                fields.currentTime = p.getValueAsLong();
+                break;
+            default:
+                p.skipChildren();
+        }
+    }
+
+    private static final class Fields {
+        int eventCode;
+        String eventName;
+        String invoiceId;
+        String url;
+        String status;
+        String exceptionStatus;
+        String orderId;
+        String posData;
+        long currentTime;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bitpay.sdk_light.ipn;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.util.BitPayLogger;
+
+import java.util.List;
+
+/**
+ * Receives invoices re-fetched by an {@link InvoiceVerifier} after notifications about them.
+ */
+public interface VerifiedInvoiceHandler {
+
+    /**
+     * Handle a verified invoice.
+     *
+     * @param invoice       The invoice as returned by {@code Client.getInvoice}, fetched after the notifications.
+     * @param notifications The notifications that led to the fetch, oldest first.
+     * @throws Exception If handling failed; the verifier counts and logs it.
+     */
+    void onVerifiedInvoice(Invoice invoice, List<InvoiceNotification> notifications) throws Exception;
+
+    /**
+     * Called when the invoice could not be fetched, after the verifier retried the fetch. The notifications were
+     * already acknowledged, so BitPay will not send them again. By default, logs the failure at error level.
+     *
+     * @param invoiceId     The id of the invoice.
+     * @param notifications The notifications that led to the fetch, oldest first.
+     * @param e             The last failure.
+     */
+    default void onVerificationFailed(String invoiceId, List<InvoiceNotification> notifications, BitPayException e) {
+        new BitPayLogger(BitPayLogger.ERR).err("IPN: gave up verifying invoice " + invoiceId + " after "
+                + notifications.size() + " notifications : " + e.getMessage());
+    }
+}
@@ -1,6 +1,8 @@
 package com.bitpay.sdk_light.model;
 
-import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 public class Currency {
 
@@ -182,13 +184,25 @@ public class Currency {
     public static final String ZMW = "ZMW";
     public static final String ZWL = "ZWL";
 
+    private static final Set<String> CODES = new HashSet<>(Arrays.asList(
+            BCH, BTC, ETH, USDC, GUSD, PAX, AED, AFN, ALL, AMD, ANG, AOA, ARS, AUD, AWG, AZN, BAM, BBD, BDT, BGN, BHD,
+            BIF, BMD, BND, BOB, BOV, BRL, BSD, BTN, BWP, BYR, BZD, CAD, CDF, CHE, CHF, CHW, CLF, CLP, CNY, COP, COU,
+            CRC, CUC, CUP, CVE, CZK, DJF, DKK, DOP, DZD, EGP, ERN, ETB, EUR, FJD, FKP, GBP, GEL, GHS, GIP, GMD, GNF,
+            GTQ, GYD, HKD, HNL, HRK, HTG, HUF, IDR, ILS, INR, IQD, IRR, ISK, JMD, JOD, JPY, KES, KGS, KHR, KMF, KPW,
+            KRW, KWD, KYD, KZT, LAK, LBP, LKR, LRD, LSL, LYD, MAD, MDL, MGA, MKD, MMK, MNT, MOP, MRU, MUR, MVR, MWK,
+            MXN, MXV, MYR, MZN, NAD, NGN, NIO, NOK, NPR, NZD, OMR, PAB, PEN, PGK, PHP, PKR, PLN, PYG, QAR, RON, RSD,
+            RUB, RWF, SAR, SBD, SCR, SDG, SEK, SGD, SHP, SLL, SOS, SRD, SSP, STN, SVC, SYP, SZL, THB, TJS, TMT, TND,
+            TOP, TRY, TTD, TWD, TZS, UAH, UGX, USD, USN, UYI, UYU, UZS, VEF, VND, VUV, WST, XAF, XCD, XDR, XOF, XPF,
+            XSU, XUA, YER, ZAR, ZMW, ZWL
+    ));
+
+    /**
+     * Check whether a currency code is one of the constants of this class.
+     *
+     * @param value The currency code.
+     * @return Whether the code is known.
+     */
     public static boolean isValid(String value) {
-        try {
-            Class<?> currencyClass = Currency.class;
-            Field symbol = currencyClass.getField(value);
-            return symbol != null;
-        } catch (Exception ex) {
-            return false;
-        }
+        return CODES.contains(value);
     }
 }
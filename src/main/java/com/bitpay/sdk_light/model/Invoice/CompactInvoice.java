@@ -0,0 +1,130 @@
+package com.bitpay.sdk_light.model.Invoice;
+
+import java.math.BigDecimal;
+
+/**
+ * A read-only copy of the invoice fields needed to track an invoice, for applications that hold many invoices
+ * in memory.
+ * <p>
+ * Numbers and flags are held as primitives, status and currency codes are interned and nested objects are
+ * left out, so each copy costs a fraction of a full {@link Invoice}. It keeps no reference to the invoice it
+ * was copied from.
+ */
+public final class CompactInvoice {
+
+    private static final String EMPTY = "";
+
+    private final String _id;
+    private final String _url;
+    private final String _status;
+    private final String _exceptionStatus;
+    private final String _orderId;
+    private final String _posData;
+    private final String _currency;
+    private final String _transactionCurrency;
+    private final double _price;
+    private final long _amountPaid;
+    private final BigDecimal _largeAmountPaid;
+    private final long _invoiceTime;
+    private final long _expirationTime;
+    private final int _targetConfirmations;
+    private final boolean _lowFeeDetected;
+
+    /**
+     * Constructor, copy the tracking fields of an invoice.
+     *
+     * @param invoice The invoice, typically as returned by {@code Client.getInvoice}.
+     */
+    public CompactInvoice(Invoice invoice) {
+        this._id = invoice.getId();
+        this._url = invoice.getUrl();
+        this._status = intern(invoice.getStatus());
+        this._exceptionStatus = intern(invoice.getExceptionStatus());
+        this._orderId = shareEmpty(invoice.getOrderId());
+        this._posData = shareEmpty(invoice.getPosData());
+        this._currency = intern(invoice.getCurrency());
+        this._transactionCurrency = intern(invoice.getTransactionCurrency());
+        this._price = invoice.getPrice() != null ? invoice.getPrice() : 0;
+        this._invoiceTime = invoice.getInvoiceTime();
+        this._expirationTime = invoice.getExpirationTime();
+        this._targetConfirmations = (int) invoice.getTargetConfirmations();
+        this._lowFeeDetected = invoice.getLowFeeDetected() != null && invoice.getLowFeeDetected();
+
+        // Amounts are in the smallest unit of the transaction currency, which overflows a long for some tokens
+        BigDecimal amountPaid = invoice.getAmountPaid();
+        if (amountPaid == null) {
+            this._amountPaid = 0;
+            this._largeAmountPaid = null;
+        } else if (amountPaid.signum() == 0 || (amountPaid.scale() <= 0 && amountPaid.precision() - amountPaid.scale() < 19)) {
+            this._amountPaid = amountPaid.longValue();
+            this._largeAmountPaid = null;
+        } else {
+            this._amountPaid = 0;
+            this._largeAmountPaid = amountPaid;
+        }
+    }
+
+    public String getId() {
+        return _id;
+    }
+
+    public String getUrl() {
+        return _url;
+    }
+
+    public String getStatus() {
+        return _status;
+    }
+
+    public String getExceptionStatus() {
+        return _exceptionStatus;
+    }
+
+    public String getOrderId() {
+        return _orderId;
+    }
+
+    public String getPosData() {
+        return _posData;
+    }
+
+    public String getCurrency() {
+        return _currency;
+    }
+
+    public String getTransactionCurrency() {
+        return _transactionCurrency;
+    }
+
+    public double getPrice() {
+        return _price;
+    }
+
+    public BigDecimal getAmountPaid() {
+        return _largeAmountPaid != null ? _largeAmountPaid : BigDecimal.valueOf(_amountPaid);
+    }
+
+    public long getInvoiceTime() {
+        return _invoiceTime;
+    }
+
+    public long getExpirationTime() {
+        return _expirationTime;
+    }
+
+    public int getTargetConfirmations() {
+        return _targetConfirmations;
+    }
+
+    public boolean getLowFeeDetected() {
+        return _lowFeeDetected;
+    }
+
+    private static String intern(String code) {
+        return code != null ? code.intern() : null;
+    }
+
+    private static String shareEmpty(String value) {
+        return value != null && value.isEmpty() ? EMPTY : value;
+    }
+}
@@ -0,0 +1,140 @@
+package com.bitpay.sdk_light.model.Invoice;
+
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Map;
+
+/**
+ * The exchange rates of an invoice, as a matrix of rates between interned currency codes.
+ * <p>
+ * Rows are the source currencies and columns the target currencies; a pair the server did not quote is held as
+ * {@code NaN}. Instances are immutable.
+ */
+public final class ExchangeRates {
+
+    private final String[] _from;
+    private final String[] _to;
+    private final double[] _rates;
+
+    /**
+     * Constructor, create an exchange rate matrix.
+     *
+     * @param from  The source currency codes, one per row.
+     * @param to    The target currency codes, one per column.
+     * @param rates The rates, row by row, {@code NaN} where there is no rate. Not copied.
+     */
+    public ExchangeRates(String[] from, String[] to, double[] rates) {
+        if (rates.length != from.length * to.length) {
+            throw new IllegalArgumentException("Error - expected " + from.length * to.length + " exchange rates, got " + rates.length);
+        }
+        this._from = intern(from);
+        this._to = intern(to);
+        this._rates = rates;
+    }
+
+    /**
+     * Constructor, create an exchange rate matrix from the legacy table of rates as text. Rates that are not
+     * numbers are left out.
+     *
+     * @param table The rates by source currency, then by target currency.
+     */
+    public ExchangeRates(Hashtable<String, Hashtable<String, String>> table) {
+        String[] from = table.keySet().toArray(new String[0]);
+        String[] to = new String[8];
+        int toCount = 0;
+        for (Hashtable<String, String> row : table.values()) {
+            for (String code : row.keySet()) {
+                if (indexOf(to, toCount, code) < 0) {
+                    if (toCount == to.length) {
+                        to = Arrays.copyOf(to, toCount * 2);
+                    }
+                    to[toCount++] = code;
+                }
+            }
+        }
+        to = Arrays.copyOf(to, toCount);
+
+        double[] rates = new double[from.length * to.length];
+        Arrays.fill(rates, Double.NaN);
+        for (int i = 0; i < from.length; i++) {
+            for (Map.Entry<String, String> entry : table.get(from[i]).entrySet()) {
+                try {
+                    rates[i * to.length + indexOf(to, to.length, entry.getKey())] = Double.parseDouble(entry.getValue());
+                } catch (NumberFormatException e) {
+                    // left out, as an unquoted pair
+                }
+            }
+        }
+
+        this._from = intern(from);
+        this._to = intern(to);
+        this._rates = rates;
+    }
+
+    /**
+     * Get the rate from one currency to another.
+     *
+     * @param from The source currency code, e.g. {@code BTC}.
+     * @param to   The target currency code, e.g. {@code USD}.
+     * @return The rate, or 0 if the server did not quote this pair.
+     */
+    public double getRate(String from, String to) {
+        int row = indexOf(_from, _from.length, from);
+        int column = indexOf(_to, _to.length, to);
+        if (row < 0 || column < 0) {
+            return 0;
+        }
+        double rate = _rates[row * _to.length + column];
+        return Double.isNaN(rate) ? 0 : rate;
+    }
+
+    /**
+     * Get the rates as the legacy table of rates as text, e.g. {@code "6848.4"}. Each call builds a new table.
+     *
+     * @return The rates by source currency, then by target currency.
+     */
+    public Hashtable<String, Hashtable<String, String>> toHashtable() {
+        Hashtable<String, Hashtable<String, String>> table = new Hashtable<>();
+        for (int i = 0; i < _from.length; i++) {
+            Hashtable<String, String> row = new Hashtable<>();
+            for (int j = 0; j < _to.length; j++) {
+                double rate = _rates[i * _to.length + j];
+                if (!Double.isNaN(rate)) {
+                    row.put(_to[j], toText(rate));
+                }
+            }
+            table.put(_from[i], row);
+        }
+        return table;
+    }
+
+    // As Jackson writes a rate into a String: integral rates as integers, the others as Double.toString()
+    private static String toText(double rate) {
+        if (rate == Math.rint(rate) && Math.abs(rate) < 1e15) {
+            return Long.toString((long) rate);
+        }
+        return Double.toString(rate);
+    }
+
+    private static String[] intern(String[] codes) {
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = codes[i].intern();
+        }
+        return codes;
+    }
+
+    // Codes are interned, and so are the literals and Currency constants callers pass: try identity first
+    private static int indexOf(String[] codes, int count, String code) {
+        for (int i = 0; i < count; i++) {
+            if (codes[i] == code) {
+                return i;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (codes[i].equals(code)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -2,6 +2,8 @@ package com.bitpay.sdk_light.model.Invoice;
 
 import com.bitpay.sdk_light.BitPayException;
 import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.util.DeferredValue;
+import com.bitpay.sdk_light.util.codec.InvoiceAccess;
 import com.fasterxml.jackson.annotation.*;
 
 import java.math.BigDecimal;
@@ -12,6 +14,42 @@ import java.util.List;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Invoice {
 
+    static {
+        InvoiceAccess.register(new InvoiceAccess() {
+            @Override
+            protected void deferTransactions(Invoice invoice, DeferredValue<List<InvoiceTransaction>> transactions) {
+                invoice._deferredTransactions = transactions;
+            }
+
+            @Override
+            protected void deferInvoiceBuyerProvidedInfo(Invoice invoice, DeferredValue<InvoiceBuyerProvidedInfo> info) {
+                invoice._deferredInvoiceBuyerProvidedInfo = info;
+            }
+
+            @Override
+            protected void deferSupportedTransactionCurrencies(Invoice invoice, DeferredValue<SupportedTransactionCurrencies> currencies) {
+                invoice._deferredSupportedTransactionCurrencies = currencies;
+            }
+
+            @Override
+            protected void deferMinerFees(Invoice invoice, DeferredValue<MinerFees> minerFees) {
+                invoice._deferredMinerFees = minerFees;
+            }
+
+            @Override
+            protected void deferShopper(Invoice invoice, DeferredValue<Shopper> shopper) {
+                invoice._deferredShopper = shopper;
+            }
+
+            @Override
+            protected void deferExchangeRates(Invoice invoice, DeferredValue<ExchangeRates> exchangeRates) {
+                invoice._exchangeRates = null;
+                invoice._exchangeRateMatrix = null;
+                invoice._deferredExchangeRates = exchangeRates;
+            }
+        });
+    }
+
     private String _currency;
 
     private String _guid = "";
@@ -45,10 +83,10 @@ public class Invoice {
     private ArrayList _refundAddresses;
     private boolean _refundAddressRequestPending;
     private String _buyerProvidedEmail;
-    private InvoiceBuyerProvidedInfo _invoiceBuyerProvidedInfo = new InvoiceBuyerProvidedInfo();
-    private SupportedTransactionCurrencies _supportedTransactionCurrencies = new SupportedTransactionCurrencies();
-    private MinerFees _minerFees = new MinerFees();
-    private Shopper _shopper = new Shopper();
+    private volatile InvoiceBuyerProvidedInfo _invoiceBuyerProvidedInfo;
+    private volatile SupportedTransactionCurrencies _supportedTransactionCurrencies;
+    private volatile MinerFees _minerFees;
+    private volatile Shopper _shopper;
     private String _billId;
     private ArrayList<RefundInfo> _refundInfo;
 
@@ -58,7 +96,16 @@ public class Invoice {
 
     private String _transactionCurrency;
     private BigDecimal _amountPaid;
-    private Hashtable<String, Hashtable<String, String>> _exchangeRates;
+    private volatile Hashtable<String, Hashtable<String, String>> _exchangeRates;
+    private volatile ExchangeRates _exchangeRateMatrix;
+
+    // Response parts buffered by the codecs, bound once on first access by any thread; a setter replaces them
+    private volatile DeferredValue<List<InvoiceTransaction>> _deferredTransactions;
+    private volatile DeferredValue<InvoiceBuyerProvidedInfo> _deferredInvoiceBuyerProvidedInfo;
+    private volatile DeferredValue<SupportedTransactionCurrencies> _deferredSupportedTransactionCurrencies;
+    private volatile DeferredValue<MinerFees> _deferredMinerFees;
+    private volatile DeferredValue<Shopper> _deferredShopper;
+    private volatile DeferredValue<ExchangeRates> _deferredExchangeRates;
 
     @Deprecated //TODO remove in version 2.0
     private PaymentTotal _paymentTotals;
@@ -373,14 +420,21 @@ public class Invoice {
         this._currentTime = _currentTime;
     }
 
+    /**
+     * Get the transactions. When the invoice was read by the client's codecs they are bound on first call.
+     *
+     * @throws IllegalStateException If the response's transactions do not fit the model.
+     */
     @JsonIgnore
     public List<InvoiceTransaction> getTransactions() {
-        return _transactions;
+        DeferredValue<List<InvoiceTransaction>> deferred = _deferredTransactions;
+        return deferred != null ? deferred.get() : _transactions;
     }
 
     @JsonProperty("transactions")
     public void setTransactions(List<InvoiceTransaction> _transactions) {
         this._transactions = _transactions;
+        this._deferredTransactions = null;
     }
 
     @JsonIgnore
@@ -433,44 +487,120 @@ public class Invoice {
         this._buyerProvidedEmail = _buyerProvidedEmail;
     }
 
+    /**
+     * Get the information the buyer provided, bound on first call when read by the client's codecs.
+     *
+     * @throws IllegalStateException If the response's buyer information does not fit the model.
+     */
     @JsonIgnore
     public InvoiceBuyerProvidedInfo getInvoiceBuyerProvidedInfo() {
-        return _invoiceBuyerProvidedInfo;
+        DeferredValue<InvoiceBuyerProvidedInfo> deferred = _deferredInvoiceBuyerProvidedInfo;
+        if (deferred != null) {
+            return deferred.get();
+        }
+        InvoiceBuyerProvidedInfo invoiceBuyerProvidedInfo = _invoiceBuyerProvidedInfo;
+        if (invoiceBuyerProvidedInfo == null) {
+            synchronized (this) {
+                if (_invoiceBuyerProvidedInfo == null) {
+                    _invoiceBuyerProvidedInfo = new InvoiceBuyerProvidedInfo();
+                }
+                invoiceBuyerProvidedInfo = _invoiceBuyerProvidedInfo;
+            }
+        }
+        return invoiceBuyerProvidedInfo;
     }
 
     @JsonProperty("invoiceBuyerProvidedInfo")
     public void setInvoiceBuyerProvidedInfo(InvoiceBuyerProvidedInfo _invoiceBuyerProvidedInfo) {
         this._invoiceBuyerProvidedInfo = _invoiceBuyerProvidedInfo;
+        this._deferredInvoiceBuyerProvidedInfo = null;
     }
 
+    /**
+     * Get the currencies the invoice can be paid in, bound on first call when read by the client's codecs.
+     *
+     * @throws IllegalStateException If the response's supported currencies do not fit the model.
+     */
     @JsonIgnore
     public SupportedTransactionCurrencies getSupportedTransactionCurrencies() {
-        return _supportedTransactionCurrencies;
+        DeferredValue<SupportedTransactionCurrencies> deferred = _deferredSupportedTransactionCurrencies;
+        if (deferred != null) {
+            return deferred.get();
+        }
+        SupportedTransactionCurrencies supportedTransactionCurrencies = _supportedTransactionCurrencies;
+        if (supportedTransactionCurrencies == null) {
+            synchronized (this) {
+                if (_supportedTransactionCurrencies == null) {
+                    _supportedTransactionCurrencies = new SupportedTransactionCurrencies();
+                }
+                supportedTransactionCurrencies = _supportedTransactionCurrencies;
+            }
+        }
+        return supportedTransactionCurrencies;
     }
 
     @JsonProperty("supportedTransactionCurrencies")
     public void setSupportedTransactionCurrencies(SupportedTransactionCurrencies _supportedTransactionCurrencies) {
         this._supportedTransactionCurrencies = _supportedTransactionCurrencies;
+        this._deferredSupportedTransactionCurrencies = null;
     }
 
+    /**
+     * Get the miner fees, bound on first call when read by the client's codecs.
+     *
+     * @throws IllegalStateException If the response's miner fees do not fit the model.
+     */
     @JsonIgnore
     public MinerFees getMinerFees() {
-        return _minerFees;
+        DeferredValue<MinerFees> deferred = _deferredMinerFees;
+        if (deferred != null) {
+            return deferred.get();
+        }
+        MinerFees minerFees = _minerFees;
+        if (minerFees == null) {
+            synchronized (this) {
+                if (_minerFees == null) {
+                    _minerFees = new MinerFees();
+                }
+                minerFees = _minerFees;
+            }
+        }
+        return minerFees;
     }
 
     @JsonProperty("minerFees")
     public void setMinerFees(MinerFees _minerFees) {
         this._minerFees = _minerFees;
+        this._deferredMinerFees = null;
     }
 
+    /**
+     * Get the shopper, bound on first call when read by the client's codecs.
+     *
+     * @throws IllegalStateException If the response's shopper does not fit the model.
+     */
     @JsonIgnore
     public Shopper getShopper() {
-        return _shopper;
+        DeferredValue<Shopper> deferred = _deferredShopper;
+        if (deferred != null) {
+            return deferred.get();
+        }
+        Shopper shopper = _shopper;
+        if (shopper == null) {
+            synchronized (this) {
+                if (_shopper == null) {
+                    _shopper = new Shopper();
+                }
+                shopper = _shopper;
+            }
+        }
+        return shopper;
     }
 
     @JsonProperty("shopper")
     public void setShopper(Shopper _shopper) {
         this._shopper = _shopper;
+        this._deferredShopper = null;
     }
 
     @JsonIgnore
@@ -573,13 +703,69 @@ public class Invoice {
         this._amountPaid = _amountPaid;
     }
 
+    /**
+     * Get the exchange rates as a table of rates as text. When the rates were read by the client's codecs the
+     * table is built on first call, and changes made to it are not seen by {@link #getExchangeRate}.
+     *
+     * @throws IllegalStateException If the response's exchange rates do not fit the model.
+     */
     @JsonIgnore
     public Hashtable<String, Hashtable<String, String>> getExchangeRates() {
-        return _exchangeRates;
+        Hashtable<String, Hashtable<String, String>> exchangeRates = _exchangeRates;
+        if (exchangeRates == null) {
+            synchronized (this) {
+                if (_exchangeRates == null) {
+                    ExchangeRates matrix = getExchangeRateMatrix();
+                    if (matrix != null) {
+                        _exchangeRates = matrix.toHashtable();
+                    }
+                }
+                exchangeRates = _exchangeRates;
+            }
+        }
+        return exchangeRates;
     }
 
     @JsonProperty("exchangeRates")
     public void setExchangeRates(Hashtable<String, Hashtable<String, String>> _exchangeRates) {
         this._exchangeRates = _exchangeRates;
+        this._exchangeRateMatrix = null;
+        this._deferredExchangeRates = null;
+    }
+
+    /**
+     * Get the exchange rate between two currencies, as quoted on this invoice.
+     *
+     * @param from The source currency code, e.g. {@code BTC}.
+     * @param to   The target currency code, e.g. {@code USD}.
+     * @return The rate, or 0 if the invoice has no rate for this pair.
+     * @throws IllegalStateException If the response's exchange rates do not fit the model.
+     */
+    public double getExchangeRate(String from, String to) {
+        ExchangeRates matrix = getExchangeRateMatrix();
+        return matrix != null ? matrix.getRate(from, to) : 0;
+    }
+
+    /**
+     * Get the exchange rates as a rate matrix, bound on first call when read by the client's codecs.
+     *
+     * @throws IllegalStateException If the response's exchange rates do not fit the model.
+     */
+    @JsonIgnore
+    public ExchangeRates getExchangeRateMatrix() {
+        DeferredValue<ExchangeRates> deferred = _deferredExchangeRates;
+        if (deferred != null) {
+            return deferred.get();
+        }
+        ExchangeRates matrix = _exchangeRateMatrix;
+        if (matrix == null) {
+            synchronized (this) {
+                if (_exchangeRateMatrix == null && _exchangeRates != null) {
+                    _exchangeRateMatrix = new ExchangeRates(_exchangeRates);
+                }
+                matrix = _exchangeRateMatrix;
+            }
+        }
+        return matrix;
     }
 }
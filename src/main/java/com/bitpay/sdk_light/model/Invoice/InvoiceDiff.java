@@ -0,0 +1,172 @@
+package com.bitpay.sdk_light.model.Invoice;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The fields that changed between two snapshots of an invoice: status, exception status, amount paid, new
+ * transactions and transaction confirmations.
+ * <p>
+ * {@link #changes(Invoice, Invoice)} compares the fields directly and returns a bit set, without reflection and
+ * without allocating, so that polling code can check every fetch cheaply. {@link #of(Invoice, Invoice)} wraps
+ * the result, and returns the shared {@link #NONE} when nothing changed. Transactions are matched by
+ * transaction id.
+ */
+public final class InvoiceDiff {
+
+    public static final int STATUS = 1;
+    public static final int EXCEPTION_STATUS = 1 << 1;
+    public static final int AMOUNT_PAID = 1 << 2;
+    public static final int TRANSACTIONS_ADDED = 1 << 3;
+    public static final int CONFIRMATIONS = 1 << 4;
+
+    /**
+     * The diff of two snapshots where nothing changed.
+     */
+    public static final InvoiceDiff NONE = new InvoiceDiff(null, null, 0);
+
+    private final Invoice _before;
+    private final Invoice _after;
+    private final int _changes;
+
+    private InvoiceDiff(Invoice before, Invoice after, int changes) {
+        this._before = before;
+        this._after = after;
+        this._changes = changes;
+    }
+
+    /**
+     * Compare two snapshots of an invoice.
+     *
+     * @param before The earlier snapshot, or null if there is none.
+     * @param after  The later snapshot.
+     * @return The diff, {@link #NONE} when nothing changed.
+     */
+    public static InvoiceDiff of(Invoice before, Invoice after) {
+        int changes = changes(before, after);
+        return changes == 0 ? NONE : new InvoiceDiff(before, after, changes);
+    }
+
+    /**
+     * Compare two snapshots of an invoice, without allocating.
+     *
+     * @param before The earlier snapshot, or null if there is none.
+     * @param after  The later snapshot.
+     * @return The changed fields, as a combination of {@link #STATUS}, {@link #EXCEPTION_STATUS},
+     * {@link #AMOUNT_PAID}, {@link #TRANSACTIONS_ADDED} and {@link #CONFIRMATIONS}; 0 when nothing changed.
+     */
+    public static int changes(Invoice before, Invoice after) {
+        if (before == after) {
+            return 0;
+        }
+        int changes = 0;
+        if (!Objects.equals(before == null ? null : before.getStatus(), after.getStatus())) {
+            changes |= STATUS;
+        }
+        if (!Objects.equals(exceptionStatus(before), exceptionStatus(after))) {
+            changes |= EXCEPTION_STATUS;
+        }
+        if (compare(before == null ? null : before.getAmountPaid(), after.getAmountPaid()) != 0) {
+            changes |= AMOUNT_PAID;
+        }
+
+        List<InvoiceTransaction> previous = before == null ? null : before.getTransactions();
+        List<InvoiceTransaction> current = after.getTransactions();
+        int count = current == null ? 0 : current.size();
+        for (int i = 0; i < count; i++) {
+            InvoiceTransaction transaction = current.get(i);
+            InvoiceTransaction match = find(previous, transaction.getTransactionId());
+            if (match == null) {
+                changes |= TRANSACTIONS_ADDED;
+            } else if (match.getConfirmations() != transaction.getConfirmations()) {
+                changes |= CONFIRMATIONS;
+            }
+        }
+        return changes;
+    }
+
+    private static InvoiceTransaction find(List<InvoiceTransaction> transactions, String transactionId) {
+        int count = transactions == null ? 0 : transactions.size();
+        for (int i = 0; i < count; i++) {
+            InvoiceTransaction transaction = transactions.get(i);
+            if (Objects.equals(transaction.getTransactionId(), transactionId)) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    // "false" and a missing exception status mean the same
+    private static String exceptionStatus(Invoice invoice) {
+        String exceptionStatus = invoice == null ? null : invoice.getExceptionStatus();
+        return exceptionStatus == null || "false".equals(exceptionStatus) ? null : exceptionStatus;
+    }
+
+    // Scale and a missing amount do not count as a change: 1.0 equals 1.00, and null equals 0
+    private static int compare(BigDecimal a, BigDecimal b) {
+        return (a == null ? BigDecimal.ZERO : a).compareTo(b == null ? BigDecimal.ZERO : b);
+    }
+
+    /**
+     * Whether nothing changed.
+     */
+    public boolean isEmpty() {
+        return _changes == 0;
+    }
+
+    /**
+     * Whether a field changed.
+     *
+     * @param field One of {@link #STATUS}, {@link #EXCEPTION_STATUS}, {@link #AMOUNT_PAID},
+     *              {@link #TRANSACTIONS_ADDED} or {@link #CONFIRMATIONS}, or a combination to test for any.
+     */
+    public boolean has(int field) {
+        return (_changes & field) != 0;
+    }
+
+    public int getChanges() {
+        return _changes;
+    }
+
+    public Invoice getBefore() {
+        return _before;
+    }
+
+    public Invoice getAfter() {
+        return _after;
+    }
+
+    /**
+     * Get the transactions of the later snapshot that the earlier one did not have.
+     */
+    public List<InvoiceTransaction> getAddedTransactions() {
+        if (!has(TRANSACTIONS_ADDED)) {
+            return Collections.emptyList();
+        }
+        List<InvoiceTransaction> previous = _before == null ? null : _before.getTransactions();
+        List<InvoiceTransaction> added = new ArrayList<>();
+        for (InvoiceTransaction transaction : _after.getTransactions()) {
+            if (find(previous, transaction.getTransactionId()) == null) {
+                added.add(transaction);
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("InvoiceDiff{");
+        String[] names = {"status", "exceptionStatus", "amountPaid", "transactionsAdded", "confirmations"};
+        String separator = "";
+        for (int i = 0; i < names.length; i++) {
+            if (has(1 << i)) {
+                builder.append(separator).append(names[i]);
+                separator = ", ";
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.bitpay.sdk_light.model.Invoice;
+
+import java.math.BigDecimal;
+
+/**
+ * The status fields of an invoice, as returned by {@code Client.getInvoiceSummary}.
+ * <p>
+ * Only these fields are read from the API response; the rest of the invoice is skipped without being bound.
+ */
+public final class InvoiceSummary {
+
+    private final String _id;
+    private final String _status;
+    private final String _exceptionStatus;
+    private final BigDecimal _amountPaid;
+    private final long _expirationTime;
+
+    /**
+     * Constructor, create an invoice summary.
+     *
+     * @param id              The invoice id.
+     * @param status          The invoice status, see {@link InvoiceStatus}.
+     * @param exceptionStatus The exception status, {@code "false"} when there is none.
+     * @param amountPaid      The amount paid, in the smallest unit of the transaction currency.
+     * @param expirationTime  The expiration time, in milliseconds since the epoch.
+     */
+    public InvoiceSummary(String id, String status, String exceptionStatus, BigDecimal amountPaid, long expirationTime) {
+        this._id = id;
+        this._status = status;
+        this._exceptionStatus = exceptionStatus;
+        this._amountPaid = amountPaid;
+        this._expirationTime = expirationTime;
+    }
+
+    public String getId() {
+        return _id;
+    }
+
+    public String getStatus() {
+        return _status;
+    }
+
+    public String getExceptionStatus() {
+        return _exceptionStatus;
+    }
+
+    public BigDecimal getAmountPaid() {
+        return _amountPaid;
+    }
+
+    public long getExpirationTime() {
+        return _expirationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "InvoiceSummary{id=" + _id + ", status=" + _status + ", exceptionStatus=" + _exceptionStatus
+                + ", amountPaid=" + _amountPaid + ", expirationTime=" + _expirationTime + "}";
+    }
+}
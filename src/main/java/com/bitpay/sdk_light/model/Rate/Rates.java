@@ -8,7 +8,7 @@ import java.util.List;
 public class Rates {
 
     private Client _bp;
-    private List<Rate> _rates;
+    private volatile List<Rate> _rates;
 
     public Rates(List<Rate> rates, Client bp) {
         _bp = bp;
@@ -23,6 +23,10 @@ public class Rates {
         _rates = _bp.getRates().getRates();
     }
 
+    protected void setRates(List<Rate> rates) {
+        _rates = rates;
+    }
+
     public double getRate(String currencyCode) {
         double val = 0;
         for (Rate rateObj : _rates) {
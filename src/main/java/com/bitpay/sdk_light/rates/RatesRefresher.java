@@ -0,0 +1,272 @@
+package com.bitpay.sdk_light.rates;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Rate.Rates;
+import com.bitpay.sdk_light.util.BitPayLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the rates of a {@link RatesSnapshotFile} fresh with one upstream call per period for the whole host,
+ * however many processes share the file.
+ * <p>
+ * Every process runs a refresher. Each period, a refresher that does not lead tries to take an exclusive lock
+ * on the lock file; the one holding it leads, fetches the rates with {@link Client#getRates()} and publishes
+ * them. The operating system releases the lock when the leading process exits or dies, and another refresher
+ * takes over within a period. Then every refresher updates its {@link SharedRates} from the file.
+ * <p>
+ * A leader that fails to fetch or publish the rates several periods in a row, 3 by default, gives up the lead
+ * and does not try to take it in the next period, so that a process that can reach BitPay takes over.
+ */
+public class RatesRefresher implements Closeable {
+
+    private static final AtomicInteger REFRESHER_COUNT = new AtomicInteger();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final Client _client;
+    private final RatesSnapshotFile _snapshot;
+    private final File _lockFile;
+    private final long _periodMillis;
+    private final long _maxAgeMillis;
+    private final ScheduledExecutorService _scheduler;
+
+    private FileChannel _lockChannel;
+    private FileLock _lock;
+    private volatile SharedRates _rates;
+    private int _maxConsecutiveFailures = 3;
+    private int _consecutiveFailures;
+    private boolean _standingDown;
+
+    private final LongAdder _fetches = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private final LongAdder _elections = new LongAdder();
+    private final LongAdder _resignations = new LongAdder();
+
+    /**
+     * Constructor, create a refresher. Call {@link #start()} to run it.
+     *
+     * @param client       The client to fetch rates with when leading.
+     * @param snapshot     The shared snapshot file.
+     * @param lockFile     The file locked by the leader, the same for all processes.
+     * @param period       The time between refreshes.
+     * @param unit         The unit of the period.
+     * @param maxAgeMillis The age beyond which the shared rates are stale, in milliseconds; a few periods.
+     */
+    public RatesRefresher(Client client, RatesSnapshotFile snapshot, File lockFile, long period, TimeUnit unit,
+                          long maxAgeMillis) {
+        this._client = client;
+        this._snapshot = snapshot;
+        this._lockFile = lockFile;
+        this._periodMillis = unit.toMillis(period);
+        this._maxAgeMillis = maxAgeMillis;
+        String name = "bitpay-rates-" + REFRESHER_COUNT.incrementAndGet();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this._scheduler = scheduler;
+    }
+
+    /**
+     * Refresh now, and then every period.
+     *
+     * @return This refresher.
+     */
+    public RatesRefresher start() {
+        _scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, _periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            _failures.increment();
+            _log.err("Rates: refresh failed : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Run one period: take the lead if it is free, fetch and publish the rates if leading, and update the
+     * shared rates from the file. The scheduler calls this every period.
+     */
+    public synchronized void refresh() {
+        if (_standingDown) {
+            _standingDown = false;
+        } else if (_lock == null) {
+            elect();
+        }
+        if (_lock != null) {
+            try {
+                _fetches.increment();
+                _snapshot.publish(_client.getRates());
+                _consecutiveFailures = 0;
+            } catch (BitPayException | IOException e) {
+                // Readers see the rates age, and tell stale ones
+                _failures.increment();
+                _log.err("Rates: failed to refresh rates : " + e.getMessage());
+                if (++_consecutiveFailures >= _maxConsecutiveFailures) {
+                    resign();
+                }
+            }
+        }
+
+        try {
+            if (_rates == null) {
+                _rates = new SharedRates(_snapshot, _maxAgeMillis);
+            } else {
+                _rates.update();
+            }
+        } catch (BitPayException e) {
+            _log.warn("Rates: " + e.getMessage());
+        }
+    }
+
+    private void elect() {
+        try {
+            if (_lockChannel == null) {
+                _lockChannel = FileChannel.open(_lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            _lock = _lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Another refresher of this process leads
+            _lock = null;
+        } catch (IOException e) {
+            _log.err("Rates: failed to lock " + _lockFile + " : " + e.getMessage());
+            _lock = null;
+        }
+        if (_lock != null) {
+            _elections.increment();
+            _log.info("Rates: leading the refresh of " + _snapshot.getFile());
+        }
+    }
+
+    private void resign() {
+        try {
+            _lock.release();
+        } catch (IOException e) {
+            // Closing the channel releases the lock too
+            _log.err("Rates: failed to release " + _lockFile + " : " + e.getMessage());
+            try {
+                _lockChannel.close();
+            } catch (IOException ignored) {
+            }
+            _lockChannel = null;
+        }
+        _lock = null;
+        _consecutiveFailures = 0;
+        _standingDown = true;
+        _resignations.increment();
+        _log.warn("Rates: gave up leading the refresh of " + _snapshot.getFile() + " after failures");
+    }
+
+    /**
+     * Set the number of consecutive failed periods after which the leader gives up the lead.
+     *
+     * @param maxConsecutiveFailures The number of failures, at least 1.
+     */
+    public synchronized void setMaxConsecutiveFailures(int maxConsecutiveFailures) {
+        if (maxConsecutiveFailures < 1) {
+            throw new IllegalArgumentException("Error - maxConsecutiveFailures must be at least 1");
+        }
+        this._maxConsecutiveFailures = maxConsecutiveFailures;
+    }
+
+    /**
+     * Get the shared rates, updated every period.
+     *
+     * @return The rates.
+     * @throws BitPayException If no rates were published yet.
+     */
+    public Rates getRates() throws BitPayException {
+        SharedRates rates = _rates;
+        if (rates == null) {
+            throw new BitPayException("Error - no rates published in " + _snapshot.getFile() + " yet");
+        }
+        return rates;
+    }
+
+    /**
+     * Whether this refresher leads, and fetches the rates for the host.
+     */
+    public synchronized boolean isLeader() {
+        return _lock != null;
+    }
+
+    /**
+     * Get the number of times this refresher fetched the rates from BitPay.
+     */
+    public long getFetchCount() {
+        return _fetches.sum();
+    }
+
+    /**
+     * Get the number of failed fetches or publishes.
+     */
+    public long getFailureCount() {
+        return _failures.sum();
+    }
+
+    /**
+     * Get the number of times this refresher took the lead.
+     */
+    public long getElectionCount() {
+        return _elections.sum();
+    }
+
+    /**
+     * Get the number of times this refresher gave up the lead after failures.
+     */
+    public long getResignationCount() {
+        return _resignations.sum();
+    }
+
+    /**
+     * Stop refreshing and give up the lead, so that another process takes it over.
+     */
+    @Override
+    public void close() {
+        _scheduler.shutdown();
+        try {
+            _scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                if (_lockChannel != null) {
+                    // Closing the channel releases the lock
+                    _lockChannel.close();
+                }
+            } catch (IOException e) {
+                _log.err("Rates: failed to release " + _lockFile + " : " + e.getMessage());
+            }
+            _lockChannel = null;
+            _lock = null;
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+}
@@ -0,0 +1,288 @@
+package com.bitpay.sdk_light.rates;
+
+import com.bitpay.sdk_light.model.Rate.Rate;
+import com.bitpay.sdk_light.model.Rate.Rates;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A snapshot of the exchange rates in a memory-mapped file, written by one process and read by every process
+ * on the host, without network calls or JSON parsing.
+ * <p>
+ * The file holds a 64 byte header and the rates encoded as code, name and value. The header starts with a
+ * sequence number that the writer makes odd before changing the file and even again after, as in a seqlock:
+ * a reader copies the rates and accepts them only if the sequence number was even and unchanged across the
+ * copy. The rates and the header fields describing them also carry a CRC32 checksum, so a copy torn by a write
+ * is caught whatever the order in which the other process' writes became visible; a copy that cannot be decoded
+ * is read again as well. A reader decodes a snapshot once, and returns the same
+ * {@link Snapshot} until the sequence number changes.
+ * <p>
+ * Only one process may publish at a time; {@link RatesRefresher} elects it.
+ */
+public class RatesSnapshotFile implements Closeable {
+
+    private static final int MAGIC = 0x42505253;
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 64;
+
+    private static final int SEQUENCE = 8;
+    private static final int VERSION = 16;
+    private static final int PUBLISHED_AT = 24;
+    private static final int COUNT = 32;
+    private static final int LENGTH = 36;
+    private static final int CHECKSUM = 40;
+
+    private static final int READ_ATTEMPTS = 1000;
+    // The shortest encoded rate: two empty texts and a value
+    private static final int MIN_RATE_BYTES = 2 + 2 + 8;
+
+    private final File _file;
+    private final FileChannel _channel;
+    private final MappedByteBuffer _buffer;
+    private Snapshot _last;
+
+    /**
+     * Constructor, map a snapshot file, creating it if needed.
+     *
+     * @param file     The file, on a local file system shared by the processes.
+     * @param capacity The largest size of the file; the rates table takes about 10 KB.
+     * @throws IOException If the file could not be opened or mapped, or is not a snapshot file.
+     */
+    public RatesSnapshotFile(File file, int capacity) throws IOException {
+        this._file = file;
+        this._channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // Growing an existing file to the capacity keeps its content, so concurrent openers are safe
+            long size = Math.max(_channel.size(), capacity);
+            this._buffer = _channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int magic = _buffer.getInt(0);
+            if (magic == 0) {
+                _buffer.putInt(4, FORMAT);
+                _buffer.putInt(0, MAGIC);
+            } else if (magic != MAGIC || _buffer.getInt(4) != FORMAT) {
+                throw new IOException("Error - " + file + " is not a rates snapshot file");
+            }
+        } catch (IOException | RuntimeException e) {
+            _channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Publish rates as the new snapshot.
+     *
+     * @param rates The rates.
+     * @return The version of the new snapshot.
+     * @throws IOException If the rates do not fit in the file.
+     */
+    public synchronized long publish(Rates rates) throws IOException {
+        ByteBuffer data = encode(rates.getRates());
+        if (HEADER_BYTES + data.capacity() > _buffer.capacity()) {
+            throw new IOException("Error - " + data.capacity() + " bytes of rates do not fit in " + _file);
+        }
+        long publishedAt = System.currentTimeMillis();
+        int count = rates.getRates().size();
+
+        long sequence = _buffer.getLong(SEQUENCE);
+        if ((sequence & 1) != 0) {
+            // A publisher died in the middle of a write
+            sequence++;
+        }
+        long version = _buffer.getLong(VERSION) + 1;
+        int checksum = checksum(version, publishedAt, count, data.array(), data.capacity());
+        _buffer.putLong(SEQUENCE, sequence + 1);
+        ByteBuffer target = _buffer.duplicate();
+        ((Buffer) target).position(HEADER_BYTES);
+        target.put(data.array(), 0, data.capacity());
+        _buffer.putInt(COUNT, count);
+        _buffer.putInt(LENGTH, data.capacity());
+        _buffer.putInt(CHECKSUM, checksum);
+        _buffer.putLong(PUBLISHED_AT, publishedAt);
+        _buffer.putLong(VERSION, version);
+        _buffer.putLong(SEQUENCE, sequence + 2);
+        return version;
+    }
+
+    /**
+     * Read the current snapshot.
+     *
+     * @return The snapshot, or null if none was published yet.
+     * @throws IOException If the snapshot kept changing while read, or is corrupt.
+     */
+    public synchronized Snapshot read() throws IOException {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            long sequence = _buffer.getLong(SEQUENCE);
+            if ((sequence & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            if (sequence == 0) {
+                return null;
+            }
+            if (_last != null && _last._sequence == sequence) {
+                return _last;
+            }
+
+            long version = _buffer.getLong(VERSION);
+            long publishedAt = _buffer.getLong(PUBLISHED_AT);
+            int count = _buffer.getInt(COUNT);
+            int length = _buffer.getInt(LENGTH);
+            int checksum = _buffer.getInt(CHECKSUM);
+            if (length < 0 || HEADER_BYTES + length > _buffer.capacity() || count < 0 || count > length / MIN_RATE_BYTES) {
+                continue;
+            }
+            byte[] data = new byte[length];
+            ByteBuffer source = _buffer.duplicate();
+            ((Buffer) source).position(HEADER_BYTES);
+            source.get(data);
+            if (_buffer.getLong(SEQUENCE) != sequence) {
+                continue;
+            }
+            if (checksum(version, publishedAt, count, data, length) != checksum) {
+                continue;
+            }
+            List<Rate> rates;
+            try {
+                rates = decode(data, count);
+            } catch (BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
+                continue;
+            }
+            _last = new Snapshot(sequence, version, publishedAt, rates);
+            return _last;
+        }
+        throw new IOException("Error - could not read a consistent rates snapshot from " + _file);
+    }
+
+    private static int checksum(long version, long publishedAt, int count, byte[] data, int length) {
+        ByteBuffer header = ByteBuffer.allocate(8 + 8 + 4 + 4);
+        header.putLong(version).putLong(publishedAt).putInt(count).putInt(length);
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.capacity());
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer encode(List<Rate> rates) {
+        List<byte[]> codes = new ArrayList<>(rates.size());
+        List<byte[]> names = new ArrayList<>(rates.size());
+        int length = 0;
+        for (Rate rate : rates) {
+            byte[] code = text(rate.getCode());
+            byte[] name = text(rate.getName());
+            codes.add(code);
+            names.add(name);
+            length += 4 + code.length + name.length + 8;
+        }
+        ByteBuffer data = ByteBuffer.allocate(length);
+        for (int i = 0; i < rates.size(); i++) {
+            Double value = rates.get(i).getValue();
+            data.putShort((short) codes.get(i).length).put(codes.get(i));
+            data.putShort((short) names.get(i).length).put(names.get(i));
+            data.putDouble(value == null ? Double.NaN : value);
+        }
+        return data;
+    }
+
+    private static byte[] text(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > Short.MAX_VALUE ? new byte[0] : bytes;
+    }
+
+    private static List<Rate> decode(byte[] bytes, int count) {
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        List<Rate> rates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Rate rate = new Rate();
+            rate.setCode(readText(data));
+            rate.setName(readText(data));
+            double value = data.getDouble();
+            rate.setValue(Double.isNaN(value) ? null : value);
+            rates.add(rate);
+        }
+        if (data.hasRemaining()) {
+            throw new IllegalStateException("Error - " + data.remaining() + " bytes left after " + count + " rates");
+        }
+        return Collections.unmodifiableList(rates);
+    }
+
+    private static String readText(ByteBuffer data) {
+        short length = data.getShort();
+        if (length < 0) {
+            throw new IllegalArgumentException("Error - negative text length " + length);
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Unmap the file. The mapping itself is released when garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+
+    /**
+     * A consistent snapshot of the rates.
+     */
+    public static final class Snapshot {
+        private final long _sequence;
+        private final long _version;
+        private final long _publishedAt;
+        private final List<Rate> _rates;
+
+        Snapshot(long sequence, long version, long publishedAt, List<Rate> rates) {
+            this._sequence = sequence;
+            this._version = version;
+            this._publishedAt = publishedAt;
+            this._rates = rates;
+        }
+
+        /**
+         * Get the version, incremented by every publish.
+         */
+        public long getVersion() {
+            return _version;
+        }
+
+        /**
+         * Get the time the snapshot was published, in milliseconds since the epoch.
+         */
+        public long getPublishedAt() {
+            return _publishedAt;
+        }
+
+        /**
+         * Get the rates. The list is shared by the readers of this snapshot: do not change the rates.
+         */
+        public List<Rate> getRates() {
+            return _rates;
+        }
+
+        /**
+         * Get the age of the snapshot, in milliseconds.
+         */
+        public long getAgeMillis() {
+            return System.currentTimeMillis() - _publishedAt;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.bitpay.sdk_light.rates;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Rate.Rates;
+
+import java.io.IOException;
+
+/**
+ * Rates read from a {@link RatesSnapshotFile} instead of the API. {@link #update()} reads the current snapshot,
+ * and fails once the snapshot is older than the staleness limit, for instance because no process on the host
+ * publishes anymore.
+ */
+public class SharedRates extends Rates {
+
+    private final RatesSnapshotFile _file;
+    private final long _maxAgeMillis;
+    private RatesSnapshotFile.Snapshot _snapshot;
+
+    /**
+     * Constructor, read the current snapshot.
+     *
+     * @param file         The snapshot file.
+     * @param maxAgeMillis The age beyond which a snapshot is stale, in milliseconds.
+     * @throws BitPayException If there is no snapshot, or it is stale or unreadable.
+     */
+    public SharedRates(RatesSnapshotFile file, long maxAgeMillis) throws BitPayException {
+        super(null, null);
+        this._file = file;
+        this._maxAgeMillis = maxAgeMillis;
+        update();
+    }
+
+    /**
+     * Read the current snapshot; free while it has not changed.
+     *
+     * @throws BitPayException If there is no snapshot, or it is stale or unreadable.
+     */
+    @Override
+    public synchronized void update() throws BitPayException {
+        RatesSnapshotFile.Snapshot snapshot;
+        try {
+            snapshot = _file.read();
+        } catch (IOException e) {
+            throw new BitPayException("Error - failed to read shared rates : " + e.getMessage());
+        }
+        if (snapshot == null) {
+            throw new BitPayException("Error - no rates published in " + _file.getFile());
+        }
+        if (snapshot.getAgeMillis() > _maxAgeMillis) {
+            throw new BitPayException("Error - shared rates are stale, published " + snapshot.getAgeMillis() + " ms ago");
+        }
+        if (snapshot != _snapshot) {
+            _snapshot = snapshot;
+            setRates(snapshot.getRates());
+        }
+    }
+
+    /**
+     * Whether the rates read last are older than the staleness limit now.
+     */
+    public synchronized boolean isStale() {
+        return _snapshot.getAgeMillis() > _maxAgeMillis;
+    }
+
+    /**
+     * Get the version of the snapshot read last.
+     */
+    public synchronized long getVersion() {
+        return _snapshot.getVersion();
+    }
+
+    /**
+     * Get the time the snapshot read last was published, in milliseconds since the epoch.
+     */
+    public synchronized long getPublishedAt() {
+        return _snapshot.getPublishedAt();
+    }
+}
@@ -0,0 +1,105 @@
+package com.bitpay.sdk_light.replay;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP client that sends requests through another one and appends each request and its response to a
+ * {@link TrafficLog}.
+ * <p>
+ * Request and response bodies are read into memory so that they can be recorded; the response handed back
+ * holds a copy of the body. Requests that fail without a response are not recorded.
+ */
+// The deprecated HttpClient types are written out in full, as their imports would be warned about
+@SuppressWarnings("deprecation")
+public class RecordingHttpClient extends CloseableHttpClient {
+
+    private final CloseableHttpClient _delegate;
+    private final TrafficLog _log;
+    private final long _start = System.nanoTime();
+
+    /**
+     * Constructor, record the traffic of an HTTP client.
+     *
+     * @param delegate The HTTP client that sends the requests. It is closed with this one.
+     * @param log      The log the traffic is appended to. It is not closed with this client.
+     */
+    public RecordingHttpClient(CloseableHttpClient delegate, TrafficLog log) {
+        this._delegate = delegate;
+        this._log = log;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+        byte[] requestBody = null;
+        if (request instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) request).getEntity() != null) {
+            HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+            requestBody = toByteArray(enclosing.getEntity());
+            if (!enclosing.getEntity().isRepeatable()) {
+                enclosing.setEntity(copy(enclosing.getEntity(), requestBody));
+            }
+        }
+
+        long sent = System.nanoTime();
+        CloseableHttpResponse response = _delegate.execute(target, request, context);
+        byte[] responseBody;
+        try {
+            HttpEntity entity = response.getEntity();
+            responseBody = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+            if (entity != null) {
+                response.setEntity(copy(entity, responseBody));
+            }
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+        long received = System.nanoTime();
+
+        _log.append(new TrafficRecord(TimeUnit.NANOSECONDS.toMicros(sent - _start),
+                TimeUnit.NANOSECONDS.toMicros(received - sent), request.getRequestLine().getMethod(),
+                TrafficLog.pathAndQuery(request.getRequestLine().getUri()), requestBody,
+                response.getStatusLine().getStatusCode(), responseBody));
+        return response;
+    }
+
+    private static byte[] toByteArray(HttpEntity entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static ByteArrayEntity copy(HttpEntity entity, byte[] body) {
+        ByteArrayEntity copy = new ByteArrayEntity(body);
+        copy.setContentType(entity.getContentType());
+        copy.setContentEncoding(entity.getContentEncoding());
+        return copy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _delegate.close();
+    }
+
+    @Override
+    @Deprecated
+    public org.apache.http.params.HttpParams getParams() {
+        return _delegate.getParams();
+    }
+
+    @Override
+    @Deprecated
+    public org.apache.http.conn.ClientConnectionManager getConnectionManager() {
+        return _delegate.getConnectionManager();
+    }
+}
@@ -0,0 +1,171 @@
+package com.bitpay.sdk_light.replay;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process HTTP client that answers requests with recorded responses, without a network.
+ * <p>
+ * A request is answered with a record of the same method, path and query, with tokens redacted on both sides so
+ * that any client token matches. When several records match, they are used in the order they were recorded and
+ * then again from the first. Each response is delayed by its recorded duration divided by the speed; a speed of
+ * 0 answers at once. Requests without a matching record fail with a {@link ClientProtocolException}.
+ */
+// The deprecated HttpClient types are written out in full, as their imports would be warned about
+@SuppressWarnings("deprecation")
+public class ReplayHttpClient extends CloseableHttpClient {
+
+    private final Map<String, Exchanges> _exchanges = new HashMap<>();
+    private final double _speed;
+
+    private final LongAdder _replayed = new LongAdder();
+    private final LongAdder _unmatched = new LongAdder();
+
+    /**
+     * Constructor, replay recorded traffic.
+     *
+     * @param records The records to answer with.
+     * @param speed   1 for the recorded response times, 10 for ten times faster, 0 for no delay.
+     */
+    public ReplayHttpClient(List<TrafficRecord> records, double speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Error - speed must not be negative");
+        }
+        this._speed = speed;
+        for (TrafficRecord record : records) {
+            _exchanges.computeIfAbsent(key(record.getMethod(), record.getUri()), k -> new Exchanges()).records.add(record);
+        }
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws ClientProtocolException, InterruptedIOException {
+        String key = key(request.getRequestLine().getMethod(), TrafficLog.pathAndQuery(request.getRequestLine().getUri()));
+        Exchanges exchanges = _exchanges.get(key);
+        if (exchanges == null) {
+            _unmatched.increment();
+            throw new ClientProtocolException("Error - no recorded response for " + key);
+        }
+        TrafficRecord record = exchanges.next();
+
+        if (_speed > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep((long) (record.getDurationMicros() / _speed));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Error - interrupted while replaying " + key);
+            }
+        }
+
+        ReplayResponse response = new ReplayResponse(record.getStatus());
+        response.setEntity(new ByteArrayEntity(record.getResponseBody(), ContentType.APPLICATION_JSON));
+        _replayed.increment();
+        return response;
+    }
+
+    private static String key(String method, String uri) {
+        return method + " " + TrafficLog.redact(uri);
+    }
+
+    /**
+     * Get the number of requests answered.
+     */
+    public long getReplayedCount() {
+        return _replayed.sum();
+    }
+
+    /**
+     * Get the number of requests without a matching record.
+     */
+    public long getUnmatchedCount() {
+        return _unmatched.sum();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    @Deprecated
+    public org.apache.http.params.HttpParams getParams() {
+        return new org.apache.http.params.BasicHttpParams();
+    }
+
+    @Override
+    @Deprecated
+    public org.apache.http.conn.ClientConnectionManager getConnectionManager() {
+        return NoConnections.INSTANCE;
+    }
+
+    private static final class Exchanges {
+        final List<TrafficRecord> records = new ArrayList<>(1);
+        final AtomicInteger next = new AtomicInteger();
+
+        TrafficRecord next() {
+            return records.get((next.getAndIncrement() & Integer.MAX_VALUE) % records.size());
+        }
+    }
+
+    // A replay client holds no connections: there is nothing to close, and none to hand out
+    private static final class NoConnections implements org.apache.http.conn.ClientConnectionManager {
+
+        static final NoConnections INSTANCE = new NoConnections();
+
+        private final org.apache.http.conn.scheme.SchemeRegistry _schemes = org.apache.http.impl.conn.SchemeRegistryFactory.createDefault();
+
+        @Override
+        public org.apache.http.conn.scheme.SchemeRegistry getSchemeRegistry() {
+            return _schemes;
+        }
+
+        @Override
+        public org.apache.http.conn.ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            throw new UnsupportedOperationException("Error - a replay client has no connections");
+        }
+
+        @Override
+        public void releaseConnection(org.apache.http.conn.ManagedClientConnection conn, long validDuration, TimeUnit timeUnit) {
+        }
+
+        @Override
+        public void closeExpiredConnections() {
+        }
+
+        @Override
+        public void closeIdleConnections(long idletime, TimeUnit timeUnit) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static final class ReplayResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        ReplayResponse(int status) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, status, null));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.bitpay.sdk_light.replay;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A file of recorded requests and responses.
+ * <p>
+ * The file is a gzip stream of a header followed by one entry per record:
+ * <pre>
+ * header:  [int magic][int format]
+ * entry:   [byte 1][long offsetMicros][long durationMicros][utf method][utf uri][int status]
+ *          [int requestLength, -1 without body][request body][int responseLength][response body]
+ * end:     [byte 0]
+ * </pre>
+ * Records are written as they are appended and the file can be read once it is closed. Token values in query
+ * strings and in JSON {@code "token"} properties are replaced with {@link #REDACTED} before they are written.
+ */
+public class TrafficLog implements Closeable {
+
+    public static final String REDACTED = "REDACTED";
+
+    private static final int MAGIC = 0x42505452;
+    private static final int FORMAT = 1;
+    private static final Pattern QUERY_TOKEN = Pattern.compile("([?&]token=)[^&]*");
+    private static final Pattern JSON_TOKEN = Pattern.compile("(\"token\"\\s*:\\s*\")(?:[^\"\\\\]|\\\\.)*(\")");
+
+    private final DataOutputStream _out;
+    private int _count;
+    private boolean _closed;
+
+    /**
+     * Constructor, create or overwrite a log file for writing.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be created.
+     */
+    public TrafficLog(File file) throws IOException {
+        this._out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), 64 * 1024)));
+        _out.writeInt(MAGIC);
+        _out.writeInt(FORMAT);
+    }
+
+    /**
+     * Redact and append a record.
+     *
+     * @param record The record.
+     * @throws IOException If the record cannot be written.
+     */
+    public synchronized void append(TrafficRecord record) throws IOException {
+        if (_closed) {
+            throw new IOException("Error - traffic log is closed");
+        }
+        _out.writeByte(1);
+        _out.writeLong(record.getOffsetMicros());
+        _out.writeLong(record.getDurationMicros());
+        _out.writeUTF(record.getMethod());
+        _out.writeUTF(redact(record.getUri()));
+        _out.writeInt(record.getStatus());
+        if (record.getRequestBody() == null) {
+            _out.writeInt(-1);
+        } else {
+            writeBytes(redact(record.getRequestBody()));
+        }
+        writeBytes(redact(record.getResponseBody()));
+        _count++;
+    }
+
+    /**
+     * Get the number of records appended.
+     */
+    public synchronized int getCount() {
+        return _count;
+    }
+
+    /**
+     * Write the end of the log and close the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+        try {
+            _out.writeByte(0);
+        } finally {
+            _out.close();
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        _out.writeInt(bytes.length);
+        _out.write(bytes);
+    }
+
+    /**
+     * Read all records of a closed log file.
+     *
+     * @param file The file.
+     * @return The records, in the order they were appended.
+     * @throws IOException If the file cannot be read or is not a complete traffic log.
+     */
+    public static List<TrafficRecord> read(File file) throws IOException {
+        List<TrafficRecord> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), 64 * 1024)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Error - " + file + " is not a traffic log");
+            }
+            int format = in.readInt();
+            if (format != FORMAT) {
+                throw new IOException("Error - unsupported traffic log format " + format);
+            }
+            while (in.readByte() == 1) {
+                long offset = in.readLong();
+                long duration = in.readLong();
+                String method = in.readUTF();
+                String uri = in.readUTF();
+                int status = in.readInt();
+                byte[] request = readBytes(in);
+                byte[] response = readBytes(in);
+                if (response == null) {
+                    throw new IOException("Error - record " + records.size() + " has no response body");
+                }
+                records.add(new TrafficRecord(offset, duration, method, uri, request, status, response));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Error - " + file + " is truncated after " + records.size() + " records");
+        }
+        return records;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Replace the values of {@code token} query parameters and JSON properties with {@link #REDACTED}.
+     *
+     * @param text A request URI or a JSON body.
+     * @return The text, redacted.
+     */
+    public static String redact(String text) {
+        if (text.indexOf("token") < 0) {
+            return text;
+        }
+        text = QUERY_TOKEN.matcher(text).replaceAll("$1" + REDACTED);
+        return JSON_TOKEN.matcher(text).replaceAll("$1" + REDACTED + "$2");
+    }
+
+    static byte[] redact(byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8);
+        String redacted = redact(text);
+        return redacted == text ? body : redacted.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reduce a request URI to its path and query, which is how records are matched on replay.
+     *
+     * @param uri An absolute or relative request URI.
+     * @return The path and query, e.g. {@code /invoices/G3viJEJgE8Jk2oekSdgT2A?token=...}.
+     */
+    public static String pathAndQuery(String uri) {
+        try {
+            URI parsed = new URI(uri);
+            String path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" : parsed.getRawPath();
+            return parsed.getRawQuery() == null ? path : path + "?" + parsed.getRawQuery();
+        } catch (URISyntaxException e) {
+            return uri;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bitpay.sdk_light.replay;
+
+/**
+ * One recorded request and its response, with the tokens redacted.
+ */
+public final class TrafficRecord {
+
+    private final long _offsetMicros;
+    private final long _durationMicros;
+    private final String _method;
+    private final String _uri;
+    private final byte[] _requestBody;
+    private final int _status;
+    private final byte[] _responseBody;
+
+    /**
+     * Constructor, create a record.
+     *
+     * @param offsetMicros   When the request was sent, in microseconds since the recording started.
+     * @param durationMicros How long the response took, in microseconds.
+     * @param method         The request method.
+     * @param uri            The request path and query, see {@link TrafficLog#pathAndQuery(String)}.
+     * @param requestBody    The request body, or null if it had none. Not copied.
+     * @param status         The response status code.
+     * @param responseBody   The response body. Not copied.
+     */
+    public TrafficRecord(long offsetMicros, long durationMicros, String method, String uri, byte[] requestBody,
+                         int status, byte[] responseBody) {
+        this._offsetMicros = offsetMicros;
+        this._durationMicros = durationMicros;
+        this._method = method;
+        this._uri = uri;
+        this._requestBody = requestBody;
+        this._status = status;
+        this._responseBody = responseBody;
+    }
+
+    public long getOffsetMicros() {
+        return _offsetMicros;
+    }
+
+    public long getDurationMicros() {
+        return _durationMicros;
+    }
+
+    public String getMethod() {
+        return _method;
+    }
+
+    public String getUri() {
+        return _uri;
+    }
+
+    /**
+     * Get the request body, or null if the request had none. The array is shared, do not modify it.
+     */
+    public byte[] getRequestBody() {
+        return _requestBody;
+    }
+
+    public int getStatus() {
+        return _status;
+    }
+
+    /**
+     * Get the response body. The array is shared, do not modify it.
+     */
+    public byte[] getResponseBody() {
+        return _responseBody;
+    }
+
+    @Override
+    public String toString() {
+        return _method + " " + _uri + " -> " + _status + " (" + _responseBody.length + " bytes)";
+    }
+}
@@ -0,0 +1,173 @@
+package com.bitpay.sdk_light.replay;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Bill.Bill;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.util.BitPayLogger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends recorded requests through a {@link Client} at their recorded times, e.g. to a client built on a
+ * {@link ReplayHttpClient} for a throughput or latency test without a network.
+ * <p>
+ * Requests to the invoice, bill and rate endpoints go through the matching client method, so that request
+ * bodies are bound and written and responses are bound as in production; other requests are sent with
+ * {@link Client#get(String)} or {@link Client#post(String, String)}. Request times are divided by the speed; a
+ * speed of 0 sends every request as soon as a thread is free.
+ */
+public class TrafficReplayer {
+
+    private static final AtomicInteger REPLAYER_COUNT = new AtomicInteger();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final Client _client;
+    private final List<TrafficRecord> _records;
+    private final double _speed;
+    private final int _threads;
+    private final ObjectMapper _mapper = Client.newMapper();
+
+    private final LongAdder _calls = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private final LongAdder _latencyNanos = new LongAdder();
+
+    /**
+     * Constructor, create a replayer.
+     *
+     * @param client  The client to send the requests through.
+     * @param records The requests to send.
+     * @param speed   1 for the recorded pacing, 10 for ten times faster, 0 for no pacing.
+     * @param threads The number of threads sending requests, at least 1.
+     */
+    public TrafficReplayer(Client client, List<TrafficRecord> records, double speed, int threads) {
+        if (speed < 0 || threads < 1) {
+            throw new IllegalArgumentException("Error - speed must not be negative and threads at least 1");
+        }
+        this._client = client;
+        this._records = new ArrayList<>(records);
+        this._speed = speed;
+        this._threads = threads;
+    }
+
+    /**
+     * Send all requests and wait for their responses.
+     *
+     * @return The time from the first request to the last response, in milliseconds.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public long run() throws InterruptedException {
+        String prefix = "bitpay-replay-" + REPLAYER_COUNT.incrementAndGet() + "-";
+        AtomicInteger count = new AtomicInteger();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(_threads, r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long first = _records.isEmpty() ? 0 : _records.get(0).getOffsetMicros();
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> calls = new ArrayList<>(_records.size());
+            for (TrafficRecord record : _records) {
+                long delay = _speed == 0 ? 0 : (long) ((record.getOffsetMicros() - first) / _speed);
+                calls.add(scheduler.schedule(() -> call(record), delay, TimeUnit.MICROSECONDS));
+            }
+            for (Future<?> call : calls) {
+                try {
+                    call.get();
+                } catch (ExecutionException e) {
+                    _failures.increment();
+                    _log.err("Replay failed: " + e.getCause());
+                }
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void call(TrafficRecord record) {
+        long start = System.nanoTime();
+        try {
+            send(record);
+        } catch (BitPayException | IOException e) {
+            _failures.increment();
+            _log.warn("Replay of " + record.getMethod() + " " + record.getUri() + " failed: " + e.getMessage());
+        } finally {
+            _latencyNanos.add(System.nanoTime() - start);
+            _calls.increment();
+        }
+    }
+
+    private void send(TrafficRecord record) throws BitPayException, IOException {
+        String uri = record.getUri().startsWith("/") ? record.getUri().substring(1) : record.getUri();
+        int query = uri.indexOf('?');
+        String[] path = (query < 0 ? uri : uri.substring(0, query)).split("/");
+        boolean post = "POST".equals(record.getMethod());
+        String body = record.getRequestBody() == null ? "" : new String(record.getRequestBody(), StandardCharsets.UTF_8);
+
+        if (post && path.length == 1 && path[0].equals("invoices")) {
+            _client.createInvoice(_mapper.readValue(body, Invoice.class));
+        } else if (!post && path.length == 2 && path[0].equals("invoices")) {
+            _client.getInvoice(path[1]);
+        } else if (!post && path.length == 1 && path[0].equals("rates")) {
+            _client.getRates();
+        } else if (post && path.length == 1 && path[0].equals("bills")) {
+            _client.createBill(_mapper.readValue(body, Bill.class));
+        } else if (!post && path.length == 2 && path[0].equals("bills")) {
+            _client.getBill(path[1]);
+        } else if (post && path.length == 3 && path[0].equals("bills") && path[2].equals("deliveries")) {
+            JsonNode token = _mapper.readTree(body).get("token");
+            _client.deliverBill(path[1], token == null ? null : token.asText());
+        } else {
+            HttpResponse response = post ? _client.post(uri, body) : _client.get(uri);
+            EntityUtils.consume(response.getEntity());
+        }
+    }
+
+    /**
+     * Get the number of requests sent.
+     */
+    public long getCallCount() {
+        return _calls.sum();
+    }
+
+    /**
+     * Get the number of requests that failed.
+     */
+    public long getFailureCount() {
+        return _failures.sum();
+    }
+
+    /**
+     * Get the mean time of a call, from sending the request to binding the response, in milliseconds.
+     */
+    public double getMeanLatencyMillis() {
+        long calls = _calls.sum();
+        return calls == 0 ? 0 : _latencyNanos.sum() / 1e6 / calls;
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bitpay.sdk_light.store;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing multimap from int hashes to int values, kept in two primitive arrays. Several values may
+ * share a hash, and several hashes a slot; callers check the candidates they get back.
+ */
+final class IntHashMultimap {
+
+    private static final int FREE = -1;
+    private static final int REMOVED = -2;
+
+    private int[] _hashes;
+    private int[] _values;
+    private int _size;
+    private int _used;
+
+    IntHashMultimap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+        _hashes = new int[slots];
+        _values = new int[slots];
+        Arrays.fill(_values, FREE);
+    }
+
+    void put(int hash, int value) {
+        if ((_used + 1) * 4 >= _values.length * 3) {
+            rehash(_size * 2 >= _values.length / 2 ? _values.length * 2 : _values.length);
+        }
+        int mask = _values.length - 1;
+        int slot = mix(hash) & mask;
+        while (_values[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (_values[slot] == FREE) {
+            _used++;
+        }
+        _hashes[slot] = hash;
+        _values[slot] = value;
+        _size++;
+    }
+
+    boolean remove(int hash, int value) {
+        int mask = _values.length - 1;
+        for (int slot = mix(hash) & mask; _values[slot] != FREE; slot = (slot + 1) & mask) {
+            if (_values[slot] == value && _hashes[slot] == hash) {
+                _values[slot] = REMOVED;
+                _size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the values stored under a hash.
+     *
+     * @return The values, or an empty array.
+     */
+    int[] get(int hash) {
+        int[] found = null;
+        int count = 0;
+        int mask = _values.length - 1;
+        for (int slot = mix(hash) & mask; _values[slot] != FREE; slot = (slot + 1) & mask) {
+            if (_values[slot] >= 0 && _hashes[slot] == hash) {
+                if (found == null) {
+                    found = new int[2];
+                } else if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = _values[slot];
+            }
+        }
+        return found == null ? new int[0] : Arrays.copyOf(found, count);
+    }
+
+    int size() {
+        return _size;
+    }
+
+    private void rehash(int slots) {
+        int[] hashes = _hashes;
+        int[] values = _values;
+        _hashes = new int[slots];
+        _values = new int[slots];
+        Arrays.fill(_values, FREE);
+        _size = 0;
+        _used = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] >= 0) {
+                put(hashes[i], values[i]);
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
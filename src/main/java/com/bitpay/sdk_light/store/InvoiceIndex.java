@@ -0,0 +1,364 @@
+package com.bitpay.sdk_light.store;
+
+import com.bitpay.sdk_light.util.BitPayLogger;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds the invoices of an {@link InvoiceStore} by order id, passthru data, status and invoice time, without
+ * scanning the store.
+ * <p>
+ * The index follows the store: it reads the fields of every invoice already recorded when created, and of
+ * every invoice recorded afterwards. Each invoice gets a number; statuses are bit sets of these numbers,
+ * invoice times a sorted array of times with their numbers, and order ids and passthru data hash tables of
+ * their hashes to numbers, so the index keeps primitive arrays rather than the values themselves. The
+ * candidates found by hash are checked against the record in the store.
+ * <p>
+ * Lookups may run concurrently with each other; they wait while an invoice is being indexed.
+ */
+public class InvoiceIndex implements InvoiceStore.Listener, Closeable {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final InvoiceStore _store;
+    private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+
+    private final HashMap<String, Integer> _numbers = new HashMap<>();
+    private String[] _ids = new String[1024];
+    private int[] _orderIdHashes = new int[1024];
+    private int[] _posDataHashes = new int[1024];
+    private String[] _statuses = new String[1024];
+    private long[] _invoiceTimes = new long[1024];
+    private int _count;
+
+    private final IntHashMultimap _byOrderId = new IntHashMultimap(1024);
+    private final IntHashMultimap _byPosData = new IntHashMultimap(1024);
+    private final HashMap<String, BitSet> _byStatus = new HashMap<>();
+    private long[] _times = new long[1024];
+    private int[] _timeNumbers = new int[1024];
+    private int _timeCount;
+
+    /**
+     * Constructor, index the invoices recorded in a store, and those recorded from now on.
+     *
+     * @param store The store.
+     * @throws IOException If a recorded invoice could not be read.
+     */
+    public InvoiceIndex(InvoiceStore store) throws IOException {
+        this._store = store;
+        store.addListener(this, true);
+    }
+
+    @Override
+    public void onPut(String invoiceId, String json) {
+        Fields fields;
+        try {
+            fields = Fields.read(json);
+        } catch (IOException e) {
+            _log.err("Index: failed to read invoice " + invoiceId + " : " + e.getMessage());
+            return;
+        }
+
+        _lock.writeLock().lock();
+        try {
+            Integer known = _numbers.get(invoiceId);
+            int number;
+            if (known == null) {
+                number = add(invoiceId);
+                _invoiceTimes[number] = fields._invoiceTime;
+                addTime(fields._invoiceTime, number);
+            } else {
+                number = known;
+                _byOrderId.remove(_orderIdHashes[number], number);
+                _byPosData.remove(_posDataHashes[number], number);
+                _byStatus.get(_statuses[number]).clear(number);
+            }
+            _orderIdHashes[number] = Objects.hashCode(fields._orderId);
+            _posDataHashes[number] = Objects.hashCode(fields._posData);
+            _byOrderId.put(_orderIdHashes[number], number);
+            _byPosData.put(_posDataHashes[number], number);
+            // Statuses are few: share one string per status
+            String status = String.valueOf(fields._status).intern();
+            _statuses[number] = status;
+            _byStatus.computeIfAbsent(status, s -> new BitSet()).set(number);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    private int add(String invoiceId) {
+        if (_count == _ids.length) {
+            int length = _count * 2;
+            _ids = Arrays.copyOf(_ids, length);
+            _orderIdHashes = Arrays.copyOf(_orderIdHashes, length);
+            _posDataHashes = Arrays.copyOf(_posDataHashes, length);
+            _statuses = Arrays.copyOf(_statuses, length);
+            _invoiceTimes = Arrays.copyOf(_invoiceTimes, length);
+        }
+        int number = _count++;
+        _ids[number] = invoiceId;
+        _numbers.put(invoiceId, number);
+        return number;
+    }
+
+    // Invoices mostly arrive in time order, which appends; an earlier time is moved into place
+    private void addTime(long time, int number) {
+        if (_timeCount == _times.length) {
+            _times = Arrays.copyOf(_times, _timeCount * 2);
+            _timeNumbers = Arrays.copyOf(_timeNumbers, _timeCount * 2);
+        }
+        int index = _timeCount;
+        if (index > 0 && _times[index - 1] > time) {
+            index = upperBound(time);
+            System.arraycopy(_times, index, _times, index + 1, _timeCount - index);
+            System.arraycopy(_timeNumbers, index, _timeNumbers, index + 1, _timeCount - index);
+        }
+        _times[index] = time;
+        _timeNumbers[index] = number;
+        _timeCount++;
+    }
+
+    /**
+     * Find the invoices created for an order.
+     *
+     * @param orderId The order id.
+     * @return The invoice ids, in invoice time order.
+     * @throws IOException If a candidate invoice could not be read from the store.
+     */
+    public List<String> findByOrderId(String orderId) throws IOException {
+        return verify(candidates(_byOrderId, Objects.hashCode(orderId)), orderId, true);
+    }
+
+    /**
+     * Find the invoices carrying some passthru data.
+     *
+     * @param posData The passthru data.
+     * @return The invoice ids, in invoice time order.
+     * @throws IOException If a candidate invoice could not be read from the store.
+     */
+    public List<String> findByPosData(String posData) throws IOException {
+        return verify(candidates(_byPosData, Objects.hashCode(posData)), posData, false);
+    }
+
+    private String[] candidates(IntHashMultimap map, int hash) {
+        _lock.readLock().lock();
+        try {
+            int[] numbers = map.get(hash);
+            Arrays.sort(numbers);
+            sortByTime(numbers);
+            String[] ids = new String[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                ids[i] = _ids[numbers[i]];
+            }
+            return ids;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    private List<String> verify(String[] candidates, String value, boolean orderId) throws IOException {
+        List<String> found = new ArrayList<>(candidates.length);
+        for (String invoiceId : candidates) {
+            String json = _store.getJson(invoiceId);
+            Fields fields = json == null ? null : Fields.read(json);
+            if (fields != null && Objects.equals(value, orderId ? fields._orderId : fields._posData)) {
+                found.add(invoiceId);
+            }
+        }
+        return found;
+    }
+
+    // Numbers follow the order invoices were first recorded, which is mostly their time order: sort only if not
+    private void sortByTime(int[] numbers) {
+        for (int i = 1; i < numbers.length; i++) {
+            if (_invoiceTimes[numbers[i - 1]] > _invoiceTimes[numbers[i]]) {
+                Integer[] boxed = new Integer[numbers.length];
+                for (int j = 0; j < numbers.length; j++) {
+                    boxed[j] = numbers[j];
+                }
+                // Stable, so invoices with the same time stay in the order they were recorded
+                Arrays.sort(boxed, (a, b) -> Long.compare(_invoiceTimes[a], _invoiceTimes[b]));
+                for (int j = 0; j < numbers.length; j++) {
+                    numbers[j] = boxed[j];
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Find the invoices in a status.
+     *
+     * @param status The status, see {@link com.bitpay.sdk_light.model.Invoice.InvoiceStatus}.
+     * @return The invoice ids, in invoice time order.
+     */
+    public List<String> findByStatus(String status) {
+        _lock.readLock().lock();
+        try {
+            BitSet numbers = _byStatus.get(status);
+            if (numbers == null) {
+                return Collections.emptyList();
+            }
+            int[] sorted = numbers.stream().toArray();
+            sortByTime(sorted);
+            List<String> ids = new ArrayList<>(sorted.length);
+            for (int number : sorted) {
+                ids.add(_ids[number]);
+            }
+            return ids;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the invoices in a status.
+     *
+     * @param status The status, see {@link com.bitpay.sdk_light.model.Invoice.InvoiceStatus}.
+     * @return The number of invoices.
+     */
+    public int countByStatus(String status) {
+        _lock.readLock().lock();
+        try {
+            BitSet numbers = _byStatus.get(status);
+            return numbers == null ? 0 : numbers.cardinality();
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the invoices created in a time range.
+     *
+     * @param from The start of the range, inclusive, in milliseconds since the epoch.
+     * @param to   The end of the range, exclusive, in milliseconds since the epoch.
+     * @return The invoice ids, in invoice time order.
+     */
+    public List<String> findByInvoiceTime(long from, long to) {
+        _lock.readLock().lock();
+        try {
+            int start = lowerBound(from);
+            int end = Math.max(start, lowerBound(to));
+            List<String> ids = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                ids.add(_ids[_timeNumbers[i]]);
+            }
+            return ids;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    // The first index whose time is at least the given time
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = _timeCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (_times[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The first index whose time is after the given time
+    private int upperBound(long time) {
+        int low = 0;
+        int high = _timeCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (_times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the number of invoices indexed.
+     */
+    public int size() {
+        _lock.readLock().lock();
+        try {
+            return _count;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stop following the store.
+     */
+    @Override
+    public void close() {
+        _store.removeListener(this);
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+
+    /**
+     * The indexed fields of a recorded invoice, read from its JSON without binding it.
+     */
+    private static final class Fields {
+        String _orderId;
+        String _posData;
+        String _status;
+        long _invoiceTime;
+
+        static Fields read(String json) throws IOException {
+            Fields fields = new Fields();
+            try (JsonParser p = FACTORY.createParser(json)) {
+                if (p.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Error - invoice JSON is not an object");
+                }
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = p.getCurrentName();
+                    JsonToken token = p.nextToken();
+                    switch (name) {
+                        case "orderId":
+                            fields._orderId = token == JsonToken.VALUE_NULL ? null : p.getText();
+                            break;
+                        case "posData":
+                            fields._posData = token == JsonToken.VALUE_NULL ? null : p.getText();
+                            break;
+                        case "status":
+                            fields._status = token == JsonToken.VALUE_NULL ? null : p.getText();
+                            break;
+                        case "invoiceTime":
+                            fields._invoiceTime = token == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : 0;
+                            break;
+                        default:
+                            p.skipChildren();
+                    }
+                }
+            }
+            return fields;
+        }
+    }
+}
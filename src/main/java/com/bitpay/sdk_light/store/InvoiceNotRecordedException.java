@@ -0,0 +1,29 @@
+package com.bitpay.sdk_light.store;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+
+/**
+ * Thrown by a client when BitPay returned an invoice but the client's {@link InvoiceStore} could not record it.
+ * The invoice exists: use {@link #getInvoice()} rather than creating it again.
+ */
+public class InvoiceNotRecordedException extends BitPayException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Invoice _invoice;
+
+    public InvoiceNotRecordedException(Invoice invoice, String message) {
+        super(message);
+        this._invoice = invoice;
+    }
+
+    /**
+     * Get the invoice returned by BitPay.
+     *
+     * @return The invoice, or null if this exception was deserialized.
+     */
+    public Invoice getInvoice() {
+        return _invoice;
+    }
+}
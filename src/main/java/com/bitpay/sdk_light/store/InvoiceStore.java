@@ -0,0 +1,652 @@
+package com.bitpay.sdk_light.store;
+
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.util.BitPayLogger;
+import com.bitpay.sdk_light.util.codec.CodecModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A local record of invoices, kept in an append-only log on disk, so that a restarted process knows every
+ * invoice it created.
+ * <p>
+ * Each {@link #put(String, String)} appends a record holding the invoice id and its JSON, as returned by the
+ * API, to the active segment file of the directory, and by default forces it to disk before returning. Records
+ * carry a CRC32 checksum. Opening the store replays the segments in order and keeps, per invoice, the position
+ * of its last record; a torn record at the end of the last segment, left by a crash during a write, is cut
+ * off. A corrupt record that valid records follow is not torn, and fails the open as it would in an earlier
+ * segment. Reads go to the file at that position.
+ * <p>
+ * When the active segment reaches the segment size, a new one is started. Once superseded records take more
+ * room than live ones, the closed segments are compacted in the background: their live records are copied
+ * into one new segment, which replaces them. Records are never deleted, so replaying a half-finished
+ * compaction still gives the last record of each invoice.
+ */
+public class InvoiceStore implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final byte PUT = 1;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final String PREFIX = "invoices-";
+    private static final String SUFFIX = ".log";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private static final AtomicInteger STORE_COUNT = new AtomicInteger();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final File _directory;
+    private final long _segmentBytes;
+    private final boolean _syncEveryWrite;
+    private final ObjectMapper _mapper = new ObjectMapper().registerModule(new CodecModule());
+    private final ConcurrentHashMap<String, Location> _index = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock _segmentsLock = new ReentrantReadWriteLock();
+    private final List<Segment> _segments = new ArrayList<>();
+    private final ExecutorService _compactor;
+    private final AtomicBoolean _compacting = new AtomicBoolean();
+    private final List<Listener> _listeners = new CopyOnWriteArrayList<>();
+    private final Object _compactionLock = new Object();
+
+    private Segment _active;
+    private long _totalBytes;
+    private long _liveBytes;
+    private long _recoveredRecords;
+    private long _truncatedBytes;
+    private long _compactions;
+    private volatile boolean _closed;
+
+    /**
+     * Constructor, open or create a store with 64 MB segments that forces every write to disk.
+     *
+     * @param directory The directory holding the segment files.
+     * @throws IOException If the directory could not be read or a segment is corrupt.
+     */
+    public InvoiceStore(File directory) throws IOException {
+        this(directory, 64L * 1024 * 1024, true);
+    }
+
+    /**
+     * Constructor, open or create a store.
+     *
+     * @param directory      The directory holding the segment files.
+     * @param segmentBytes   The size at which a new segment is started.
+     * @param syncEveryWrite Whether to force every write to disk before returning; without it, records written
+     *                       since the last {@link #sync()} may be lost if the machine crashes.
+     * @throws IOException If the directory could not be read or a segment is corrupt.
+     */
+    public InvoiceStore(File directory, long segmentBytes, boolean syncEveryWrite) throws IOException {
+        this._directory = directory;
+        this._segmentBytes = segmentBytes;
+        this._syncEveryWrite = syncEveryWrite;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Error - could not create store directory " + directory);
+        }
+        recover();
+        String name = "bitpay-store-" + STORE_COUNT.incrementAndGet();
+        this._compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void recover() throws IOException {
+        File[] files = _directory.listFiles();
+        List<Long> sequences = new ArrayList<>();
+        for (File file : files == null ? new File[0] : files) {
+            String name = file.getName();
+            if (name.startsWith(PREFIX) && name.endsWith(COMPACTING_SUFFIX)) {
+                // Left by a crash during compaction; the segments it was copied from are still there
+                Files.delete(file.toPath());
+            } else if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                sequences.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(sequences);
+
+        for (int i = 0; i < sequences.size(); i++) {
+            Segment segment = Segment.open(segmentFile(sequences.get(i)), sequences.get(i));
+            _segments.add(segment);
+            replay(segment, i == sequences.size() - 1);
+            _totalBytes += segment._size;
+        }
+        if (_segments.isEmpty()) {
+            _segments.add(Segment.open(segmentFile(1), 1));
+        }
+        _active = _segments.get(_segments.size() - 1);
+        _log.info("Store: recovered " + _index.size() + " invoices from " + _segments.size() + " segments");
+    }
+
+    private void replay(Segment segment, boolean last) throws IOException {
+        long position = 0;
+        long size = segment._channel.size();
+        while (position < size) {
+            ByteBuffer body = readRecord(segment._channel, position, size);
+            if (body == null) {
+                if (!last) {
+                    throw new IOException("Error - corrupt record in " + segment._file + " at " + position);
+                }
+                // Only a record that no valid record follows can be the torn end of a write
+                long next = findRecord(segment._channel, position + 1, size);
+                if (next >= 0) {
+                    throw new IOException("Error - corrupt record in " + segment._file + " at " + position
+                            + ", followed by a valid record at " + next);
+                }
+                _truncatedBytes += size - position;
+                _log.warn("Store: cutting off " + (size - position) + " bytes of torn record in " + segment._file);
+                segment._channel.truncate(position);
+                segment._channel.force(true);
+                break;
+            }
+
+            String invoiceId = readId(body);
+            int recordBytes = HEADER_BYTES + body.capacity();
+            Location previous = _index.put(invoiceId, new Location(segment, position, recordBytes));
+            _liveBytes += recordBytes - (previous == null ? 0 : previous._length);
+            _recoveredRecords++;
+            position += recordBytes;
+        }
+        segment._size = position;
+    }
+
+    // The body of the record at a position, or null if there is no whole record with a matching checksum there
+    private static ByteBuffer readRecord(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (!readFully(channel, header, position)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        if (length <= 3 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        if (!readFully(channel, body, position + HEADER_BYTES) || body.get(0) != PUT
+                || checksum(body.array(), 0, length) != header.getInt(4)) {
+            return null;
+        }
+        return body;
+    }
+
+    private static long findRecord(FileChannel channel, long from, long size) throws IOException {
+        for (long position = from; position + HEADER_BYTES < size; position++) {
+            if (readRecord(channel, position, size) != null) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Record an invoice, replacing its previous record.
+     *
+     * @param invoiceId The invoice id.
+     * @param json      The invoice JSON, as returned in the {@code data} field of the API response.
+     * @throws IOException If the record could not be written.
+     */
+    public void put(String invoiceId, String json) throws IOException {
+        byte[] id = invoiceId.getBytes(StandardCharsets.UTF_8);
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        if (id.length > Short.MAX_VALUE || HEADER_BYTES + 3 + id.length + data.length > MAX_RECORD_BYTES) {
+            throw new IOException("Error - invoice " + invoiceId + " is too large to store");
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + 3 + id.length + data.length);
+        record.putInt(record.capacity() - HEADER_BYTES).putInt(0);
+        record.put(PUT).putShort((short) id.length).put(id).put(data);
+        record.putInt(4, checksum(record.array(), HEADER_BYTES, record.capacity() - HEADER_BYTES));
+
+        boolean compact;
+        synchronized (this) {
+            if (_closed) {
+                throw new IOException("Error - the store is closed");
+            }
+            Segment segment = _active;
+            long position = segment._size;
+            ByteBuffer out = ByteBuffer.wrap(record.array());
+            while (out.hasRemaining()) {
+                segment._channel.write(out, position + out.position());
+            }
+            if (_syncEveryWrite) {
+                segment._channel.force(false);
+            }
+            segment._size += record.capacity();
+            _totalBytes += record.capacity();
+
+            Location previous = _index.put(invoiceId, new Location(segment, position, record.capacity()));
+            _liveBytes += record.capacity() - (previous == null ? 0 : previous._length);
+            notifyListeners(invoiceId, json);
+            compact = false;
+            if (segment._size >= _segmentBytes) {
+                roll();
+                compact = _totalBytes - _liveBytes > _liveBytes;
+            }
+        }
+        if (compact) {
+            compactInBackground();
+        }
+    }
+
+    /**
+     * Receives every invoice recorded in a store.
+     */
+    public interface Listener {
+
+        /**
+         * Called after an invoice was recorded, on the writing thread. Records are reported one at a time, in
+         * the order they were written; the next write waits for this call to return.
+         *
+         * @param invoiceId The invoice id.
+         * @param json      The invoice JSON.
+         */
+        void onPut(String invoiceId, String json);
+    }
+
+    /**
+     * Report the invoices recorded from now on to a listener.
+     *
+     * @param listener The listener.
+     * @param replay   Whether to report the invoices already recorded first, in the order of their last records,
+     *                 with no write in between.
+     * @throws IOException If a recorded invoice could not be read.
+     */
+    public synchronized void addListener(Listener listener, boolean replay) throws IOException {
+        if (replay) {
+            for (Map.Entry<String, Location> entry : liveRecords()) {
+                listener.onPut(entry.getKey(), getJson(entry.getKey()));
+            }
+        }
+        _listeners.add(listener);
+    }
+
+    /**
+     * Stop reporting recorded invoices to a listener.
+     */
+    public void removeListener(Listener listener) {
+        _listeners.remove(listener);
+    }
+
+    private void notifyListeners(String invoiceId, String json) {
+        for (Listener listener : _listeners) {
+            try {
+                listener.onPut(invoiceId, json);
+            } catch (RuntimeException e) {
+                _log.err("Store: listener failed for invoice " + invoiceId + " : " + e.getMessage());
+            }
+        }
+    }
+
+    // The last record of each invoice, in the order they were written: by segment, then by position
+    private List<Map.Entry<String, Location>> liveRecords() {
+        List<Map.Entry<String, Location>> records = new ArrayList<>(_index.entrySet());
+        records.sort(Comparator.comparingLong((Map.Entry<String, Location> entry) -> entry.getValue()._segment._sequence)
+                .thenComparingLong(entry -> entry.getValue()._position));
+        return records;
+    }
+
+    /**
+     * Get the JSON recorded for an invoice.
+     *
+     * @param invoiceId The invoice id.
+     * @return The invoice JSON, or null if the invoice is not recorded.
+     * @throws IOException If the record could not be read.
+     */
+    public String getJson(String invoiceId) throws IOException {
+        _segmentsLock.readLock().lock();
+        try {
+            Location location = _index.get(invoiceId);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(location._length);
+            if (!readFully(location._segment._channel, record, location._position)
+                    || checksum(record.array(), HEADER_BYTES, location._length - HEADER_BYTES) != record.getInt(4)) {
+                throw new IOException("Error - corrupt record for invoice " + invoiceId + " in " + location._segment._file);
+            }
+            int idLength = record.getShort(HEADER_BYTES + 1);
+            int offset = HEADER_BYTES + 3 + idLength;
+            return new String(record.array(), offset, record.capacity() - offset, StandardCharsets.UTF_8);
+        } finally {
+            _segmentsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the invoice recorded under an id.
+     *
+     * @param invoiceId The invoice id.
+     * @return The invoice, or null if it is not recorded.
+     * @throws IOException If the record could not be read or bound.
+     */
+    public Invoice get(String invoiceId) throws IOException {
+        String json = getJson(invoiceId);
+        return json == null ? null : _mapper.readValue(json, Invoice.class);
+    }
+
+    /**
+     * Whether an invoice is recorded.
+     */
+    public boolean contains(String invoiceId) {
+        return _index.containsKey(invoiceId);
+    }
+
+    /**
+     * Get the ids of the recorded invoices, as a live view.
+     */
+    public Set<String> ids() {
+        return Collections.unmodifiableSet(_index.keySet());
+    }
+
+    /**
+     * Get the number of recorded invoices.
+     */
+    public int size() {
+        return _index.size();
+    }
+
+    /**
+     * Force the records written so far to disk.
+     *
+     * @throws IOException If the active segment could not be forced.
+     */
+    public synchronized void sync() throws IOException {
+        _active._channel.force(false);
+    }
+
+    private void roll() throws IOException {
+        _active._channel.force(false);
+        Segment next = Segment.open(segmentFile(_active._sequence + 1), _active._sequence + 1);
+        _segmentsLock.writeLock().lock();
+        try {
+            _segments.add(next);
+        } finally {
+            _segmentsLock.writeLock().unlock();
+        }
+        _active = next;
+    }
+
+    private void compactInBackground() {
+        if (_compacting.compareAndSet(false, true)) {
+            try {
+                _compactor.execute(() -> {
+                    try {
+                        compact();
+                    } catch (IOException e) {
+                        _log.err("Store: compaction failed : " + e.getMessage());
+                    } finally {
+                        _compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closing
+                _compacting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Close the active segment and rewrite the live records of all closed segments into one segment.
+     * Writes and reads go on while the records are copied.
+     *
+     * @return Whether there was anything to compact.
+     * @throws IOException If the compacted segment could not be written.
+     */
+    public boolean compact() throws IOException {
+        synchronized (_compactionLock) {
+            return compactSealed();
+        }
+    }
+
+    private boolean compactSealed() throws IOException {
+        List<Segment> sealed;
+        synchronized (this) {
+            if (_closed) {
+                return false;
+            }
+            if (_active._size > 0) {
+                roll();
+            }
+            _segmentsLock.readLock().lock();
+            try {
+                sealed = new ArrayList<>(_segments.subList(0, _segments.size() - 1));
+            } finally {
+                _segmentsLock.readLock().unlock();
+            }
+        }
+        if (sealed.isEmpty()) {
+            return false;
+        }
+
+        // Copy the live records in write order; the last sealed segment number keeps them ahead of the newer segments
+        Segment last = sealed.get(sealed.size() - 1);
+        File target = segmentFile(last._sequence);
+        File temporary = new File(_directory, target.getName() + COMPACTING_SUFFIX);
+        List<Map.Entry<String, Location>> moved = new ArrayList<>();
+        long size = 0;
+        try (FileChannel out = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Location> entry : liveRecords()) {
+                Location location = entry.getValue();
+                if (!sealed.contains(location._segment)) {
+                    continue;
+                }
+                ByteBuffer record = ByteBuffer.allocate(location._length);
+                if (!readFully(location._segment._channel, record, location._position)) {
+                    throw new IOException("Error - short record for invoice " + entry.getKey() + " in " + location._segment._file);
+                }
+                ByteBuffer copy = ByteBuffer.wrap(record.array());
+                while (copy.hasRemaining()) {
+                    size += out.write(copy);
+                }
+                moved.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), location));
+            }
+            out.force(true);
+        }
+
+        Path targetPath = target.toPath();
+        synchronized (this) {
+            if (_closed) {
+                Files.deleteIfExists(temporary.toPath());
+                return false;
+            }
+            _segmentsLock.writeLock().lock();
+            try {
+                Files.move(temporary.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Segment compacted = Segment.open(target, last._sequence);
+                compacted._size = size;
+                long position = 0;
+                for (Map.Entry<String, Location> entry : moved) {
+                    Location location = entry.getValue();
+                    // A record written while copying stays where it is
+                    _index.replace(entry.getKey(), location, new Location(compacted, position, location._length));
+                    position += location._length;
+                }
+                for (Segment segment : sealed) {
+                    _totalBytes -= segment._size;
+                    segment._channel.close();
+                    if (segment != last) {
+                        Files.deleteIfExists(segment._file.toPath());
+                    }
+                }
+                _totalBytes += size;
+                _segments.removeAll(sealed);
+                _segments.add(0, compacted);
+                _compactions++;
+            } finally {
+                _segmentsLock.writeLock().unlock();
+            }
+        }
+        _log.info("Store: compacted " + sealed.size() + " segments into " + size + " bytes");
+        return true;
+    }
+
+    /**
+     * Get the number of segment files.
+     */
+    public int getSegmentCount() {
+        _segmentsLock.readLock().lock();
+        try {
+            return _segments.size();
+        } finally {
+            _segmentsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the bytes taken by the last record of each invoice.
+     */
+    public synchronized long getLiveBytes() {
+        return _liveBytes;
+    }
+
+    /**
+     * Get the bytes taken by superseded records, reclaimed by compaction.
+     */
+    public synchronized long getDeadBytes() {
+        return _totalBytes - _liveBytes;
+    }
+
+    /**
+     * Get the number of records replayed when the store was opened.
+     */
+    public long getRecoveredRecordCount() {
+        return _recoveredRecords;
+    }
+
+    /**
+     * Get the number of bytes of torn record cut off when the store was opened.
+     */
+    public long getTruncatedBytes() {
+        return _truncatedBytes;
+    }
+
+    /**
+     * Get the number of compactions completed.
+     */
+    public synchronized long getCompactionCount() {
+        return _compactions;
+    }
+
+    /**
+     * Wait for a running compaction to end, then force the records to disk and close the segment files.
+     */
+    @Override
+    public void close() throws IOException {
+        _compactor.shutdown();
+        try {
+            _compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Also waits for a compaction run by compact() on another thread
+        synchronized (_compactionLock) {
+            synchronized (this) {
+                if (_closed) {
+                    return;
+                }
+                _closed = true;
+                _segmentsLock.writeLock().lock();
+                try {
+                    _active._channel.force(false);
+                    for (Segment segment : _segments) {
+                        segment._channel.close();
+                    }
+                } finally {
+                    _segmentsLock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+
+    private File segmentFile(long sequence) {
+        return new File(_directory, String.format("%s%012d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    private static String readId(ByteBuffer body) throws IOException {
+        int idLength = body.getShort(1);
+        if (body.get(0) != PUT || idLength < 0 || 3 + idLength > body.capacity()) {
+            throw new IOException("Error - unknown record type " + body.get(0));
+        }
+        return new String(body.array(), 3, idLength, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Segment {
+        final File _file;
+        final long _sequence;
+        final FileChannel _channel;
+        long _size;
+
+        private Segment(File file, long sequence, FileChannel channel) {
+            this._file = file;
+            this._sequence = sequence;
+            this._channel = channel;
+        }
+
+        static Segment open(File file, long sequence) throws IOException {
+            return new Segment(file, sequence, FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+    }
+
+    private static final class Location {
+        final Segment _segment;
+        final long _position;
+        final int _length;
+
+        Location(Segment segment, long position, int length) {
+            this._segment = segment;
+            this._position = position;
+            this._length = length;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.bitpay.sdk_light.tracking;
+
+/**
+ * Receives the invoices whose expiration time passed, from an {@link ExpiryTracker}.
+ */
+public interface ExpiryListener {
+
+    /**
+     * Called once the expiration time of a tracked invoice passed, on the tracker thread. Hand slow work, such
+     * as fetching the invoice, to another thread: the next expirations wait for this call to return.
+     *
+     * @param invoiceId      The invoice id.
+     * @param expirationTime The expiration time it was tracked with, in milliseconds since the epoch.
+     * @throws Exception If the expiration could not be handled; the tracker logs it and goes on.
+     */
+    void onExpired(String invoiceId, long expirationTime) throws Exception;
+}
@@ -0,0 +1,307 @@
+package com.bitpay.sdk_light.tracking;
+
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.util.BitPayLogger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tells an {@link ExpiryListener} when the expiration time of tracked invoices passes, for any number of
+ * invoices, with one thread and no task per invoice.
+ * <p>
+ * Invoices are kept in a hierarchical timing wheel: four wheels of 64 slots, where a slot of the first wheel
+ * spans one tick and a slot of each next wheel spans 64 slots of the previous one. Tracking and cancelling an
+ * invoice links or unlinks it in a slot list, whatever the number of invoices. When the first wheel turns
+ * over, the due slot of the next wheel is spread over the first one. Expirations further away than the four
+ * wheels, 64<sup>4</sup> ticks, wait in the last slot of the last wheel and are placed again when it turns.
+ * <p>
+ * Expirations fire on the tick after they pass, so the tick is the resolution. Each tracked invoice costs one
+ * small entry, and a map entry to find it by id.
+ */
+public class ExpiryTracker implements Closeable {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int WHEELS = 4;
+    private static final long SPAN = 1L << (WHEEL_BITS * WHEELS);
+
+    private static final AtomicInteger TRACKER_COUNT = new AtomicInteger();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final ExpiryListener _listener;
+    private final long _tickMillis;
+    private final Entry[][] _wheels = new Entry[WHEELS][WHEEL_SIZE];
+    private final HashMap<String, Entry> _entries = new HashMap<>();
+    private long _tick;
+    private volatile Thread _thread;
+
+    private final LongAdder _expired = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+
+    /**
+     * Constructor, create a tracker. Call {@link #start()} to run it on its own thread, or call
+     * {@link #advance(long)} from your own scheduler.
+     *
+     * @param listener The listener expirations are delivered to.
+     * @param tick     The tick, the resolution expirations fire at.
+     * @param unit     The unit of the tick.
+     */
+    public ExpiryTracker(ExpiryListener listener, long tick, TimeUnit unit) {
+        this._listener = listener;
+        this._tickMillis = unit.toMillis(tick);
+        if (_tickMillis < 1) {
+            throw new IllegalArgumentException("Error - the tick must be at least one millisecond");
+        }
+        for (Entry[] wheel : _wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Entry(null, 0);
+            }
+        }
+        this._tick = Math.floorDiv(System.currentTimeMillis(), _tickMillis);
+    }
+
+    /**
+     * Start firing expirations from a daemon thread, every tick.
+     *
+     * @return This tracker.
+     */
+    public synchronized ExpiryTracker start() {
+        if (_thread != null) {
+            throw new IllegalStateException("Error - the tracker is already started");
+        }
+        Thread thread = new Thread(this::run, "bitpay-expiry-" + TRACKER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        _thread = thread;
+        thread.start();
+        return this;
+    }
+
+    private void run() {
+        Thread current = Thread.currentThread();
+        while (_thread == current) {
+            advance(System.currentTimeMillis());
+            long now = System.currentTimeMillis();
+            try {
+                Thread.sleep(_tickMillis - Math.floorMod(now, _tickMillis));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Track the expiration time of an invoice.
+     *
+     * @param invoice The invoice.
+     * @return Whether the invoice was not tracked already.
+     */
+    public boolean track(Invoice invoice) {
+        return track(invoice.getId(), invoice.getExpirationTime());
+    }
+
+    /**
+     * Track the expiration time of an invoice. Tracking an invoice again moves its expiration time.
+     *
+     * @param invoiceId      The invoice id.
+     * @param expirationTime The expiration time, in milliseconds since the epoch.
+     * @return Whether the invoice was not tracked already.
+     */
+    public synchronized boolean track(String invoiceId, long expirationTime) {
+        Objects.requireNonNull(invoiceId, "Error - invoice id is null");
+        Entry entry = _entries.get(invoiceId);
+        boolean added = entry == null;
+        if (added) {
+            entry = new Entry(invoiceId, expirationTime);
+            _entries.put(invoiceId, entry);
+        } else {
+            entry.unlink();
+            entry._expirationTime = expirationTime;
+        }
+        place(entry);
+        return added;
+    }
+
+    /**
+     * Stop tracking an invoice, for instance once it is paid.
+     *
+     * @param invoiceId The invoice id.
+     * @return Whether the invoice was tracked.
+     */
+    public synchronized boolean cancel(String invoiceId) {
+        Entry entry = _entries.remove(invoiceId);
+        if (entry == null) {
+            return false;
+        }
+        entry.unlink();
+        return true;
+    }
+
+    /**
+     * Whether an invoice is being tracked.
+     */
+    public synchronized boolean isTracking(String invoiceId) {
+        return _entries.containsKey(invoiceId);
+    }
+
+    /**
+     * Fire the expirations that passed by the given time. The tracker thread calls this every tick.
+     *
+     * @param nowMillis The time, in milliseconds since the epoch.
+     * @return The number of expirations fired.
+     */
+    public int advance(long nowMillis) {
+        List<Entry> due = null;
+        synchronized (this) {
+            long target = Math.floorDiv(nowMillis, _tickMillis);
+            while (_tick <= target) {
+                if (_entries.isEmpty()) {
+                    _tick = target + 1;
+                    break;
+                }
+                cascade();
+                Entry head = _wheels[0][(int) (_tick & WHEEL_MASK)];
+                while (head._next != head) {
+                    Entry entry = head._next;
+                    entry.unlink();
+                    _entries.remove(entry._invoiceId);
+                    if (due == null) {
+                        due = new ArrayList<>();
+                    }
+                    due.add(entry);
+                }
+                _tick++;
+            }
+        }
+        if (due == null) {
+            return 0;
+        }
+
+        for (Entry entry : due) {
+            _expired.increment();
+            try {
+                _listener.onExpired(entry._invoiceId, entry._expirationTime);
+            } catch (Exception e) {
+                _failures.increment();
+                _log.err("Expiry: listener failed for invoice " + entry._invoiceId + " : " + e.getMessage());
+            }
+        }
+        return due.size();
+    }
+
+    // When a wheel turns over, spread the due slot of the next wheel over the wheels below it.
+    private void cascade() {
+        for (int level = 1; level < WHEELS; level++) {
+            if (((_tick >>> (WHEEL_BITS * (level - 1))) & WHEEL_MASK) != 0) {
+                return;
+            }
+            Entry head = _wheels[level][(int) ((_tick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+            Entry entry = head._next;
+            head._next = head;
+            head._prev = head;
+            while (entry != head) {
+                Entry next = entry._next;
+                place(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        long deadline = Math.max(toTick(entry._expirationTime), _tick);
+        long delta = deadline - _tick;
+        if (delta >= SPAN) {
+            deadline = _tick + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        entry.linkBefore(_wheels[level][(int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK)]);
+    }
+
+    // Round up, so that an expiration never fires before it passed
+    private long toTick(long millis) {
+        return Math.floorDiv(millis + _tickMillis - 1, _tickMillis);
+    }
+
+    /**
+     * Get the number of invoices being tracked.
+     */
+    public synchronized int getTrackedCount() {
+        return _entries.size();
+    }
+
+    /**
+     * Get the number of expirations fired.
+     */
+    public long getExpiredCount() {
+        return _expired.sum();
+    }
+
+    /**
+     * Get the number of listener calls that failed.
+     */
+    public long getFailureCount() {
+        return _failures.sum();
+    }
+
+    /**
+     * Stop the tracker thread; the tracked invoices no longer fire.
+     */
+    @Override
+    public void close() {
+        Thread thread = _thread;
+        _thread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+
+    /**
+     * A tracked invoice, linked in the list of its slot. Each slot list starts at an entry without invoice.
+     */
+    private static final class Entry {
+        final String _invoiceId;
+        long _expirationTime;
+        Entry _prev = this;
+        Entry _next = this;
+
+        Entry(String invoiceId, long expirationTime) {
+            this._invoiceId = invoiceId;
+            this._expirationTime = expirationTime;
+        }
+
+        void linkBefore(Entry head) {
+            _prev = head._prev;
+            _next = head;
+            head._prev._next = this;
+            head._prev = this;
+        }
+
+        void unlink() {
+            _prev._next = _next;
+            _next._prev = _prev;
+            _prev = this;
+            _next = this;
+        }
+    }
+}
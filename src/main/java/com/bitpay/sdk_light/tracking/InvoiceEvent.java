@@ -0,0 +1,66 @@
+package com.bitpay.sdk_light.tracking;
+
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+
+/**
+ * A change of status of an invoice, as published by an {@link InvoiceEventPublisher}.
+ */
+public final class InvoiceEvent {
+
+    private final String _invoiceId;
+    private final String _previousStatus;
+    private final String _status;
+    private final String _exceptionStatus;
+    private final long _time;
+    private final Invoice _invoice;
+
+    /**
+     * Constructor, create an invoice event.
+     *
+     * @param invoiceId       The invoice id.
+     * @param previousStatus  The status before the change, or null for the first status seen.
+     * @param status          The new status, see {@link com.bitpay.sdk_light.model.Invoice.InvoiceStatus}.
+     * @param exceptionStatus The exception status, {@code "false"} when there is none.
+     * @param time            The time BitPay reported the status, in milliseconds since the epoch.
+     * @param invoice         The fetched invoice, or null when the change comes from a notification.
+     */
+    public InvoiceEvent(String invoiceId, String previousStatus, String status, String exceptionStatus, long time,
+                        Invoice invoice) {
+        this._invoiceId = invoiceId;
+        this._previousStatus = previousStatus;
+        this._status = status;
+        this._exceptionStatus = exceptionStatus;
+        this._time = time;
+        this._invoice = invoice;
+    }
+
+    public String getInvoiceId() {
+        return _invoiceId;
+    }
+
+    public String getPreviousStatus() {
+        return _previousStatus;
+    }
+
+    public String getStatus() {
+        return _status;
+    }
+
+    public String getExceptionStatus() {
+        return _exceptionStatus;
+    }
+
+    public long getTime() {
+        return _time;
+    }
+
+    public Invoice getInvoice() {
+        return _invoice;
+    }
+
+    @Override
+    public String toString() {
+        return "InvoiceEvent{invoiceId=" + _invoiceId + ", " + _previousStatus + " -> " + _status
+                + ", exceptionStatus=" + _exceptionStatus + "}";
+    }
+}
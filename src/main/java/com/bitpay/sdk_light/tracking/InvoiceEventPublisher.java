@@ -0,0 +1,376 @@
+package com.bitpay.sdk_light.tracking;
+
+import com.bitpay.sdk_light.ipn.InvoiceNotification;
+import com.bitpay.sdk_light.ipn.VerifiedInvoiceHandler;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceStatus;
+import com.bitpay.sdk_light.util.BitPayLogger;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the status changes of invoices as a Reactive Streams {@link Publisher} of {@link InvoiceEvent}.
+ * <p>
+ * Feed it from an {@link InvoiceWatcher}, or from an {@link com.bitpay.sdk_light.ipn.IpnReceiver} through an
+ * {@link com.bitpay.sdk_light.ipn.InvoiceVerifier}: notifications are not signed, so only statuses fetched from
+ * BitPay are published. It keeps the last status of each invoice and publishes an event only when the status
+ * moves forward ({@code new}, {@code paid}, {@code confirmed}, then {@code complete}, {@code expired} or
+ * {@code invalid}), so repeated and late reports are dropped. Once an invoice's status is final, only its id is
+ * kept, so that later reports of it are dropped too. Both the invoices in progress and the final ids are bounded;
+ * beyond {@code maxInvoices}, the entries reported least recently are forgotten first.
+ * <p>
+ * Each subscriber receives events only as it requests them. Events it has not requested yet wait in a
+ * buffer of its own; a subscriber that lets its buffer fill up receives {@code onError} and is cancelled,
+ * rather than holding back the sources or the other subscribers. Events are delivered on the thread that
+ * published them or that requested them, one at a time per subscriber.
+ * <p>
+ * Requires {@code org.reactivestreams:reactive-streams} on the classpath. On Java 9 and later,
+ * {@code org.reactivestreams.FlowAdapters.toFlowPublisher} turns it into a {@code java.util.concurrent.Flow.Publisher}.
+ */
+public class InvoiceEventPublisher implements Publisher<InvoiceEvent>, InvoiceListener, VerifiedInvoiceHandler, Closeable {
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private static final int DEFAULT_MAX_INVOICES = 100000;
+
+    private final int _bufferSize;
+    private final LinkedHashMap<String, String> _statuses;
+    private final LinkedHashMap<String, Boolean> _finalized;
+    private final List<EventSubscription> _subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean _closed;
+
+    private final LongAdder _published = new LongAdder();
+    private final LongAdder _ignored = new LongAdder();
+    private final LongAdder _overflows = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+
+    /**
+     * Constructor, create a publisher that keeps up to 100000 invoices in progress and 100000 final ids.
+     *
+     * @param bufferSize The number of events each subscriber may leave unrequested before it is cancelled.
+     */
+    public InvoiceEventPublisher(int bufferSize) {
+        this(bufferSize, DEFAULT_MAX_INVOICES);
+    }
+
+    /**
+     * Constructor, create a publisher.
+     *
+     * @param bufferSize  The number of events each subscriber may leave unrequested before it is cancelled.
+     * @param maxInvoices The number of invoices in progress, and of final invoice ids, kept at most.
+     */
+    public InvoiceEventPublisher(int bufferSize, int maxInvoices) {
+        if (bufferSize < 1 || maxInvoices < 1) {
+            throw new IllegalArgumentException("Error - bufferSize and maxInvoices must be at least 1");
+        }
+        this._bufferSize = bufferSize;
+        this._statuses = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxInvoices && evicted();
+            }
+        };
+        this._finalized = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxInvoices && evicted();
+            }
+        };
+    }
+
+    private boolean evicted() {
+        _evictions.increment();
+        return true;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super InvoiceEvent> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Error - subscriber is null");
+        }
+        EventSubscription subscription = new EventSubscription(subscriber);
+        _subscriptions.add(subscription);
+        // onSubscribe goes out from the drain, so that it cannot overlap with events published meanwhile
+        subscription.drain();
+        if (_closed) {
+            subscription.complete(null);
+        }
+    }
+
+    @Override
+    public void onInvoice(Invoice invoice, boolean changed) {
+        publish(invoice.getId(), invoice.getStatus(), invoice.getExceptionStatus(), invoice.getCurrentTime(), invoice);
+    }
+
+    @Override
+    public void onVerifiedInvoice(Invoice invoice, List<InvoiceNotification> notifications) {
+        publish(invoice.getId(), invoice.getStatus(), invoice.getExceptionStatus(), invoice.getCurrentTime(), invoice);
+    }
+
+    /**
+     * Report the status of an invoice, and publish an event if it moved forward. The status must come from BitPay,
+     * not from a notification: a forged final status would hide the invoice's real events.
+     *
+     * @param invoiceId       The invoice id.
+     * @param status          The status.
+     * @param exceptionStatus The exception status.
+     * @param time            The time BitPay reported the status, in milliseconds since the epoch.
+     * @param invoice         The fetched invoice, or null.
+     * @return Whether an event was published.
+     */
+    public boolean publish(String invoiceId, String status, String exceptionStatus, long time, Invoice invoice) {
+        InvoiceEvent event;
+        // Serialized, so that all subscribers see the events in the same order
+        synchronized (this) {
+            if (_closed || status == null) {
+                return false;
+            }
+            if (_finalized.get(invoiceId) != null) {
+                _ignored.increment();
+                return false;
+            }
+            String previous = _statuses.get(invoiceId);
+            if (status.equals(previous) || rank(status) <= rank(previous)) {
+                _ignored.increment();
+                return false;
+            }
+            if (rank(status) == FINAL) {
+                _statuses.remove(invoiceId);
+                _finalized.put(invoiceId, Boolean.TRUE);
+            } else {
+                _statuses.put(invoiceId, status);
+            }
+
+            event = new InvoiceEvent(invoiceId, previous, status, exceptionStatus, time, invoice);
+            _published.increment();
+            for (EventSubscription subscription : _subscriptions) {
+                subscription.offer(event);
+            }
+        }
+        for (EventSubscription subscription : _subscriptions) {
+            subscription.drain();
+        }
+        return true;
+    }
+
+    private static final int FINAL = 3;
+
+    // Unknown statuses rank with a missing one, so they never move an invoice forward and are not published
+    private static int rank(String status) {
+        if (status == null) {
+            return -1;
+        }
+        switch (status) {
+            case InvoiceStatus.New:
+                return 0;
+            case InvoiceStatus.Paid:
+                return 1;
+            case InvoiceStatus.Confirmed:
+                return 2;
+            case InvoiceStatus.Complete:
+            case InvoiceStatus.Expired:
+            case InvoiceStatus.Invalid:
+                return FINAL;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Get the number of subscribers.
+     */
+    public int getSubscriberCount() {
+        return _subscriptions.size();
+    }
+
+    /**
+     * Get the number of invoices whose last status is known and not final.
+     */
+    public synchronized int getTrackedCount() {
+        return _statuses.size();
+    }
+
+    /**
+     * Get the number of invoices forgotten to stay within {@code maxInvoices}.
+     */
+    public long getEvictedCount() {
+        return _evictions.sum();
+    }
+
+    /**
+     * Get the number of events published.
+     */
+    public long getPublishedCount() {
+        return _published.sum();
+    }
+
+    /**
+     * Get the number of reports dropped because the status did not move forward.
+     */
+    public long getIgnoredCount() {
+        return _ignored.sum();
+    }
+
+    /**
+     * Get the number of subscribers cancelled because their buffer filled up.
+     */
+    public long getOverflowCount() {
+        return _overflows.sum();
+    }
+
+    /**
+     * Stop publishing. Subscribers receive {@code onComplete} once they consumed their buffered events.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            _closed = true;
+            _statuses.clear();
+            _finalized.clear();
+        }
+        for (EventSubscription subscription : _subscriptions) {
+            subscription.complete(null);
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+
+    /**
+     * The buffer and demand of one subscriber. All signals, {@code onSubscribe} included, go out from
+     * {@link #drain()}, which only one thread runs at a time; other threads leave their work to it. The drain
+     * never runs under the publisher's lock.
+     */
+    private final class EventSubscription implements Subscription {
+        private final Subscriber<? super InvoiceEvent> _subscriber;
+        private final ArrayBlockingQueue<InvoiceEvent> _buffer = new ArrayBlockingQueue<>(_bufferSize);
+        private final AtomicLong _requested = new AtomicLong();
+        private final AtomicInteger _work = new AtomicInteger();
+        private volatile boolean _done;
+        private volatile Throwable _error;
+        private volatile boolean _cancelled;
+        private boolean _subscribed;
+
+        EventSubscription(Subscriber<? super InvoiceEvent> subscriber) {
+            this._subscriber = subscriber;
+        }
+
+        void offer(InvoiceEvent event) {
+            if (_done || _cancelled) {
+                return;
+            }
+            if (!_buffer.offer(event)) {
+                _overflows.increment();
+                _log.warn("Events: subscriber fell behind by " + _bufferSize + " events, cancelling it");
+                // Called under the publisher's lock: the error goes out from the next drain
+                terminate(new IllegalStateException("Error - subscriber fell behind by more than " + _bufferSize + " events"));
+            }
+        }
+
+        void complete(Throwable error) {
+            if (terminate(error)) {
+                drain();
+            }
+        }
+
+        private synchronized boolean terminate(Throwable error) {
+            if (_done) {
+                return false;
+            }
+            _error = error;
+            _done = true;
+            return true;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Reactive Streams rule 3.9
+                complete(new IllegalArgumentException("Error - request must be positive, was " + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = _requested.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!_requested.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            _cancelled = true;
+            _subscriptions.remove(this);
+            _buffer.clear();
+        }
+
+        void drain() {
+            if (_work.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            if (!_subscribed) {
+                _subscribed = true;
+                _subscriber.onSubscribe(this);
+            }
+            do {
+                long requested = _requested.get();
+                long emitted = 0;
+                while (!_cancelled) {
+                    Throwable error = _error;
+                    if (_done && error != null) {
+                        cancel();
+                        _subscriber.onError(error);
+                        return;
+                    }
+                    if (emitted == requested) {
+                        break;
+                    }
+                    InvoiceEvent event = _buffer.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    try {
+                        _subscriber.onNext(event);
+                    } catch (RuntimeException e) {
+                        // Reactive Streams rule 2.13: the subscriber is broken, stop talking to it
+                        _log.err("Events: subscriber failed on " + event + " : " + e.getMessage());
+                        cancel();
+                        return;
+                    }
+                    emitted++;
+                }
+                if (_cancelled) {
+                    return;
+                }
+                if (_done && _buffer.isEmpty()) {
+                    cancel();
+                    _subscriber.onComplete();
+                    return;
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE) {
+                    _requested.addAndGet(-emitted);
+                }
+                missed = _work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.bitpay.sdk_light.tracking;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+
+/**
+ * Receives the invoices fetched by an {@link InvoiceWatcher}.
+ */
+public interface InvoiceListener {
+
+    /**
+     * Called with every fetch of a watched invoice, on a watcher thread.
+     *
+     * @param invoice The invoice as BitPay reports it now.
+     * @param changed Whether its status or exception status changed since the previous fetch.
+     * @throws Exception If the invoice could not be handled; the watcher logs it and keeps watching.
+     */
+    void onInvoice(Invoice invoice, boolean changed) throws Exception;
+
+    /**
+     * Called when a fetch failed; the watcher retries it later, also if this method throws.
+     *
+     * @param invoiceId The invoice id.
+     * @param e         The failure.
+     */
+    default void onFetchFailed(String invoiceId, BitPayException e) {
+    }
+}
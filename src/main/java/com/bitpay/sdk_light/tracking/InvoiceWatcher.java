@@ -0,0 +1,319 @@
+package com.bitpay.sdk_light.tracking;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.util.BitPayLogger;
+
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls invoices with {@link Client#getInvoice(String)} until they reach a final status, and hands every fetch
+ * to an {@link InvoiceListener}.
+ * <p>
+ * The time of the next poll comes from a {@link PollingPolicy}: invoices about to expire or confirming are
+ * polled often, the others less and less often while nothing changes. All polls share one
+ * {@link RequestBudget}; when it is spent, a due poll reserves the next free slot and waits for it, so the
+ * watcher never sends more than the budget allows however many invoices it watches.
+ */
+public class InvoiceWatcher implements Closeable {
+
+    private static final AtomicInteger WATCHER_COUNT = new AtomicInteger();
+
+    private static BitPayLogger _log = new BitPayLogger(BitPayLogger.OFF);
+
+    private final Client _client;
+    private final InvoiceListener _listener;
+    private final PollingPolicy _policy;
+    private final RequestBudget _budget;
+    private final ScheduledThreadPoolExecutor _pollers;
+    private final ConcurrentHashMap<String, Watch> _watches = new ConcurrentHashMap<>();
+
+    private final LongAdder _polls = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private final LongAdder _throttled = new LongAdder();
+    private final LongAdder _finished = new LongAdder();
+
+    /**
+     * Constructor, create a watcher with the default polling policy.
+     *
+     * @param client            The client to fetch invoices with.
+     * @param listener          The listener fetched invoices are delivered to.
+     * @param requestsPerSecond The most invoices to fetch per second, across all watched invoices.
+     * @param pollers           The number of threads fetching invoices.
+     */
+    public InvoiceWatcher(Client client, InvoiceListener listener, double requestsPerSecond, int pollers) {
+        this(client, listener, new PollingPolicy(), new RequestBudget(requestsPerSecond, pollers), pollers);
+    }
+
+    /**
+     * Constructor, create a watcher.
+     *
+     * @param client   The client to fetch invoices with.
+     * @param listener The listener fetched invoices are delivered to.
+     * @param policy   The policy deciding when each invoice is polled next.
+     * @param budget   The request budget the polls are taken from; it may be shared with other components.
+     * @param pollers  The number of threads fetching invoices.
+     */
+    public InvoiceWatcher(Client client, InvoiceListener listener, PollingPolicy policy, RequestBudget budget, int pollers) {
+        this._client = client;
+        this._listener = listener;
+        this._policy = policy;
+        this._budget = budget;
+        this._pollers = new ScheduledThreadPoolExecutor(pollers, newThreadFactory());
+        this._pollers.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Start watching an invoice, polling it first within the given delay.
+     *
+     * @param invoiceId The invoice id.
+     * @param delay     The longest delay before the first poll; the actual delay is spread below it.
+     * @param unit      The unit of the delay.
+     * @return Whether the invoice was not watched already.
+     */
+    public boolean watch(String invoiceId, long delay, TimeUnit unit) {
+        Objects.requireNonNull(invoiceId, "Error - invoice id is null");
+        Watch watch = new Watch(invoiceId);
+        if (_watches.putIfAbsent(invoiceId, watch) != null) {
+            return false;
+        }
+        long delayMillis = unit.toMillis(delay);
+        schedule(watch, delayMillis > 0 ? (long) (delayMillis * Math.random()) : 0, false);
+        return true;
+    }
+
+    /**
+     * Start watching an invoice just created or fetched, scheduling its first poll from its state.
+     *
+     * @param invoice The invoice.
+     * @return Whether the invoice was not watched already; an invoice in a final status is not watched.
+     */
+    public boolean watch(Invoice invoice) {
+        long delay = _policy.nextDelayMillis(invoice, 0);
+        if (delay < 0) {
+            return false;
+        }
+        Watch watch = new Watch(invoice.getId());
+        watch._status = invoice.getStatus();
+        watch._exceptionStatus = String.valueOf(invoice.getExceptionStatus());
+        if (_watches.putIfAbsent(watch._invoiceId, watch) != null) {
+            return false;
+        }
+        schedule(watch, delay, false);
+        return true;
+    }
+
+    /**
+     * Stop watching an invoice.
+     *
+     * @param invoiceId The invoice id.
+     * @return Whether the invoice was watched.
+     */
+    public boolean unwatch(String invoiceId) {
+        Watch watch = _watches.remove(invoiceId);
+        if (watch == null) {
+            return false;
+        }
+        watch.cancel();
+        return true;
+    }
+
+    /**
+     * Whether an invoice is being watched.
+     */
+    public boolean isWatching(String invoiceId) {
+        return _watches.containsKey(invoiceId);
+    }
+
+    private void schedule(Watch watch, long delayMillis, boolean reserved) {
+        try {
+            ScheduledFuture<?> next = _pollers.schedule(() -> poll(watch, reserved), delayMillis, TimeUnit.MILLISECONDS);
+            watch.setNext(next);
+        } catch (RejectedExecutionException e) {
+            // Closing
+            _watches.remove(watch._invoiceId, watch);
+        }
+    }
+
+    private void poll(Watch watch, boolean reserved) {
+        if (watch._cancelled) {
+            return;
+        }
+        if (!reserved) {
+            long waitNanos = _budget.reserve();
+            if (waitNanos > 0) {
+                _throttled.increment();
+                schedule(watch, TimeUnit.NANOSECONDS.toMillis(waitNanos), true);
+                return;
+            }
+        }
+
+        _polls.increment();
+        Invoice invoice;
+        try {
+            invoice = _client.getInvoice(watch._invoiceId);
+        } catch (BitPayException e) {
+            _failures.increment();
+            _log.err("Watcher: failed to fetch invoice " + watch._invoiceId + " : " + e.getMessage());
+            try {
+                _listener.onFetchFailed(watch._invoiceId, e);
+            } catch (Exception le) {
+                _log.err("Watcher: listener failed for invoice " + watch._invoiceId + " : " + le.getMessage());
+            } finally {
+                if (!watch._cancelled) {
+                    schedule(watch, _policy.retryDelayMillis(++watch._failedPolls), false);
+                }
+            }
+            return;
+        }
+        watch._failedPolls = 0;
+
+        String status = invoice.getStatus();
+        String exceptionStatus = String.valueOf(invoice.getExceptionStatus());
+        boolean changed = !Objects.equals(status, watch._status) || !exceptionStatus.equals(watch._exceptionStatus);
+        watch._status = status;
+        watch._exceptionStatus = exceptionStatus;
+        watch._unchangedPolls = changed ? 0 : watch._unchangedPolls + 1;
+
+        try {
+            _listener.onInvoice(invoice, changed);
+        } catch (Exception e) {
+            _log.err("Watcher: listener failed for invoice " + watch._invoiceId + " : " + e.getMessage());
+        }
+
+        long delay = _policy.nextDelayMillis(invoice, watch._unchangedPolls);
+        if (delay < 0) {
+            if (_watches.remove(watch._invoiceId, watch)) {
+                _finished.increment();
+            }
+        } else if (!watch._cancelled) {
+            schedule(watch, delay, false);
+        }
+    }
+
+    /**
+     * Get the number of invoices being watched.
+     */
+    public int getWatchedCount() {
+        return _watches.size();
+    }
+
+    /**
+     * Get the number of invoice fetches.
+     */
+    public long getPollCount() {
+        return _polls.sum();
+    }
+
+    /**
+     * Get the number of fetches that failed.
+     */
+    public long getFailureCount() {
+        return _failures.sum();
+    }
+
+    /**
+     * Get the number of polls that had to wait for the request budget.
+     */
+    public long getThrottledCount() {
+        return _throttled.sum();
+    }
+
+    /**
+     * Get the number of invoices no longer watched because they reached a final status.
+     */
+    public long getFinishedCount() {
+        return _finished.sum();
+    }
+
+    /**
+     * Stop polling, and wait for the fetches in progress to complete.
+     *
+     * @param timeout The longest time to wait.
+     * @param unit    The unit of the timeout.
+     * @return Whether the fetches in progress completed within the timeout.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        for (Watch watch : _watches.values()) {
+            watch._cancelled = true;
+        }
+        _pollers.shutdownNow();
+        _watches.clear();
+        return _pollers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stop polling, and wait up to 30 seconds for the fetches in progress to complete.
+     */
+    @Override
+    public void close() {
+        try {
+            close(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets the logger level of reporting.
+     *
+     * @param loggerLevel int BitPayLogger constant (OFF, INFO, WARN, ERR, DEBUG)
+     */
+    public void setLoggerLevel(int loggerLevel) {
+        _log = new BitPayLogger(loggerLevel);
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        String prefix = "bitpay-watcher-" + WATCHER_COUNT.incrementAndGet() + "-";
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The polling state of one invoice. Only one poll of an invoice is scheduled at a time, so the fields are
+     * only written by the poll in progress.
+     */
+    private static final class Watch {
+        final String _invoiceId;
+        volatile boolean _cancelled;
+        volatile ScheduledFuture<?> _next;
+        String _status;
+        String _exceptionStatus;
+        int _unchangedPolls;
+        int _failedPolls;
+
+        Watch(String invoiceId) {
+            this._invoiceId = invoiceId;
+        }
+
+        void setNext(ScheduledFuture<?> next) {
+            _next = next;
+            if (_cancelled) {
+                next.cancel(false);
+            }
+        }
+
+        void cancel() {
+            _cancelled = true;
+            ScheduledFuture<?> next = _next;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.bitpay.sdk_light.tracking;
+
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceStatus;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when an {@link InvoiceWatcher} polls an invoice next, from the invoice's last known state.
+ * <ul>
+ * <li>A {@code new} invoice is polled more often as its expiration time approaches, and then once shortly
+ * after it, to see it paid or expired.</li>
+ * <li>A {@code paid} invoice is confirming, and is polled at the confirming interval, shorter when it needs
+ * fewer confirmations.</li>
+ * <li>A {@code confirmed} invoice is waiting to complete, and is polled at the settling interval.</li>
+ * <li>{@code complete}, {@code expired} and {@code invalid} are final: the invoice is no longer polled.</li>
+ * </ul>
+ * Every poll that finds the invoice unchanged doubles the interval, up to eight times and the maximum
+ * interval, except in the last minutes before expiry. A random jitter spreads polls that would otherwise line
+ * up.
+ */
+public class PollingPolicy {
+
+    private long _minIntervalMillis = 2_000;
+    private long _maxIntervalMillis = 300_000;
+    private long _nearExpiryMillis = 120_000;
+    private long _confirmingIntervalMillis = 60_000;
+    private long _settlingIntervalMillis = 120_000;
+    private double _jitter = 0.2;
+
+    /**
+     * Whether an invoice in this status will not change anymore.
+     *
+     * @param status The invoice status.
+     * @return Whether the status is final.
+     */
+    public boolean isFinal(String status) {
+        return InvoiceStatus.Complete.equals(status) || InvoiceStatus.Expired.equals(status)
+                || InvoiceStatus.Invalid.equals(status);
+    }
+
+    /**
+     * Get the delay until the next poll.
+     *
+     * @param invoice        The invoice as last fetched.
+     * @param unchangedPolls The number of consecutive polls that found the status unchanged.
+     * @return The delay in milliseconds, or -1 to stop polling.
+     */
+    public long nextDelayMillis(Invoice invoice, int unchangedPolls) {
+        String status = invoice.getStatus();
+        if (isFinal(status)) {
+            return -1;
+        }
+
+        long now = invoice.getCurrentTime() > 0 ? invoice.getCurrentTime() : System.currentTimeMillis();
+        long base;
+        boolean backOff = true;
+        if (InvoiceStatus.New.equals(status)) {
+            long remaining = invoice.getExpirationTime() - now;
+            if (remaining <= 0) {
+                // Expired by the clock, waiting for the server to say so
+                base = _minIntervalMillis * 2;
+                backOff = false;
+            } else if (remaining <= _nearExpiryMillis) {
+                base = Math.min(remaining + _minIntervalMillis, Math.max(_minIntervalMillis, remaining / 4));
+                backOff = false;
+            } else {
+                base = Math.max(_minIntervalMillis, (remaining - _nearExpiryMillis) / 4);
+            }
+        } else if (InvoiceStatus.Paid.equals(status)) {
+            long confirmations = Math.max(1, invoice.getTargetConfirmations());
+            base = Math.min(_confirmingIntervalMillis * confirmations, _settlingIntervalMillis);
+        } else if (InvoiceStatus.Confirmed.equals(status)) {
+            base = _settlingIntervalMillis;
+        } else {
+            base = _maxIntervalMillis;
+        }
+
+        if (backOff) {
+            base <<= Math.min(unchangedPolls, 3);
+        }
+        return jitter(Math.max(_minIntervalMillis, Math.min(base, _maxIntervalMillis)));
+    }
+
+    /**
+     * Get the delay before retrying after a failed poll.
+     *
+     * @param failedPolls The number of consecutive failed polls, at least 1.
+     * @return The delay in milliseconds.
+     */
+    public long retryDelayMillis(int failedPolls) {
+        return jitter(Math.min(_minIntervalMillis << Math.min(failedPolls, 16), _maxIntervalMillis));
+    }
+
+    /**
+     * Spread a delay by up to the jitter fraction either way.
+     */
+    public long jitter(long delayMillis) {
+        if (_jitter <= 0) {
+            return delayMillis;
+        }
+        double factor = 1 + _jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (delayMillis * factor);
+    }
+
+    public long getMinIntervalMillis() {
+        return _minIntervalMillis;
+    }
+
+    public void setMinIntervalMillis(long minIntervalMillis) {
+        this._minIntervalMillis = minIntervalMillis;
+    }
+
+    public long getMaxIntervalMillis() {
+        return _maxIntervalMillis;
+    }
+
+    public void setMaxIntervalMillis(long maxIntervalMillis) {
+        this._maxIntervalMillis = maxIntervalMillis;
+    }
+
+    public long getNearExpiryMillis() {
+        return _nearExpiryMillis;
+    }
+
+    public void setNearExpiryMillis(long nearExpiryMillis) {
+        this._nearExpiryMillis = nearExpiryMillis;
+    }
+
+    public long getConfirmingIntervalMillis() {
+        return _confirmingIntervalMillis;
+    }
+
+    public void setConfirmingIntervalMillis(long confirmingIntervalMillis) {
+        this._confirmingIntervalMillis = confirmingIntervalMillis;
+    }
+
+    public long getSettlingIntervalMillis() {
+        return _settlingIntervalMillis;
+    }
+
+    public void setSettlingIntervalMillis(long settlingIntervalMillis) {
+        this._settlingIntervalMillis = settlingIntervalMillis;
+    }
+
+    public double getJitter() {
+        return _jitter;
+    }
+
+    /**
+     * Set the jitter, as a fraction of the delay: 0.2 spreads delays by up to 20% either way, 0 disables it.
+     */
+    public void setJitter(double jitter) {
+        this._jitter = jitter;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bitpay.sdk_light.tracking;
+
+/**
+ * A token bucket that caps the rate of outgoing requests shared by several components.
+ * <p>
+ * Callers reserve a slot instead of polling for a free one: {@link #reserve()} returns how long to wait before
+ * the request may be sent, and later callers queue behind earlier ones. Up to {@code burst} requests may go out
+ * at once after an idle period.
+ */
+public class RequestBudget {
+
+    private final double _intervalNanos;
+    private final double _burst;
+
+    private double _permits;
+    private long _lastRefill;
+
+    /**
+     * Constructor, create a request budget.
+     *
+     * @param requestsPerSecond The sustained request rate.
+     * @param burst             The number of requests that may be sent at once after an idle period, at least 1.
+     */
+    public RequestBudget(double requestsPerSecond, int burst) {
+        if (requestsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Error - requestsPerSecond must be positive and burst at least 1");
+        }
+        this._intervalNanos = 1e9 / requestsPerSecond;
+        this._burst = burst;
+        this._permits = burst;
+        this._lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Reserve the next request slot.
+     *
+     * @return The time to wait before sending the request, in nanoseconds; 0 to send it now.
+     */
+    public synchronized long reserve() {
+        refill();
+        _permits -= 1;
+        return _permits >= 0 ? 0 : (long) (-_permits * _intervalNanos);
+    }
+
+    /**
+     * Take a request slot if one is free now, without reserving a later one.
+     *
+     * @return Whether the request may be sent.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (_permits < 1) {
+            return false;
+        }
+        _permits -= 1;
+        return true;
+    }
+
+    /**
+     * Get the sustained request rate.
+     */
+    public double getRequestsPerSecond() {
+        return 1e9 / _intervalNanos;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        _permits = Math.min(_burst, _permits + (now - _lastRefill) / _intervalNanos);
+        _lastRefill = now;
+    }
+}
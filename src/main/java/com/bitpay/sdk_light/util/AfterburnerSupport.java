@@ -0,0 +1,22 @@
+package com.bitpay.sdk_light.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+/**
+ * Isolates the optional Afterburner dependency, so that classes referring to this one still load when
+ * {@code jackson-module-afterburner} is absent from the classpath.
+ */
+public class AfterburnerSupport {
+
+    /**
+     * Register the Afterburner module on a mapper.
+     *
+     * @param mapper The mapper to accelerate.
+     * @return The same mapper.
+     * @throws NoClassDefFoundError If Afterburner is not on the classpath.
+     */
+    public static ObjectMapper register(ObjectMapper mapper) {
+        return mapper.registerModule(new AfterburnerModule());
+    }
+}
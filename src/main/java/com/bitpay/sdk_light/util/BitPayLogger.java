@@ -12,27 +12,6 @@ public class BitPayLogger {
 
     public BitPayLogger(int level) {
         _level = level;
-
-        String strLevel;
-        switch (level) {
-            case 0:
-                strLevel = "OFF";
-                break;
-            case 1:
-                strLevel = "INFO";
-                break;
-            case 2:
-                strLevel = "WARN";
-                break;
-            case 3:
-                strLevel = "ERR";
-                break;
-            case 4:
-            default:
-                strLevel = "DEBUG";
-                break;
-        }
-        System.out.println("Logging level set to: " + strLevel);
     }
 
     public void info(String message) {
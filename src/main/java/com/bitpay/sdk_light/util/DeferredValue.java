@@ -0,0 +1,93 @@
+package com.bitpay.sdk_light.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A JSON value that is bound to its model type on first access.
+ * <p>
+ * When the document was read from a String the value is kept as a UTF-8 copy of its text; otherwise it is kept
+ * as buffered tokens. Either way only the value is kept, not the rest of the document, and it is bound with the
+ * mapper that read the document, so registered codecs and modules apply as they would have to an eager read.
+ * <p>
+ * The value was read through when it was skipped, so truncated or malformed JSON fails with the document. A
+ * value that does not fit the model type only fails when it is bound, with an {@link IllegalStateException}
+ * from {@link #get()}.
+ *
+ * @param <T> The model type.
+ */
+public final class DeferredValue<T> {
+
+    private final JavaType _type;
+    private ObjectCodec _codec;
+    private byte[] _json;
+    private TokenBuffer _tokens;
+    private T _value;
+
+    /**
+     * Constructor, defer a range of a JSON document. The range is copied, so the document is not kept.
+     *
+     * @param codec  The mapper or reader that read the document.
+     * @param source The document.
+     * @param offset The offset of the value in the document.
+     * @param length The length of the value.
+     * @param type   The model type.
+     */
+    public DeferredValue(ObjectCodec codec, String source, int offset, int length, JavaType type) {
+        this._codec = codec;
+        this._json = source.substring(offset, offset + length).getBytes(StandardCharsets.UTF_8);
+        this._type = type;
+    }
+
+    /**
+     * Constructor, defer buffered tokens.
+     *
+     * @param tokens The tokens of the value, holding the mapper or reader that read them.
+     * @param type   The model type.
+     */
+    public DeferredValue(TokenBuffer tokens, JavaType type) {
+        this._codec = tokens.getCodec();
+        this._tokens = tokens;
+        this._type = type;
+    }
+
+    /**
+     * Bind the value, once; later calls return the same instance.
+     *
+     * @return The bound value.
+     * @throws IllegalStateException If the value cannot be bound to the model type.
+     */
+    public synchronized T get() {
+        if (_codec != null) {
+            ObjectReader reader = reader(_codec);
+            try (JsonParser p = _tokens != null ? _tokens.asParser() : reader.getFactory().createParser(_json)) {
+                p.nextToken();
+                _value = reader.readValue(p);
+            } catch (IOException e) {
+                throw new IllegalStateException("Error - failed to deserialize BitPay server response (" + _type.getRawClass().getSimpleName() + ") : " + e.getMessage(), e);
+            }
+            _codec = null;
+            _json = null;
+            _tokens = null;
+        }
+        return _value;
+    }
+
+    private ObjectReader reader(ObjectCodec codec) {
+        if (codec instanceof ObjectReader) {
+            // A reader from readerForUpdating() would try to bind the value into the object being updated
+            return ((ObjectReader) codec).withValueToUpdate(null).forType(_type);
+        }
+        if (codec instanceof ObjectMapper) {
+            return ((ObjectMapper) codec).readerFor(_type);
+        }
+        return new ObjectMapper().readerFor(_type);
+    }
+}
@@ -0,0 +1,104 @@
+package com.bitpay.sdk_light.util;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of growable byte buffers that request bodies are serialized into, so that steady-state
+ * requests reuse the same few arrays instead of allocating new ones.
+ * <p>
+ * The body's bytes are not allocated per request, but serializing still is not free of garbage: Jackson
+ * creates a generator, its {@code IOContext} and a serializer provider for each body, and bill item prices
+ * are formatted through {@code Double.toString}. {@code RequestBodyBenchmark} measures about 450 bytes per
+ * invoice body and 930 per bill, against about 2 and 4 KB through a String.
+ * <p>
+ * The pool is not tied to threads, so it works the same for platform and virtual threads. When it is empty a
+ * new buffer is allocated, and buffers that grew beyond the retained size are dropped on release rather than
+ * pinned in memory.
+ */
+public final class JsonBufferPool {
+
+    /**
+     * The pool shared by all clients.
+     */
+    public static final JsonBufferPool SHARED = new JsonBufferPool(Runtime.getRuntime().availableProcessors() * 2, 8 * 1024, 256 * 1024);
+
+    private final ArrayBlockingQueue<Buffer> _free;
+    private final int _initialSize;
+    private final int _maxRetainedSize;
+
+    /**
+     * Constructor, create a buffer pool.
+     *
+     * @param maxBuffers      The number of idle buffers kept.
+     * @param initialSize     The size of a new buffer, in bytes.
+     * @param maxRetainedSize The size above which a released buffer is dropped, in bytes.
+     */
+    public JsonBufferPool(int maxBuffers, int initialSize, int maxRetainedSize) {
+        this._free = new ArrayBlockingQueue<>(maxBuffers);
+        this._initialSize = initialSize;
+        this._maxRetainedSize = maxRetainedSize;
+    }
+
+    /**
+     * Take an empty buffer from the pool, or allocate one.
+     */
+    public Buffer acquire() {
+        Buffer buffer = _free.poll();
+        return buffer != null ? buffer : new Buffer(_initialSize);
+    }
+
+    /**
+     * Return a buffer to the pool. The buffer must not be used afterwards.
+     */
+    public void release(Buffer buffer) {
+        buffer._count = 0;
+        if (buffer._bytes.length <= _maxRetainedSize) {
+            _free.offer(buffer);
+        }
+    }
+
+    /**
+     * A growable byte buffer, written as an output stream.
+     */
+    public static final class Buffer extends OutputStream {
+
+        private byte[] _bytes;
+        private int _count;
+
+        private Buffer(int size) {
+            this._bytes = new byte[size];
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(_count + 1);
+            _bytes[_count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(_count + len);
+            System.arraycopy(b, off, _bytes, _count, len);
+            _count += len;
+        }
+
+        /**
+         * Write the buffered bytes to a stream.
+         */
+        public void writeTo(OutputStream out) throws java.io.IOException {
+            out.write(_bytes, 0, _count);
+        }
+
+        public int size() {
+            return _count;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > _bytes.length) {
+                _bytes = Arrays.copyOf(_bytes, Math.max(capacity, _bytes.length * 2));
+            }
+        }
+    }
+}
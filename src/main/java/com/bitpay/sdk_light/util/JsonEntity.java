@@ -0,0 +1,113 @@
+package com.bitpay.sdk_light.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A request body that serializes a model object as JSON, without building the JSON as a String first.
+ * <p>
+ * By default the object is serialized straight into the connection's output stream while the request is sent,
+ * with chunked transfer encoding since the length is not known up front. After {@link #buffer(JsonBufferPool)}
+ * it is serialized once into a pooled buffer and sent with a Content-Length; {@link #release()} then returns
+ * the buffer to its pool once the request has completed. The entity is repeatable either way.
+ */
+public class JsonEntity extends AbstractHttpEntity {
+
+    private final ObjectWriter _writer;
+    private final Object _value;
+    private JsonBufferPool _pool;
+    private JsonBufferPool.Buffer _buffer;
+
+    /**
+     * Constructor, create a JSON request body.
+     *
+     * @param writer The writer to serialize with, e.g. {@code mapper.writer()}.
+     * @param value  The object to serialize.
+     */
+    public JsonEntity(ObjectWriter writer, Object value) {
+        this._writer = writer;
+        this._value = value;
+    }
+
+    /**
+     * Serialize the object now, into a buffer taken from a pool.
+     *
+     * @param pool The pool to take the buffer from.
+     * @return This entity.
+     * @throws IOException If the object cannot be serialized.
+     */
+    public JsonEntity buffer(JsonBufferPool pool) throws IOException {
+        JsonBufferPool.Buffer buffer = pool.acquire();
+        try {
+            serialize(buffer);
+        } catch (IOException | RuntimeException e) {
+            pool.release(buffer);
+            throw e;
+        }
+        release();
+        this._pool = pool;
+        this._buffer = buffer;
+        return this;
+    }
+
+    /**
+     * Return the buffer to its pool, if the entity was buffered. The entity streams again afterwards.
+     */
+    public void release() {
+        if (_buffer != null) {
+            _pool.release(_buffer);
+            _buffer = null;
+            _pool = null;
+        }
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (_buffer != null) {
+            _buffer.writeTo(out);
+        } else {
+            serialize(out);
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public long getContentLength() {
+        return _buffer != null ? _buffer.size() : -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return _buffer == null;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    private void serialize(OutputStream out) throws IOException {
+        // The caller owns the stream: close the generator, not the stream
+        try (JsonGenerator g = _writer.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            _writer.writeValue(g, _value);
+        }
+    }
+}
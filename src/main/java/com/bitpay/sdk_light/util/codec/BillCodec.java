@@ -0,0 +1,128 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Bill.Bill;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class BillCodec extends JsonCodec<Bill> implements JsonWriterCodec<Bill> {
+
+    public static final BillCodec INSTANCE = new BillCodec();
+
+    private BillCodec() {
+        super(Bill.class, true);
+    }
+
+    @Override
+    protected Bill newInstance() {
+        return new Bill();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, Bill target, String name) throws IOException {
+        switch (name) {
+            // API fields
+            case "token":
+                target.setToken(readString(p, ctxt));
+                break;
+
+            // Required fields
+            case "currency":
+                try {
+                    target.setCurrency(readString(p, ctxt));
+                } catch (BitPayException e) {
+                    throw wrapSetterFailure(p, e);
+                }
+                break;
+            case "email":
+                target.setEmail(readString(p, ctxt));
+                break;
+            case "items":
+                target.setItems(readList(p, ctxt, ItemCodec.INSTANCE));
+                break;
+
+            // Optional fields
+            case "number":
+                target.setNumber(readString(p, ctxt));
+                break;
+            case "name":
+                target.setName(readString(p, ctxt));
+                break;
+            case "address1":
+                target.setAddress1(readString(p, ctxt));
+                break;
+            case "address2":
+                target.setAddress2(readString(p, ctxt));
+                break;
+            case "city":
+                target.setCity(readString(p, ctxt));
+                break;
+            case "state":
+                target.setState(readString(p, ctxt));
+                break;
+            case "zip":
+                target.setZip(readString(p, ctxt));
+                break;
+            case "country":
+                target.setCountry(readString(p, ctxt));
+                break;
+            case "cc":
+                target.setCc(readStringList(p, ctxt));
+                break;
+            case "phone":
+                target.setPhone(readString(p, ctxt));
+                break;
+            case "dueDate":
+                target.setDueDate(readString(p, ctxt));
+                break;
+            case "passProcessingFee":
+                target.setPassProcessingFee(readBoolean(p, ctxt));
+                break;
+
+            // Response fields
+            case "status":
+                target.setStatus(readString(p, ctxt));
+                break;
+            case "url":
+                target.setUrl(readString(p, ctxt));
+                break;
+            case "createDate":
+                target.setCreateDate(readString(p, ctxt));
+                break;
+            case "id":
+                target.setId(readString(p, ctxt));
+                break;
+            case "merchant":
+                target.setMerchant(readString(p, ctxt));
+                break;
+
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+
+    @Override
+    public void write(JsonGenerator g, Bill value) throws IOException {
+        g.writeStartObject();
+        writeNonDefault(g, "token", value.getToken());
+        g.writeStringField("currency", value.getCurrency());
+        writeNonDefault(g, "email", value.getEmail());
+        writeNonDefault(g, "items", value.getItems(), ItemCodec.INSTANCE);
+        writeNonDefault(g, "number", value.getNumber());
+        writeNonDefault(g, "name", value.getName());
+        writeNonDefault(g, "address1", value.getAddress1());
+        writeNonDefault(g, "address2", value.getAddress2());
+        writeNonDefault(g, "city", value.getCity());
+        writeNonDefault(g, "state", value.getState());
+        writeNonDefault(g, "zip", value.getZip());
+        writeNonDefault(g, "country", value.getCountry());
+        writeNonDefault(g, "cc", value.getCc());
+        writeNonDefault(g, "phone", value.getPhone());
+        writeNonDefault(g, "dueDate", value.getDueDate());
+        writeNonDefault(g, "passProcessingFee", value.getPassProcessingFee());
+        g.writeEndObject();
+    }
+}
@@ -0,0 +1,76 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.Buyer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class BuyerCodec extends JsonCodec<Buyer> implements JsonWriterCodec<Buyer> {
+
+    public static final BuyerCodec INSTANCE = new BuyerCodec();
+
+    private BuyerCodec() {
+        super(Buyer.class, true);
+    }
+
+    @Override
+    protected Buyer newInstance() {
+        return new Buyer();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, Buyer target, String name) throws IOException {
+        switch (name) {
+            case "name":
+                target.setName(readString(p, ctxt));
+                break;
+            case "address1":
+                target.setAddress1(readString(p, ctxt));
+                break;
+            case "address2":
+                target.setAddress2(readString(p, ctxt));
+                break;
+            case "locality":
+                target.setLocality(readString(p, ctxt));
+                break;
+            case "region":
+                target.setRegion(readString(p, ctxt));
+                break;
+            case "postalCode":
+                target.setPostalCode(readString(p, ctxt));
+                break;
+            case "country":
+                target.setCountry(readString(p, ctxt));
+                break;
+            case "email":
+                target.setEmail(readString(p, ctxt));
+                break;
+            case "phone":
+                target.setPhone(readString(p, ctxt));
+                break;
+            case "notify":
+                target.setNotify(readBoolean(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+
+    @Override
+    public void write(JsonGenerator g, Buyer value) throws IOException {
+        g.writeStartObject();
+        writeNonDefault(g, "name", value.getName());
+        writeNonDefault(g, "address1", value.getAddress1());
+        writeNonDefault(g, "address2", value.getAddress2());
+        writeNonDefault(g, "locality", value.getLocality());
+        writeNonDefault(g, "region", value.getRegion());
+        writeNonDefault(g, "postalCode", value.getPostalCode());
+        writeNonDefault(g, "country", value.getCountry());
+        writeNonDefault(g, "email", value.getEmail());
+        writeNonDefault(g, "phone", value.getPhone());
+        writeNonDefault(g, "notify", value.getNotify());
+        g.writeEndObject();
+    }
+}
@@ -0,0 +1,110 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.ExchangeRates;
+import com.bitpay.sdk_light.model.Invoice.InvoiceSummary;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Registers the streaming model codecs on an {@link com.fasterxml.jackson.databind.ObjectMapper}, so that
+ * the model classes are bound without building bean serializers and deserializers.
+ * <p>
+ * Only the request models ({@code Invoice}, {@code Buyer}, {@code Bill}, {@code Item}) have a
+ * {@link JsonWriterCodec} and get a serializer; the response-only models have no serializable properties.
+ */
+public class CodecModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public CodecModule() {
+        super("BitPayCodecModule", Version.unknownVersion());
+
+        addWriter(InvoiceCodec.INSTANCE);
+        addWriter(BuyerCodec.INSTANCE);
+        addWriter(BillCodec.INSTANCE);
+        addWriter(ItemCodec.INSTANCE);
+
+        addReader(InvoiceCodec.INSTANCE);
+        addReader(BuyerCodec.INSTANCE);
+        addReader(InvoiceTransactionCodec.INSTANCE);
+        addReader(InvoiceBuyerProvidedInfoCodec.INSTANCE);
+        addReader(SupportedTransactionCurrenciesCodec.INSTANCE);
+        addReader(SupportedTransactionCurrencyCodec.INSTANCE);
+        addReader(MinerFeesCodec.INSTANCE);
+        addReader(MinerFeesItemCodec.INSTANCE);
+        addReader(ShopperCodec.INSTANCE);
+        addReader(RefundInfoCodec.INSTANCE);
+        addReader(BillCodec.INSTANCE);
+        addReader(ItemCodec.INSTANCE);
+        addReader(RateCodec.INSTANCE);
+
+        addDeserializer(InvoiceSummary.class, new InvoiceSummaryDeserializer());
+        addDeserializer(ExchangeRates.class, new ExchangeRatesDeserializer());
+    }
+
+    private <T> void addWriter(JsonWriterCodec<T> codec) {
+        addSerializer(codec.getType(), new CodecSerializer<>(codec));
+    }
+
+    private <T> void addReader(JsonCodec<T> codec) {
+        addDeserializer(codec.getType(), new CodecDeserializer<>(codec));
+    }
+
+    private static class CodecSerializer<T> extends StdSerializer<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient JsonWriterCodec<T> _codec;
+
+        CodecSerializer(JsonWriterCodec<T> codec) {
+            super(codec.getType());
+            _codec = codec;
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator g, SerializerProvider provider) throws IOException {
+            _codec.write(g, value);
+        }
+    }
+
+    private static class CodecDeserializer<T> extends StdDeserializer<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient JsonCodec<T> _codec;
+
+        CodecDeserializer(JsonCodec<T> codec) {
+            super(codec.getType());
+            _codec = codec;
+        }
+
+        @Override
+        public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return _codec.read(p, ctxt);
+        }
+
+        @Override
+        public T deserialize(JsonParser p, DeserializationContext ctxt, T intoValue) throws IOException {
+            return _codec.read(p, ctxt, intoValue);
+        }
+
+        @Override
+        public Boolean supportsUpdate(DeserializationConfig config) {
+            return Boolean.TRUE;
+        }
+
+        @Override
+        public boolean isCachable() {
+            return true;
+        }
+    }
+}
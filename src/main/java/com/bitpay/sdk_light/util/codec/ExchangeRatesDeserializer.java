@@ -0,0 +1,109 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.ExchangeRates;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads the {@code exchangeRates} object of an invoice straight into an {@link ExchangeRates} matrix, without
+ * going through maps or rate strings.
+ */
+public class ExchangeRatesDeserializer extends StdDeserializer<ExchangeRates> {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExchangeRatesDeserializer() {
+        super(ExchangeRates.class);
+    }
+
+    @Override
+    public ExchangeRates deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) {
+            t = p.nextToken();
+        } else if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT) {
+            return (ExchangeRates) ctxt.handleUnexpectedToken(ExchangeRates.class, p);
+        }
+
+        // Rates are collected as (row, column, rate) until all the target currencies are known
+        String[] from = new String[8];
+        String[] to = new String[16];
+        int fromCount = 0;
+        int toCount = 0;
+        int[] cells = new int[128];
+        double[] values = new double[64];
+        int count = 0;
+
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String fromCode = p.getCurrentName();
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            if (fromCount == from.length) {
+                from = Arrays.copyOf(from, fromCount * 2);
+            }
+            int row = fromCount;
+            from[fromCount++] = fromCode;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String toCode = p.getCurrentName();
+                double rate;
+                switch (p.nextToken()) {
+                    case VALUE_NUMBER_INT:
+                    case VALUE_NUMBER_FLOAT:
+                        rate = p.getDoubleValue();
+                        break;
+                    case VALUE_STRING:
+                        try {
+                            rate = Double.parseDouble(p.getText().trim());
+                        } catch (NumberFormatException e) {
+                            continue;
+                        }
+                        break;
+                    default:
+                        p.skipChildren();
+                        continue;
+                }
+
+                int column = indexOf(to, toCount, toCode);
+                if (column < 0) {
+                    if (toCount == to.length) {
+                        to = Arrays.copyOf(to, toCount * 2);
+                    }
+                    column = toCount;
+                    to[toCount++] = toCode;
+                }
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                    cells = Arrays.copyOf(cells, count * 4);
+                }
+                cells[count * 2] = row;
+                cells[count * 2 + 1] = column;
+                values[count++] = rate;
+            }
+        }
+
+        double[] rates = new double[fromCount * toCount];
+        Arrays.fill(rates, Double.NaN);
+        for (int i = 0; i < count; i++) {
+            rates[cells[i * 2] * toCount + cells[i * 2 + 1]] = values[i];
+        }
+        return new ExchangeRates(Arrays.copyOf(from, fromCount), Arrays.copyOf(to, toCount), rates);
+    }
+
+    // Field names come out of the parser's symbol table, so repeated codes are the same instance
+    private static int indexOf(String[] codes, int count, String code) {
+        for (int i = 0; i < count; i++) {
+            if (codes[i] == code || codes[i].equals(code)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,48 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.*;
+import com.bitpay.sdk_light.util.DeferredValue;
+
+import java.util.List;
+
+/**
+ * Hands the response parts buffered by {@link InvoiceCodec} to an {@link Invoice}, so that the deferring methods
+ * are not part of the invoice's API.
+ * <p>
+ * {@link Invoice} registers the only instance when its class is initialized; the methods are called by the
+ * codecs of this package only.
+ */
+public abstract class InvoiceAccess {
+
+    private static volatile InvoiceAccess _instance;
+
+    /**
+     * Register the instance, once.
+     *
+     * @param access The instance.
+     * @throws IllegalStateException If an instance is already registered.
+     */
+    public static synchronized void register(InvoiceAccess access) {
+        if (_instance != null) {
+            throw new IllegalStateException("Error - invoice access is already registered");
+        }
+        _instance = access;
+    }
+
+    // Callers hold an Invoice, so its class, and with it the instance, is initialized
+    static InvoiceAccess get() {
+        return _instance;
+    }
+
+    protected abstract void deferTransactions(Invoice invoice, DeferredValue<List<InvoiceTransaction>> transactions);
+
+    protected abstract void deferInvoiceBuyerProvidedInfo(Invoice invoice, DeferredValue<InvoiceBuyerProvidedInfo> info);
+
+    protected abstract void deferSupportedTransactionCurrencies(Invoice invoice, DeferredValue<SupportedTransactionCurrencies> currencies);
+
+    protected abstract void deferMinerFees(Invoice invoice, DeferredValue<MinerFees> minerFees);
+
+    protected abstract void deferShopper(Invoice invoice, DeferredValue<Shopper> shopper);
+
+    protected abstract void deferExchangeRates(Invoice invoice, DeferredValue<ExchangeRates> exchangeRates);
+}
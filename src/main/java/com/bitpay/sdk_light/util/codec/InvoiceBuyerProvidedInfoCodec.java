@@ -0,0 +1,44 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.InvoiceBuyerProvidedInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class InvoiceBuyerProvidedInfoCodec extends JsonCodec<InvoiceBuyerProvidedInfo> {
+
+    public static final InvoiceBuyerProvidedInfoCodec INSTANCE = new InvoiceBuyerProvidedInfoCodec();
+
+    private InvoiceBuyerProvidedInfoCodec() {
+        super(InvoiceBuyerProvidedInfo.class, true);
+    }
+
+    @Override
+    protected InvoiceBuyerProvidedInfo newInstance() {
+        return new InvoiceBuyerProvidedInfo();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, InvoiceBuyerProvidedInfo target, String name) throws IOException {
+        switch (name) {
+            case "name":
+                target.setName(readString(p, ctxt));
+                break;
+            case "phoneNumber":
+                target.setPhoneNumber(readString(p, ctxt));
+                break;
+            case "selectedTransactionCurrency":
+                target.setSelectedTransactionCurrency(readString(p, ctxt));
+                break;
+            case "emailAddress":
+                target.setEmailAddress(readString(p, ctxt));
+                break;
+            case "selectedWallet":
+                target.setSelectedWallet(readString(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+}
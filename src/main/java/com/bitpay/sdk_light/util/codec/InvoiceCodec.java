@@ -0,0 +1,257 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Invoice.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+public class InvoiceCodec extends JsonCodec<Invoice> implements JsonWriterCodec<Invoice> {
+
+    public static final InvoiceCodec INSTANCE = new InvoiceCodec();
+
+    // The heavy response parts are buffered and bound on first access, see Invoice.getTransactions() etc.
+    private static final TypeFactory TYPES = TypeFactory.defaultInstance();
+    private static final JavaType TRANSACTIONS = TYPES.constructCollectionType(ArrayList.class, InvoiceTransaction.class);
+    private static final JavaType INVOICE_BUYER_PROVIDED_INFO = TYPES.constructType(InvoiceBuyerProvidedInfo.class);
+    private static final JavaType SUPPORTED_TRANSACTION_CURRENCIES = TYPES.constructType(SupportedTransactionCurrencies.class);
+    private static final JavaType MINER_FEES = TYPES.constructType(MinerFees.class);
+    private static final JavaType SHOPPER = TYPES.constructType(Shopper.class);
+    private static final JavaType EXCHANGE_RATES = TYPES.constructType(ExchangeRates.class);
+    private static final JavaType EXCHANGE_RATES_TABLE = TYPES.constructMapType(Hashtable.class,
+            TYPES.constructType(String.class), TYPES.constructMapType(Hashtable.class, String.class, String.class));
+
+    private InvoiceCodec() {
+        super(Invoice.class, true);
+    }
+
+    @Override
+    protected Invoice newInstance() {
+        return new Invoice();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, Invoice target, String name) throws IOException {
+        switch (name) {
+            // API fields
+            case "guid":
+                target.setGuid(readString(p, ctxt));
+                break;
+            case "token":
+                target.setToken(readString(p, ctxt));
+                break;
+
+            // Required fields
+            case "price":
+                target.setPrice(readDouble(p, ctxt));
+                break;
+            case "currency":
+                try {
+                    target.setCurrency(readString(p, ctxt));
+                } catch (BitPayException e) {
+                    throw wrapSetterFailure(p, e);
+                }
+                break;
+
+            // Optional fields
+            case "orderId":
+                target.setOrderId(readString(p, ctxt));
+                break;
+            case "itemDesc":
+                target.setItemDesc(readString(p, ctxt));
+                break;
+            case "itemCode":
+                target.setItemCode(readString(p, ctxt));
+                break;
+            case "posData":
+                target.setPosData(readString(p, ctxt));
+                break;
+            case "notificationURL":
+                target.setNotificationURL(readString(p, ctxt));
+                break;
+            case "transactionSpeed":
+                target.setTransactionSpeed(readString(p, ctxt));
+                break;
+            case "fullNotifications":
+                target.setFullNotifications(readBoolean(p, ctxt));
+                break;
+            case "extendedNotifications":
+                target.setExtendedNotifications(readBoolean(p, ctxt));
+                break;
+            case "notificationEmail":
+                target.setNotificationEmail(readString(p, ctxt));
+                break;
+            case "redirectURL":
+                target.setRedirectURL(readString(p, ctxt));
+                break;
+            case "physical":
+                target.setPhysical(readBoolean(p, ctxt));
+                break;
+            case "paymentCurrencies":
+                target.setPaymentCurrencies(readStringList(p, ctxt));
+                break;
+            case "acceptanceWindow":
+                target.setAcceptanceWindow(readLong(p, ctxt));
+                break;
+            case "buyer":
+                target.setBuyer(BuyerCodec.INSTANCE.read(p, ctxt));
+                break;
+
+            // Response fields
+            case "id":
+                target.setId(readString(p, ctxt));
+                break;
+            case "url":
+                target.setUrl(readString(p, ctxt));
+                break;
+            case "status":
+                target.setStatus(readString(p, ctxt));
+                break;
+            case "lowFeeDetected":
+                target.setLowFeeDetected(readBoolean(p, ctxt));
+                break;
+            case "invoiceTime":
+                target.setInvoiceTime(readLong(p, ctxt));
+                break;
+            case "expirationTime":
+                target.setExpirationTime(readLong(p, ctxt));
+                break;
+            case "currentTime":
+                target.setCurrentTime(readLong(p, ctxt));
+                break;
+            case "transactions":
+                if (isStructured(p)) {
+                    InvoiceAccess.get().deferTransactions(target, readDeferred(p, ctxt, TRANSACTIONS));
+                } else {
+                    target.setTransactions(readList(p, ctxt, InvoiceTransactionCodec.INSTANCE));
+                }
+                break;
+            case "exceptionStatus":
+                target.setExceptionStatus(readString(p, ctxt));
+                break;
+            case "targetConfirmations":
+                target.setTargetConfirmations(readLong(p, ctxt));
+                break;
+            case "refundAddresses":
+                target.setRefundAddresses(p.currentToken() == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, ArrayList.class));
+                break;
+            case "refundAddressRequestPending":
+                target.setRefundAddressRequestPending(readBoolean(p, ctxt));
+                break;
+            case "buyerProvidedEmail":
+                target.setBuyerProvidedEmail(readString(p, ctxt));
+                break;
+            case "invoiceBuyerProvidedInfo":
+                if (isStructured(p)) {
+                    InvoiceAccess.get().deferInvoiceBuyerProvidedInfo(target, readDeferred(p, ctxt, INVOICE_BUYER_PROVIDED_INFO));
+                } else {
+                    target.setInvoiceBuyerProvidedInfo(InvoiceBuyerProvidedInfoCodec.INSTANCE.read(p, ctxt));
+                }
+                break;
+            case "supportedTransactionCurrencies":
+                if (isStructured(p)) {
+                    InvoiceAccess.get().deferSupportedTransactionCurrencies(target, readDeferred(p, ctxt, SUPPORTED_TRANSACTION_CURRENCIES));
+                } else {
+                    target.setSupportedTransactionCurrencies(SupportedTransactionCurrenciesCodec.INSTANCE.read(p, ctxt));
+                }
+                break;
+            case "minerFees":
+                if (isStructured(p)) {
+                    InvoiceAccess.get().deferMinerFees(target, readDeferred(p, ctxt, MINER_FEES));
+                } else {
+                    target.setMinerFees(MinerFeesCodec.INSTANCE.read(p, ctxt));
+                }
+                break;
+            case "shopper":
+                if (isStructured(p)) {
+                    InvoiceAccess.get().deferShopper(target, readDeferred(p, ctxt, SHOPPER));
+                } else {
+                    target.setShopper(ShopperCodec.INSTANCE.read(p, ctxt));
+                }
+                break;
+            case "billId":
+                target.setBillId(readString(p, ctxt));
+                break;
+            case "refundInfo":
+                target.setRefundInfo(readList(p, ctxt, RefundInfoCodec.INSTANCE));
+                break;
+            case "transactionCurrency":
+                target.setTransactionCurrency(readString(p, ctxt));
+                break;
+            case "amountPaid":
+                target.setAmountPaid(readBigDecimal(p, ctxt));
+                break;
+            case "exchangeRates":
+                if (isStructured(p)) {
+                    InvoiceAccess.get().deferExchangeRates(target, readDeferred(p, ctxt, EXCHANGE_RATES));
+                } else {
+                    target.setExchangeRates(readExchangeRates(p, ctxt));
+                }
+                break;
+
+            // Deprecated fields, accepted and discarded
+            case "paymentCodes":
+                p.skipChildren();
+                target.setPaymentCodes(null);
+                break;
+            case "paymentSubtotals":
+                p.skipChildren();
+                target.setPaymentSubtotals(null);
+                break;
+            case "paymentTotals":
+                p.skipChildren();
+                target.setPaymentTotals(null);
+                break;
+            case "paymentDisplayTotals":
+                p.skipChildren();
+                target.setPaymentDisplayTotals(null);
+                break;
+            case "paymentDisplaySubTotals":
+                p.skipChildren();
+                target.setPaymentDisplaySubTotals(null);
+                break;
+
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+
+    private static Hashtable<String, Hashtable<String, String>> readExchangeRates(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return ctxt.readValue(p, EXCHANGE_RATES_TABLE);
+    }
+
+    @Override
+    public void write(JsonGenerator g, Invoice value) throws IOException {
+        g.writeStartObject();
+        writeNonDefault(g, "guid", value.getGuid());
+        writeNonDefault(g, "token", value.getToken());
+        writeDouble(g, "price", value.getPrice());
+        g.writeStringField("currency", value.getCurrency());
+        writeNonDefault(g, "orderId", value.getOrderId());
+        writeNonDefault(g, "itemDesc", value.getItemDesc());
+        writeNonDefault(g, "itemCode", value.getItemCode());
+        writeNonDefault(g, "posData", value.getPosData());
+        writeNonDefault(g, "notificationURL", value.getNotificationURL());
+        writeNonDefault(g, "transactionSpeed", value.getTransactionSpeed());
+        writeNonDefault(g, "fullNotifications", value.getFullNotifications());
+        writeNonDefault(g, "extendedNotifications", value.getExtendedNotifications());
+        writeNonDefault(g, "notificationEmail", value.getNotificationEmail());
+        writeNonDefault(g, "redirectURL", value.getRedirectURL());
+        writeNonDefault(g, "physical", value.getPhysical());
+        writeNonDefault(g, "paymentCurrencies", value.getPaymentCurrencies());
+        writeNonDefault(g, "acceptanceWindow", value.getAcceptanceWindow());
+        writeNonDefault(g, "buyer", value.getBuyer(), BuyerCodec.INSTANCE);
+        g.writeEndObject();
+    }
+}
@@ -0,0 +1,65 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.InvoiceSummary;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads an {@link InvoiceSummary} from a full invoice object. Properties outside the summary are skipped at
+ * the token level, so their values are never decoded or allocated.
+ */
+public class InvoiceSummaryDeserializer extends StdDeserializer<InvoiceSummary> {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvoiceSummaryDeserializer() {
+        super(InvoiceSummary.class);
+    }
+
+    @Override
+    public InvoiceSummary deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) {
+            t = p.nextToken();
+        } else if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT) {
+            return (InvoiceSummary) ctxt.handleUnexpectedToken(InvoiceSummary.class, p);
+        }
+
+        String id = null;
+        String status = null;
+        String exceptionStatus = null;
+        BigDecimal amountPaid = null;
+        long expirationTime = 0;
+
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            switch (name) {
+                case "id":
+                    id = JsonCodec.readString(p, ctxt);
+                    break;
+                case "status":
+                    status = JsonCodec.readString(p, ctxt);
+                    break;
+                case "exceptionStatus":
+                    exceptionStatus = JsonCodec.readString(p, ctxt);
+                    break;
+                case "amountPaid":
+                    amountPaid = JsonCodec.readBigDecimal(p, ctxt);
+                    break;
+                case "expirationTime":
+                    expirationTime = JsonCodec.readLong(p, ctxt);
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+
+        return new InvoiceSummary(id, status, exceptionStatus, amountPaid, expirationTime);
+    }
+}
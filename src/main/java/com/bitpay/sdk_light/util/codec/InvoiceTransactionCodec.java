@@ -0,0 +1,44 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.InvoiceTransaction;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class InvoiceTransactionCodec extends JsonCodec<InvoiceTransaction> {
+
+    public static final InvoiceTransactionCodec INSTANCE = new InvoiceTransactionCodec();
+
+    private InvoiceTransactionCodec() {
+        super(InvoiceTransaction.class, true);
+    }
+
+    @Override
+    protected InvoiceTransaction newInstance() {
+        return new InvoiceTransaction();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, InvoiceTransaction target, String name) throws IOException {
+        switch (name) {
+            case "amount":
+                target.setAmount(readDouble(p, ctxt));
+                break;
+            case "confirmations":
+                target.setConfirmations(readInt(p, ctxt));
+                break;
+            case "receivedTime":
+                target.setReceivedTime(readDate(p, ctxt));
+                break;
+            case "txid":
+                target.setTransactionId(readString(p, ctxt));
+                break;
+            case "time":
+                target.setTime(readDate(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+}
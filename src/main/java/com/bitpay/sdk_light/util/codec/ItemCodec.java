@@ -0,0 +1,52 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Bill.Item;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class ItemCodec extends JsonCodec<Item> implements JsonWriterCodec<Item> {
+
+    public static final ItemCodec INSTANCE = new ItemCodec();
+
+    private ItemCodec() {
+        super(Item.class, true);
+    }
+
+    @Override
+    protected Item newInstance() {
+        return new Item();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, Item target, String name) throws IOException {
+        switch (name) {
+            case "id":
+                target.setId(readString(p, ctxt));
+                break;
+            case "description":
+                target.setDescription(readString(p, ctxt));
+                break;
+            case "price":
+                target.setPrice(readDouble(p, ctxt));
+                break;
+            case "quantity":
+                target.setQuantity(readInteger(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+
+    @Override
+    public void write(JsonGenerator g, Item value) throws IOException {
+        g.writeStartObject();
+        writeNonDefault(g, "id", value.getId());
+        writeNonDefault(g, "description", value.getDescription());
+        writeNonDefault(g, "price", value.getPrice());
+        writeNonDefault(g, "quantity", value.getQuantity());
+        g.writeEndObject();
+    }
+}
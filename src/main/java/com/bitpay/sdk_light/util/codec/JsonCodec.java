@@ -0,0 +1,358 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.util.DeferredValue;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Streaming reader for one model class, written against {@link JsonParser} instead of going through bean
+ * introspection. The request models also implement {@link JsonWriterCodec}, using the writers below.
+ * <p>
+ * Codecs follow the Jackson annotations of their model: the same property names, unknown properties skipped
+ * when the model ignores them, and {@code NON_DEFAULT} properties left out when they hold a default value.
+ * Plain tokens are read directly; anything else (numbers sent as strings, unusual shapes) is handed to the
+ * standard Jackson scalar deserializers, so coercion rules and error messages are those of a bean mapper.
+ *
+ * @param <T> The model class.
+ */
+public abstract class JsonCodec<T> {
+
+    private static final Double DOUBLE_ZERO = 0.0;
+    private static final Integer INTEGER_ZERO = 0;
+
+    private final Class<T> _type;
+    private final boolean _ignoreUnknown;
+
+    protected JsonCodec(Class<T> type, boolean ignoreUnknown) {
+        _type = type;
+        _ignoreUnknown = ignoreUnknown;
+    }
+
+    public Class<T> getType() {
+        return _type;
+    }
+
+    /**
+     * @return A new, empty model instance.
+     */
+    protected abstract T newInstance();
+
+    /**
+     * Read the value of one property into the target. The parser is positioned on the value token; the
+     * implementation must consume the whole value.
+     *
+     * @param p      The parser.
+     * @param ctxt   The deserialization context.
+     * @param target The instance being populated.
+     * @param name   The property name.
+     * @throws IOException If the value cannot be read.
+     */
+    protected abstract void readProperty(JsonParser p, DeserializationContext ctxt, T target, String name) throws IOException;
+
+    /**
+     * Read a JSON object into a new model instance.
+     *
+     * @param p    The parser, positioned on the value token.
+     * @param ctxt The deserialization context.
+     * @return The model instance, or null for a JSON null.
+     * @throws IOException If the value cannot be read.
+     */
+    public T read(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return read(p, ctxt, null);
+    }
+
+    /**
+     * Read a JSON object into an existing model instance, overwriting the properties present in the JSON.
+     *
+     * @param p    The parser, positioned on the value token.
+     * @param ctxt The deserialization context.
+     * @param into The instance to update, or null to create one.
+     * @return The updated instance, or null for a JSON null.
+     * @throws IOException If the value cannot be read.
+     */
+    @SuppressWarnings("unchecked")
+    public T read(JsonParser p, DeserializationContext ctxt, T into) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (t == JsonToken.START_OBJECT) {
+            t = p.nextToken();
+        } else if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT) {
+            return (T) ctxt.handleUnexpectedToken(_type, p);
+        }
+
+        T target = into != null ? into : newInstance();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            readProperty(p, ctxt, target, name);
+        }
+        return target;
+    }
+
+    /**
+     * Handle a property the model does not map.
+     */
+    protected void readUnknown(JsonParser p, DeserializationContext ctxt, T target, String name) throws IOException {
+        if (_ignoreUnknown) {
+            p.skipChildren();
+        } else {
+            ctxt.handleUnknownProperty(p, null, target, name);
+        }
+    }
+
+    /**
+     * Report an exception thrown by a model setter the way databind does.
+     */
+    protected static JsonMappingException wrapSetterFailure(JsonParser p, Exception e) {
+        return JsonMappingException.from(p, e.getMessage(), e);
+    }
+
+    // Readers
+    //
+
+    public static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_STRING:
+            case JsonTokenId.ID_NUMBER_INT:
+            case JsonTokenId.ID_NUMBER_FLOAT:
+            case JsonTokenId.ID_TRUE:
+            case JsonTokenId.ID_FALSE:
+                return p.getText();
+            case JsonTokenId.ID_NULL:
+                return null;
+            default:
+                return ctxt.readValue(p, String.class);
+        }
+    }
+
+    public static Double readDouble(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_NUMBER_INT:
+            case JsonTokenId.ID_NUMBER_FLOAT:
+                return p.getDoubleValue();
+            case JsonTokenId.ID_NULL:
+                return null;
+            default:
+                return ctxt.readValue(p, Double.class);
+        }
+    }
+
+    public static Integer readInteger(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_NUMBER_INT:
+                return p.getIntValue();
+            case JsonTokenId.ID_NULL:
+                return null;
+            default:
+                return ctxt.readValue(p, Integer.class);
+        }
+    }
+
+    public static int readInt(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_NUMBER_INT:
+                return p.getIntValue();
+            case JsonTokenId.ID_NULL:
+                return 0;
+            default:
+                return ctxt.readValue(p, Integer.TYPE);
+        }
+    }
+
+    public static long readLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_NUMBER_INT:
+                return p.getLongValue();
+            case JsonTokenId.ID_NULL:
+                return 0L;
+            default:
+                return ctxt.readValue(p, Long.TYPE);
+        }
+    }
+
+    public static boolean readBoolean(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_TRUE:
+                return true;
+            case JsonTokenId.ID_FALSE:
+            case JsonTokenId.ID_NULL:
+                return false;
+            default:
+                return ctxt.readValue(p, Boolean.TYPE);
+        }
+    }
+
+    public static BigDecimal readBigDecimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_NUMBER_INT:
+            case JsonTokenId.ID_NUMBER_FLOAT:
+                return p.getDecimalValue();
+            case JsonTokenId.ID_NULL:
+                return null;
+            default:
+                return ctxt.readValue(p, BigDecimal.class);
+        }
+    }
+
+    public static Date readDate(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentTokenId()) {
+            case JsonTokenId.ID_NUMBER_INT:
+                return new Date(p.getLongValue());
+            case JsonTokenId.ID_NULL:
+                return null;
+            default:
+                return ctxt.readValue(p, Date.class);
+        }
+    }
+
+    public static List<String> readStringList(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (t != JsonToken.START_ARRAY) {
+            return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(ArrayList.class, String.class));
+        }
+
+        ArrayList<String> list = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            list.add(readString(p, ctxt));
+        }
+        return list;
+    }
+
+    public static <E> ArrayList<E> readList(JsonParser p, DeserializationContext ctxt, JsonCodec<E> codec) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (t != JsonToken.START_ARRAY) {
+            return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(ArrayList.class, codec.getType()));
+        }
+
+        ArrayList<E> list = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            list.add(codec.read(p, ctxt));
+        }
+        return list;
+    }
+
+    /**
+     * Whether the current value is an object or an array, which {@link #readDeferred} can buffer.
+     */
+    public static boolean isStructured(JsonParser p) {
+        JsonToken t = p.currentToken();
+        return t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY;
+    }
+
+    /**
+     * Defer the current value, to be bound to {@code type} on first access. A value read from a String is
+     * skipped and its text copied; otherwise its tokens are buffered.
+     */
+    public static <T> DeferredValue<T> readDeferred(JsonParser p, DeserializationContext ctxt, JavaType type) throws IOException {
+        JsonLocation start = p.getTokenLocation();
+        if (start.getSourceRef() instanceof String) {
+            String source = (String) start.getSourceRef();
+            long offset = start.getCharOffset();
+            if (offset >= 0 && offset < source.length() && source.charAt((int) offset) == p.getText().charAt(0)) {
+                p.skipChildren();
+                long end = p.getCurrentLocation().getCharOffset();
+                if (end <= offset || end > source.length()) {
+                    throw JsonMappingException.from(p, "Failed to locate deferred " + type.getRawClass().getSimpleName() + " in source");
+                }
+                return new DeferredValue<>(p.getCodec(), source, (int) offset, (int) (end - offset), type);
+            }
+        }
+
+        TokenBuffer tokens = new TokenBuffer(p, ctxt);
+        tokens.copyCurrentStructure(p);
+        return new DeferredValue<>(tokens, type);
+    }
+
+    // Writers, following JsonInclude.Include.NON_DEFAULT on a property
+    //
+
+    public static void writeNonDefault(JsonGenerator g, String name, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            g.writeStringField(name, value);
+        }
+    }
+
+    public static void writeNonDefault(JsonGenerator g, String name, Double value) throws IOException {
+        if (value != null && !DOUBLE_ZERO.equals(value)) {
+            g.writeNumberField(name, value);
+        }
+    }
+
+    public static void writeNonDefault(JsonGenerator g, String name, Integer value) throws IOException {
+        if (value != null && !INTEGER_ZERO.equals(value)) {
+            g.writeNumberField(name, value);
+        }
+    }
+
+    public static void writeNonDefault(JsonGenerator g, String name, long value) throws IOException {
+        if (value != 0L) {
+            g.writeNumberField(name, value);
+        }
+    }
+
+    public static void writeNonDefault(JsonGenerator g, String name, boolean value) throws IOException {
+        if (value) {
+            g.writeBooleanField(name, true);
+        }
+    }
+
+    public static void writeNonDefault(JsonGenerator g, String name, List<String> values) throws IOException {
+        if (values != null && !values.isEmpty()) {
+            g.writeArrayFieldStart(name);
+            for (String value : values) {
+                g.writeString(value);
+            }
+            g.writeEndArray();
+        }
+    }
+
+    public static <E> void writeNonDefault(JsonGenerator g, String name, List<E> values, JsonWriterCodec<E> codec) throws IOException {
+        if (values != null && !values.isEmpty()) {
+            g.writeArrayFieldStart(name);
+            for (E value : values) {
+                if (value == null) {
+                    g.writeNull();
+                } else {
+                    codec.write(g, value);
+                }
+            }
+            g.writeEndArray();
+        }
+    }
+
+    public static <E> void writeNonDefault(JsonGenerator g, String name, E value, JsonWriterCodec<E> codec) throws IOException {
+        if (value != null) {
+            g.writeFieldName(name);
+            codec.write(g, value);
+        }
+    }
+
+    public static void writeDouble(JsonGenerator g, String name, Double value) throws IOException {
+        if (value == null) {
+            g.writeNullField(name);
+        } else {
+            g.writeNumberField(name, value);
+        }
+    }
+}
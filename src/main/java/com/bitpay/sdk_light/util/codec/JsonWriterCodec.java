@@ -0,0 +1,28 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Streaming writer for one request model class, written against {@link JsonGenerator} instead of going through
+ * bean introspection. Only the models sent to the API have one; {@link CodecModule} registers a serializer for
+ * each.
+ * <p>
+ * Writers follow the Jackson annotations of their model, see {@link JsonCodec}.
+ *
+ * @param <T> The model class.
+ */
+public interface JsonWriterCodec<T> {
+
+    Class<T> getType();
+
+    /**
+     * Write a model instance as a JSON object.
+     *
+     * @param g     The generator.
+     * @param value The instance to write, not null.
+     * @throws IOException If the value cannot be written.
+     */
+    void write(JsonGenerator g, T value) throws IOException;
+}
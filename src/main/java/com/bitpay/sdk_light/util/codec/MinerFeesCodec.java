@@ -0,0 +1,38 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.MinerFees;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class MinerFeesCodec extends JsonCodec<MinerFees> {
+
+    public static final MinerFeesCodec INSTANCE = new MinerFeesCodec();
+
+    private MinerFeesCodec() {
+        super(MinerFees.class, true);
+    }
+
+    @Override
+    protected MinerFees newInstance() {
+        return new MinerFees();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, MinerFees target, String name) throws IOException {
+        switch (name) {
+            case "BTC":
+                target.setBtc(MinerFeesItemCodec.INSTANCE.read(p, ctxt));
+                break;
+            case "BCH":
+                target.setBch(MinerFeesItemCodec.INSTANCE.read(p, ctxt));
+                break;
+            case "ETH":
+                target.setEth(MinerFeesItemCodec.INSTANCE.read(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+}
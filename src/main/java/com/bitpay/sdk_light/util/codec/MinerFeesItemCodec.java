@@ -0,0 +1,35 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.MinerFeesItem;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class MinerFeesItemCodec extends JsonCodec<MinerFeesItem> {
+
+    public static final MinerFeesItemCodec INSTANCE = new MinerFeesItemCodec();
+
+    private MinerFeesItemCodec() {
+        super(MinerFeesItem.class, true);
+    }
+
+    @Override
+    protected MinerFeesItem newInstance() {
+        return new MinerFeesItem();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, MinerFeesItem target, String name) throws IOException {
+        switch (name) {
+            case "satoshisPerByte":
+                target.setSatoshisPerByte(readDouble(p, ctxt));
+                break;
+            case "totalFee":
+                target.setTotalFee(readDouble(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Rate.Rate;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class RateCodec extends JsonCodec<Rate> {
+
+    public static final RateCodec INSTANCE = new RateCodec();
+
+    private RateCodec() {
+        // Rate does not ignore unknown properties
+        super(Rate.class, false);
+    }
+
+    @Override
+    protected Rate newInstance() {
+        return new Rate();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, Rate target, String name) throws IOException {
+        switch (name) {
+            case "name":
+                target.setName(readString(p, ctxt));
+                break;
+            case "code":
+                target.setCode(readString(p, ctxt));
+                break;
+            case "rate":
+                target.setValue(readDouble(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+}
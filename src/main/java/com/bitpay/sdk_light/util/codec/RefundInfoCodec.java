@@ -0,0 +1,66 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Invoice.RefundInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+import java.util.Hashtable;
+
+public class RefundInfoCodec extends JsonCodec<RefundInfo> {
+
+    public static final RefundInfoCodec INSTANCE = new RefundInfoCodec();
+
+    private RefundInfoCodec() {
+        super(RefundInfo.class, true);
+    }
+
+    @Override
+    protected RefundInfo newInstance() {
+        return new RefundInfo();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, RefundInfo target, String name) throws IOException {
+        switch (name) {
+            case "supportRequest":
+                target.setSupportRequest(readString(p, ctxt));
+                break;
+            case "currency":
+                try {
+                    target.setCurrency(readString(p, ctxt));
+                } catch (BitPayException e) {
+                    throw wrapSetterFailure(p, e);
+                }
+                break;
+            case "amounts":
+                target.setAmounts(readAmounts(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+
+    private static Hashtable<String, Double> readAmounts(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (t != JsonToken.START_OBJECT) {
+            return ctxt.readValue(p, ctxt.getTypeFactory().constructMapType(Hashtable.class, String.class, Double.class));
+        }
+
+        Hashtable<String, Double> amounts = new Hashtable<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String currency = p.getCurrentName();
+            p.nextToken();
+            Double amount = readDouble(p, ctxt);
+            if (amount != null) {
+                amounts.put(currency, amount);
+            }
+        }
+        return amounts;
+    }
+}
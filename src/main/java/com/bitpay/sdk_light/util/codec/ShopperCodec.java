@@ -0,0 +1,30 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.Shopper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class ShopperCodec extends JsonCodec<Shopper> {
+
+    public static final ShopperCodec INSTANCE = new ShopperCodec();
+
+    private ShopperCodec() {
+        super(Shopper.class, true);
+    }
+
+    @Override
+    protected Shopper newInstance() {
+        return new Shopper();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, Shopper target, String name) throws IOException {
+        if (name.equals("user")) {
+            target.setName(readString(p, ctxt));
+        } else {
+            readUnknown(p, ctxt, target, name);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.SupportedTransactionCurrencies;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class SupportedTransactionCurrenciesCodec extends JsonCodec<SupportedTransactionCurrencies> {
+
+    public static final SupportedTransactionCurrenciesCodec INSTANCE = new SupportedTransactionCurrenciesCodec();
+
+    private SupportedTransactionCurrenciesCodec() {
+        super(SupportedTransactionCurrencies.class, true);
+    }
+
+    @Override
+    protected SupportedTransactionCurrencies newInstance() {
+        return new SupportedTransactionCurrencies();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, SupportedTransactionCurrencies target, String name) throws IOException {
+        switch (name) {
+            case "BTC":
+                target.setBtc(SupportedTransactionCurrencyCodec.INSTANCE.read(p, ctxt));
+                break;
+            case "BCH":
+                target.setBch(SupportedTransactionCurrencyCodec.INSTANCE.read(p, ctxt));
+                break;
+            case "ETH":
+                target.setEth(SupportedTransactionCurrencyCodec.INSTANCE.read(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+}
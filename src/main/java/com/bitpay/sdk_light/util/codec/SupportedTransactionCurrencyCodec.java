@@ -0,0 +1,35 @@
+package com.bitpay.sdk_light.util.codec;
+
+import com.bitpay.sdk_light.model.Invoice.SupportedTransactionCurrency;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+public class SupportedTransactionCurrencyCodec extends JsonCodec<SupportedTransactionCurrency> {
+
+    public static final SupportedTransactionCurrencyCodec INSTANCE = new SupportedTransactionCurrencyCodec();
+
+    private SupportedTransactionCurrencyCodec() {
+        super(SupportedTransactionCurrency.class, true);
+    }
+
+    @Override
+    protected SupportedTransactionCurrency newInstance() {
+        return new SupportedTransactionCurrency();
+    }
+
+    @Override
+    protected void readProperty(JsonParser p, DeserializationContext ctxt, SupportedTransactionCurrency target, String name) throws IOException {
+        switch (name) {
+            case "enabled":
+                target.setEnabled(readBoolean(p, ctxt));
+                break;
+            case "reason":
+                target.setReason(readString(p, ctxt));
+                break;
+            default:
+                readUnknown(p, ctxt, target, name);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package tests;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.ClientPool;
+import com.bitpay.sdk_light.MerchantClient;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs merchant clients of one pool against a local server answering invoice fetches with the captured invoice,
+ * and records the token each request carried.
+ */
+public class ClientPoolTest {
+
+    private HttpServer server;
+    private final Map<String, Integer> requestsByToken = new ConcurrentHashMap<>();
+    private ClientPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] invoice = IpnReceiverTest.load("invoice.json");
+        byte[] error = "{\"error\":\"Object not found\"}".getBytes("UTF-8");
+        byte[] bare = new ObjectMapper().readTree(invoice).get("data").toString().getBytes("UTF-8");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/invoices/", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            requestsByToken.merge(query.substring(query.indexOf('=') + 1), 1, Integer::sum);
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = path.endsWith("missing") ? error : path.endsWith("bare") ? bare : invoice;
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        pool = new ClientPool("http://127.0.0.1:" + server.getAddress().getPort(), HttpClients.createDefault());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testShouldSendEachMerchantsToken() throws Exception {
+        MerchantClient first = pool.getClient("merchant-1");
+        MerchantClient second = pool.getClient("merchant-2");
+
+        Invoice invoice = first.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+        second.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+        second.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+
+        assertEquals("ORD-20200415-0042", invoice.getOrderId());
+        assertSame(first, pool.getClient("merchant-1"));
+        assertEquals(2, pool.size());
+        assertEquals(Integer.valueOf(1), requestsByToken.get("merchant-1"));
+        assertEquals(Integer.valueOf(2), requestsByToken.get("merchant-2"));
+        assertEquals(1, first.getRequestCount());
+        assertEquals(2, second.getRequestCount());
+        assertTrue(second.getMeanLatencyMillis() > 0);
+    }
+
+    @Test
+    public void testShouldRejectRequestsBeyondQuota() throws Exception {
+        pool.setQuota("merchant-1", 0.001, 2);
+        MerchantClient limited = pool.getClient("merchant-1");
+        MerchantClient other = pool.getClient("merchant-2");
+
+        limited.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+        limited.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+        try {
+            limited.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+            fail("Expected the quota to reject the request");
+        } catch (BitPayException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("quota"));
+        }
+        other.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+
+        assertEquals(Integer.valueOf(2), requestsByToken.get("merchant-1"));
+        assertEquals(2, limited.getRequestCount());
+        assertEquals(1, limited.getThrottledCount());
+        assertEquals(0, other.getThrottledCount());
+    }
+
+    @Test
+    public void testShouldApplyDefaultQuotaToNewClients() {
+        MerchantClient before = pool.getClient("merchant-1");
+        pool.setDefaultQuota(5, 1);
+        MerchantClient after = pool.getClient("merchant-2");
+
+        assertEquals(0, before.getQuota(), 0);
+        assertEquals(5, after.getQuota(), 0);
+    }
+
+    @Test
+    public void testShouldCountErrorResponses() {
+        MerchantClient client = pool.getClient("merchant-1");
+
+        try {
+            client.getInvoice("missing");
+            fail("Expected the error response to be reported");
+        } catch (BitPayException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Object not found"));
+        }
+
+        assertEquals(1, client.getRequestCount());
+        assertEquals(1, client.getFailureCount());
+    }
+
+    @Test
+    public void testShouldCountFailedSummaries() {
+        MerchantClient client = pool.getClient("merchant-1");
+
+        try {
+            client.getInvoiceSummary("missing");
+            fail("Expected the error response to be reported");
+        } catch (BitPayException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Object not found"));
+        }
+
+        assertEquals(1, client.getRequestCount());
+        assertEquals(1, client.getFailureCount());
+    }
+
+    @Test
+    public void testShouldReadResponseWithoutDataAlike() throws Exception {
+        MerchantClient client = pool.getClient("merchant-1");
+
+        Invoice invoice = client.getInvoice("bare");
+        InvoiceSummary summary = client.getInvoiceSummary("bare");
+
+        assertEquals(invoice.getId(), summary.getId());
+        assertEquals(invoice.getStatus(), summary.getStatus());
+        assertEquals(0, client.getFailureCount());
+    }
+
+    @Test
+    public void testShouldRefuseAfterburnerPerMerchant() {
+        try {
+            pool.getClient("merchant-1").enableAfterburner();
+            fail("Expected the shared mapper to be left alone");
+        } catch (BitPayException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("ClientPool"));
+        }
+    }
+
+    @Test
+    public void testShouldKeepMerchantClientsSmall() throws Exception {
+        try (ClientPool idle = new ClientPool("http://127.0.0.1:1", HttpClients.createMinimal())) {
+            List<MerchantClient> clients = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                clients.add(idle.getClient("merchant-" + i));
+            }
+
+            // The first client brings the shared HTTP client and mapper, each further one only its own state
+            long first = GraphLayout.parseInstance(clients.get(0)).totalSize();
+            long total = GraphLayout.parseInstance(clients.toArray()).totalSize();
+            long perClient = (total - first) / (clients.size() - 1);
+
+            assertTrue("Bytes per merchant client: " + perClient, perClient < 512);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package tests;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Warms up a client against a local server that records the remote port of every request, i.e. the connection
+ * it came on.
+ */
+public class ClientWarmUpTest {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+    private final Set<String> frames = ConcurrentHashMap.newKeySet();
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] rate = "{\"data\":{\"code\":\"USD\",\"name\":\"US Dollar\",\"rate\":6848.4}}".getBytes("UTF-8");
+        byte[] invoice = IpnReceiverTest.load("invoice.json");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rates/", exchange -> {
+            connections.add(exchange.getRemoteAddress().getPort());
+            frames.add(String.valueOf(exchange.getRequestHeaders().getFirst("x-bitpay-api-frame")));
+            exchange.sendResponseHeaders(200, rate.length);
+            exchange.getResponseBody().write(rate);
+            exchange.close();
+        });
+        server.createContext("/invoices/", exchange -> {
+            connections.add(exchange.getRemoteAddress().getPort());
+            exchange.sendResponseHeaders(200, invoice.length);
+            exchange.getResponseBody().write(invoice);
+            exchange.close();
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testShouldOpenConnectionsForLaterRequests() throws Exception {
+        Client client = new Client("token", baseUrl,
+                HttpClients.custom().setMaxConnPerRoute(4).setMaxConnTotal(4).build());
+
+        long millis = client.warmUp(4);
+
+        assertTrue(millis >= 0);
+        assertEquals(4, connections.size());
+        assertEquals(Collections.singleton("custom"), frames);
+        for (int i = 0; i < 8; i++) {
+            assertEquals("G3viJEJgE8Jk2oekSdgT2A", client.getInvoice("G3viJEJgE8Jk2oekSdgT2A").getId());
+        }
+        assertEquals(4, connections.size());
+    }
+
+    @Test
+    public void testShouldPrimeWithoutConnections() throws Exception {
+        Client client = new Client("token", baseUrl, HttpClients.createDefault());
+
+        client.warmUp(0);
+
+        assertTrue(connections.isEmpty());
+    }
+
+    @Test
+    public void testShouldReportUnreachableServer() throws Exception {
+        server.stop(0);
+        Client client = new Client("token", baseUrl, HttpClients.createDefault());
+
+        try {
+            client.warmUp(2);
+            fail("Expected the warm-up to fail");
+        } catch (BitPayException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Error - failed to warm up connections"));
+        }
+    }
+
+    @Test
+    public void testShouldEnableAfterburnerWhileSending() throws Exception {
+        Client client = new Client("token", baseUrl, HttpClients.custom().setMaxConnPerRoute(4).setMaxConnTotal(4).build());
+        ExecutorService senders = Executors.newFixedThreadPool(4);
+        List<Future<String>> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(senders.submit(() -> client.getInvoice("G3viJEJgE8Jk2oekSdgT2A").getOrderId()));
+            if (i == 50) {
+                client.enableAfterburner();
+            }
+        }
+        client.enableAfterburner();
+
+        for (Future<String> id : ids) {
+            assertEquals("ORD-20200415-0042", id.get(10, TimeUnit.SECONDS));
+        }
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,129 @@
+package tests;
+
+import com.bitpay.sdk_light.tracking.ExpiryTracker;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the tracker by hand through simulated time, so expirations can be checked to the tick.
+ */
+public class ExpiryTrackerTest {
+
+    @Test
+    public void testShouldFireOnceExpirationPassed() {
+        List<String> fired = new ArrayList<>();
+        ExpiryTracker tracker = new ExpiryTracker((id, time) -> fired.add(id), 1, TimeUnit.SECONDS);
+        long now = System.currentTimeMillis();
+
+        assertTrue(tracker.track("a", now + 1_500));
+        assertTrue(tracker.track("b", now + 70_000));
+        assertTrue(tracker.track("c", now + 5_000_000));
+        assertTrue(tracker.track("d", now + 2_000));
+        assertTrue(tracker.cancel("d"));
+        assertFalse(tracker.cancel("d"));
+        assertEquals(3, tracker.getTrackedCount());
+
+        assertEquals(0, tracker.advance(now + 1_400));
+        assertEquals(1, tracker.advance(now + 2_500));
+        assertEquals(0, tracker.advance(now + 69_900));
+        assertEquals(1, tracker.advance(now + 71_000));
+        assertEquals(0, tracker.advance(now + 4_999_000));
+        assertEquals(1, tracker.advance(now + 5_001_000));
+
+        assertEquals(Arrays.asList("a", "b", "c"), fired);
+        assertEquals(0, tracker.getTrackedCount());
+        assertEquals(3, tracker.getExpiredCount());
+    }
+
+    @Test
+    public void testShouldMoveExpirationWhenTrackedAgain() {
+        List<String> fired = new ArrayList<>();
+        ExpiryTracker tracker = new ExpiryTracker((id, time) -> fired.add(id + "@" + time), 1, TimeUnit.MILLISECONDS);
+        long now = System.currentTimeMillis();
+
+        assertTrue(tracker.track("a", now + 100));
+        assertFalse(tracker.track("a", now + 10_000));
+
+        assertEquals(0, tracker.advance(now + 5_000));
+        assertEquals(1, tracker.advance(now + 10_000));
+        assertEquals("a@" + (now + 10_000), fired.get(0));
+    }
+
+    @Test
+    public void testShouldFireAtTheFirstAdvancePastExpiration() {
+        Random random = new Random(42);
+        long start = System.currentTimeMillis();
+        Map<String, Long> expirations = new ConcurrentHashMap<>();
+        Map<String, Long> firedAt = new ConcurrentHashMap<>();
+        long[] clock = {start};
+        ExpiryTracker tracker = new ExpiryTracker((id, time) -> firedAt.put(id, clock[0]), 1, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 20_000; i++) {
+            // Mostly within the first wheels, some past the span of all four
+            long expiration = start + (i % 100 == 0 ? 20_000_000L + random.nextInt(1_000_000) : random.nextInt(600_000));
+            expirations.put("invoice-" + i, expiration);
+            tracker.track("invoice-" + i, expiration);
+        }
+
+        long previous = start;
+        while (tracker.getTrackedCount() > 0) {
+            clock[0] = previous + 1 + random.nextInt(50_000);
+            tracker.advance(clock[0]);
+            for (Map.Entry<String, Long> entry : expirations.entrySet()) {
+                Long at = firedAt.get(entry.getKey());
+                long expiration = entry.getValue();
+                boolean due = expiration <= clock[0];
+                assertEquals(entry.getKey(), due, at != null);
+                if (at != null) {
+                    assertTrue(entry.getKey(), expiration > previous && expiration <= at);
+                }
+            }
+            expirations.keySet().removeAll(firedAt.keySet());
+            firedAt.clear();
+            previous = clock[0];
+        }
+        assertTrue(expirations.isEmpty());
+        assertEquals(20_000, tracker.getExpiredCount());
+    }
+
+    @Test
+    public void testShouldFireFromTrackerThread() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (ExpiryTracker tracker = new ExpiryTracker((id, time) -> latch.countDown(), 10, TimeUnit.MILLISECONDS)) {
+            tracker.start();
+            tracker.track("a", System.currentTimeMillis() + 50);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testShouldKeepEntriesSmall() {
+        int count = 20_000;
+        ExpiryTracker tracker = new ExpiryTracker((id, time) -> {
+        }, 1, TimeUnit.SECONDS);
+        String[] ids = new String[count];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            ids[i] = String.format("%022d", i);
+        }
+        long empty = GraphLayout.parseInstance(tracker).totalSize();
+        for (int i = 0; i < count; i++) {
+            tracker.track(ids[i], now + i * 1000L);
+        }
+        long bytes = (GraphLayout.parseInstance(tracker).totalSize() - empty - GraphLayout.parseInstance((Object) ids).totalSize()) / count;
+        System.out.println("ExpiryTracker: " + bytes + " bytes/invoice, excluding ids");
+
+        assertTrue("bytes per invoice: " + bytes, bytes < 100);
+    }
+}
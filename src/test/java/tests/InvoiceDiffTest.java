@@ -0,0 +1,94 @@
+package tests;
+
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceDiff;
+import com.bitpay.sdk_light.model.Invoice.InvoiceStatus;
+import com.bitpay.sdk_light.model.Invoice.InvoiceTransaction;
+import com.bitpay.sdk_light.util.codec.CodecModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares snapshots bound from the captured invoice, with one field changed at a time.
+ */
+public class InvoiceDiffTest {
+
+    private ObjectMapper mapper;
+    private String invoiceJson;
+
+    @Before
+    public void setUp() throws IOException {
+        mapper = new ObjectMapper().registerModule(new CodecModule());
+        invoiceJson = ModelRoundTripTest.loadData("invoice.json").toString();
+    }
+
+    @Test
+    public void testShouldFindNothingInSameSnapshot() throws IOException {
+        Invoice before = read();
+        Invoice after = read();
+        after.setAmountPaid(after.getAmountPaid().setScale(after.getAmountPaid().scale() + 2));
+
+        assertEquals(0, InvoiceDiff.changes(before, after));
+        assertSame(InvoiceDiff.NONE, InvoiceDiff.of(before, after));
+        assertTrue(InvoiceDiff.of(before, after).isEmpty());
+    }
+
+    @Test
+    public void testShouldFindChangedFields() throws IOException {
+        Invoice before = read();
+        Invoice after = read();
+        after.setStatus(InvoiceStatus.Confirmed);
+        after.setExceptionStatus("paidOver");
+        after.setAmountPaid(after.getAmountPaid().add(BigDecimal.ONE));
+
+        InvoiceDiff diff = InvoiceDiff.of(before, after);
+
+        assertTrue(diff.has(InvoiceDiff.STATUS));
+        assertTrue(diff.has(InvoiceDiff.EXCEPTION_STATUS));
+        assertTrue(diff.has(InvoiceDiff.AMOUNT_PAID));
+        assertFalse(diff.has(InvoiceDiff.TRANSACTIONS_ADDED | InvoiceDiff.CONFIRMATIONS));
+        assertEquals("InvoiceDiff{status, exceptionStatus, amountPaid}", diff.toString());
+    }
+
+    @Test
+    public void testShouldFindTransactionChanges() throws IOException {
+        Invoice before = read();
+        Invoice after = read();
+        List<InvoiceTransaction> transactions = new ArrayList<>(after.getTransactions());
+        transactions.get(0).setConfirmations(transactions.get(0).getConfirmations() + 1);
+        InvoiceTransaction added = new InvoiceTransaction();
+        added.setTransactionId("f4b0c2d9e1");
+        transactions.add(added);
+        after.setTransactions(transactions);
+
+        InvoiceDiff diff = InvoiceDiff.of(before, after);
+
+        assertEquals(InvoiceDiff.TRANSACTIONS_ADDED | InvoiceDiff.CONFIRMATIONS, diff.getChanges());
+        assertEquals(1, diff.getAddedTransactions().size());
+        assertSame(added, diff.getAddedTransactions().get(0));
+    }
+
+    @Test
+    public void testShouldCompareWithoutEarlierSnapshot() throws IOException {
+        Invoice after = read();
+
+        InvoiceDiff diff = InvoiceDiff.of(null, after);
+
+        assertTrue(diff.has(InvoiceDiff.STATUS));
+        assertTrue(diff.has(InvoiceDiff.TRANSACTIONS_ADDED));
+        assertFalse(diff.has(InvoiceDiff.EXCEPTION_STATUS));
+        assertEquals(after.getTransactions().size(), diff.getAddedTransactions().size());
+    }
+
+    private Invoice read() throws IOException {
+        return mapper.readValue(invoiceJson, Invoice.class);
+    }
+}
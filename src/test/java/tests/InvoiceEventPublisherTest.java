@@ -0,0 +1,211 @@
+package tests;
+
+import com.bitpay.sdk_light.model.Invoice.InvoiceStatus;
+import com.bitpay.sdk_light.tracking.InvoiceEvent;
+import com.bitpay.sdk_light.tracking.InvoiceEventPublisher;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Subscribes recording subscribers to the publisher and checks transitions, demand and overflow.
+ */
+public class InvoiceEventPublisherTest {
+
+    @Test
+    public void testShouldPublishForwardTransitionsOnly() {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(16);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(recorder);
+
+        assertTrue(publisher.publish("A", InvoiceStatus.New, "false", 1, null));
+        assertTrue(publisher.publish("A", InvoiceStatus.Paid, "false", 2, null));
+        assertFalse(publisher.publish("A", InvoiceStatus.Paid, "false", 3, null));
+        assertFalse(publisher.publish("A", InvoiceStatus.New, "false", 4, null));
+        assertTrue(publisher.publish("A", InvoiceStatus.Confirmed, "false", 5, null));
+        assertTrue(publisher.publish("A", InvoiceStatus.Complete, "false", 6, null));
+
+        assertEquals(4, recorder.events.size());
+        assertNull(recorder.events.get(0).getPreviousStatus());
+        assertEquals(InvoiceStatus.Paid, recorder.events.get(2).getPreviousStatus());
+        assertEquals(InvoiceStatus.Complete, recorder.events.get(3).getStatus());
+        assertEquals(2, publisher.getIgnoredCount());
+        assertEquals(0, publisher.getTrackedCount());
+    }
+
+    @Test
+    public void testShouldDropReportsAfterFinalStatus() {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(16);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(recorder);
+
+        assertTrue(publisher.publish("A", InvoiceStatus.Paid, "false", 1, null));
+        assertTrue(publisher.publish("A", InvoiceStatus.Complete, "false", 2, null));
+        assertFalse(publisher.publish("A", InvoiceStatus.Confirmed, "false", 3, null));
+        assertFalse(publisher.publish("A", InvoiceStatus.New, "false", 4, null));
+
+        assertEquals(2, recorder.events.size());
+        assertEquals(0, publisher.getTrackedCount());
+    }
+
+    @Test
+    public void testShouldForgetLeastRecentlyReportedInvoices() {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(16, 2);
+
+        publisher.publish("A", InvoiceStatus.New, "false", 1, null);
+        publisher.publish("B", InvoiceStatus.New, "false", 2, null);
+        publisher.publish("A", InvoiceStatus.Paid, "false", 3, null);
+        publisher.publish("C", InvoiceStatus.New, "false", 4, null);
+
+        assertEquals(2, publisher.getTrackedCount());
+        assertEquals(1, publisher.getEvictedCount());
+        assertFalse(publisher.publish("A", InvoiceStatus.New, "false", 5, null));
+        assertTrue(publisher.publish("B", InvoiceStatus.New, "false", 6, null));
+    }
+
+    @Test
+    public void testShouldSignalOutsidePublisherLock() {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(1);
+        Recorder recorder = new Recorder(0);
+        recorder.lock = publisher;
+        publisher.subscribe(recorder);
+
+        publisher.publish("A", InvoiceStatus.Paid, "false", 1, null);
+        publisher.publish("B", InvoiceStatus.Paid, "false", 2, null);
+
+        assertTrue(recorder.error instanceof IllegalStateException);
+        assertFalse(recorder.signalledUnderLock);
+    }
+
+    @Test
+    public void testShouldDeliverOnlyWhatIsRequested() {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(16);
+        Recorder recorder = new Recorder(1);
+        publisher.subscribe(recorder);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.publish("invoice-" + i, InvoiceStatus.Paid, "false", i, null);
+        }
+        assertEquals(1, recorder.events.size());
+
+        recorder.subscription.request(3);
+        assertEquals(4, recorder.events.size());
+        assertEquals("invoice-3", recorder.events.get(3).getInvoiceId());
+
+        publisher.close();
+        assertFalse(recorder.completed);
+        recorder.subscription.request(1);
+        assertEquals(5, recorder.events.size());
+        assertTrue(recorder.completed);
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    @Test
+    public void testShouldCancelSubscriberThatFallsBehind() {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(2);
+        Recorder slow = new Recorder(0);
+        Recorder fast = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(slow);
+        publisher.subscribe(fast);
+
+        for (int i = 0; i < 3; i++) {
+            publisher.publish("invoice-" + i, InvoiceStatus.Paid, "false", i, null);
+        }
+
+        assertTrue(slow.error instanceof IllegalStateException);
+        assertEquals(0, slow.events.size());
+        assertEquals(3, fast.events.size());
+        assertEquals(1, publisher.getOverflowCount());
+        assertEquals(1, publisher.getSubscriberCount());
+    }
+
+    @Test
+    public void testShouldRejectNonPositiveRequest() {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(2);
+        Recorder recorder = new Recorder(0);
+        publisher.subscribe(recorder);
+
+        recorder.subscription.request(0);
+
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testShouldSignalSeriallyFromManyThreads() throws Exception {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(100_000);
+        Recorder recorder = new Recorder(0);
+        publisher.subscribe(recorder);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    publisher.publish("invoice-" + thread + "-" + i, InvoiceStatus.Paid, "false", i, null);
+                    recorder.subscription.request(1);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(4000, recorder.events.size());
+        assertFalse(recorder.overlapped);
+    }
+
+    private static class Recorder implements Subscriber<InvoiceEvent> {
+        final long initialRequest;
+        final List<InvoiceEvent> events = new ArrayList<>();
+        Subscription subscription;
+        Throwable error;
+        boolean completed;
+        volatile boolean overlapped;
+        private volatile boolean inside;
+        Object lock = new Object();
+        boolean signalledUnderLock;
+
+        Recorder(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            signalledUnderLock |= Thread.holdsLock(lock);
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(InvoiceEvent event) {
+            overlapped |= inside;
+            signalledUnderLock |= Thread.holdsLock(lock);
+            inside = true;
+            events.add(event);
+            inside = false;
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            signalledUnderLock |= Thread.holdsLock(lock);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            signalledUnderLock |= Thread.holdsLock(lock);
+        }
+    }
+}
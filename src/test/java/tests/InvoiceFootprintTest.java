@@ -0,0 +1,96 @@
+package tests;
+
+import com.bitpay.sdk_light.model.Invoice.CompactInvoice;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.util.codec.CodecModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the retained size of tracked invoices with JOL and prints the bytes per invoice of each model.
+ * Sizes are averaged over many distinct invoices, so that interned codes and other shared objects are only
+ * counted once.
+ */
+public class InvoiceFootprintTest {
+
+    private static final int COUNT = 200;
+
+    private static String invoiceJson;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        invoiceJson = ModelRoundTripTest.loadData("invoice.json").toString();
+    }
+
+    @Test
+    public void testShouldReportBytesPerInvoice() throws IOException {
+        ObjectMapper plain = new ObjectMapper();
+        ObjectMapper codecs = new ObjectMapper().registerModule(new CodecModule());
+
+        List<Invoice> beans = new ArrayList<>();
+        List<Invoice> deferred = new ArrayList<>();
+        List<CompactInvoice> compact = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            String json = distinct(i);
+            beans.add(plain.readValue(json, Invoice.class));
+            deferred.add(codecs.readValue(json, Invoice.class));
+            compact.add(new CompactInvoice(codecs.readValue(json, Invoice.class)));
+        }
+
+        long beanBytes = bytesPerInvoice(beans);
+        long deferredBytes = bytesPerInvoice(deferred);
+        long compactBytes = bytesPerInvoice(compact);
+        System.out.println("Invoice (databind):          " + beanBytes + " bytes/invoice");
+        System.out.println("Invoice (codecs, deferred):  " + deferredBytes + " bytes/invoice");
+        System.out.println("CompactInvoice:              " + compactBytes + " bytes/invoice");
+
+        assertTrue("CompactInvoice should be under a quarter of an Invoice, was " + compactBytes + " vs " + beanBytes,
+                compactBytes * 4 < beanBytes);
+    }
+
+    @Test
+    public void testShouldCopyTrackingFields() throws IOException {
+        Invoice invoice = new ObjectMapper().readValue(invoiceJson, Invoice.class);
+        CompactInvoice compact = new CompactInvoice(invoice);
+
+        assertEquals(invoice.getId(), compact.getId());
+        assertEquals(invoice.getUrl(), compact.getUrl());
+        assertSame("paid", compact.getStatus());
+        assertEquals(invoice.getExceptionStatus(), compact.getExceptionStatus());
+        assertEquals(invoice.getOrderId(), compact.getOrderId());
+        assertEquals(invoice.getPosData(), compact.getPosData());
+        assertEquals(invoice.getCurrency(), compact.getCurrency());
+        assertEquals(invoice.getTransactionCurrency(), compact.getTransactionCurrency());
+        assertEquals(invoice.getPrice(), compact.getPrice(), 0);
+        assertEquals(0, invoice.getAmountPaid().compareTo(compact.getAmountPaid()));
+        assertEquals(invoice.getInvoiceTime(), compact.getInvoiceTime());
+        assertEquals(invoice.getExpirationTime(), compact.getExpirationTime());
+        assertEquals(invoice.getTargetConfirmations(), compact.getTargetConfirmations());
+        assertEquals(invoice.getLowFeeDetected(), compact.getLowFeeDetected());
+    }
+
+    @Test
+    public void testShouldKeepAmountsBeyondLongRange() throws IOException {
+        Invoice invoice = new ObjectMapper().readValue(invoiceJson, Invoice.class);
+        invoice.setAmountPaid(new java.math.BigDecimal("129990000000000000000"));
+
+        assertEquals("129990000000000000000", new CompactInvoice(invoice).getAmountPaid().toPlainString());
+    }
+
+    // Give each copy its own id, so that the strings of one invoice are not shared with the next
+    private static String distinct(int i) {
+        return invoiceJson.replace("G3viJEJgE8Jk2oekSdgT2A", String.format("G3viJEJgE8Jk2oekS%05d", i));
+    }
+
+    private static long bytesPerInvoice(List<?> invoices) {
+        return GraphLayout.parseInstance(invoices.toArray()).totalSize() / invoices.size();
+    }
+}
@@ -0,0 +1,106 @@
+package tests;
+
+import com.bitpay.sdk_light.model.Invoice.InvoiceStatus;
+import com.bitpay.sdk_light.store.InvoiceIndex;
+import com.bitpay.sdk_light.store.InvoiceStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Indexes invoices recorded in a store in a temporary directory.
+ */
+public class InvoiceIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testShouldFindByOrderIdAndPosData() throws IOException {
+        try (InvoiceStore store = new InvoiceStore(folder.newFolder(), 1 << 20, false);
+             InvoiceIndex index = new InvoiceIndex(store)) {
+            // "Aa" and "BB" have the same hash code
+            store.put("A", json("Aa", "{\"cart\":1}", InvoiceStatus.New, 1000));
+            store.put("B", json("BB", "{\"cart\":2}", InvoiceStatus.New, 2000));
+            store.put("C", json("Aa", "{\"cart\":3}", InvoiceStatus.New, 3000));
+
+            assertEquals(Arrays.asList("A", "C"), index.findByOrderId("Aa"));
+            assertEquals(Collections.singletonList("B"), index.findByOrderId("BB"));
+            assertEquals(Collections.emptyList(), index.findByOrderId("none"));
+            assertEquals(Collections.singletonList("C"), index.findByPosData("{\"cart\":3}"));
+        }
+    }
+
+    @Test
+    public void testShouldFollowStatusChanges() throws IOException {
+        try (InvoiceStore store = new InvoiceStore(folder.newFolder(), 1 << 20, false);
+             InvoiceIndex index = new InvoiceIndex(store)) {
+            store.put("A", json("1", null, InvoiceStatus.New, 1000));
+            store.put("B", json("2", null, InvoiceStatus.New, 2000));
+            store.put("A", json("1", null, InvoiceStatus.Paid, 1000));
+
+            assertEquals(Collections.singletonList("B"), index.findByStatus(InvoiceStatus.New));
+            assertEquals(Collections.singletonList("A"), index.findByStatus(InvoiceStatus.Paid));
+            assertEquals(0, index.countByStatus(InvoiceStatus.Complete));
+            assertEquals(2, index.size());
+        }
+    }
+
+    @Test
+    public void testShouldFindByInvoiceTimeRange() throws IOException {
+        try (InvoiceStore store = new InvoiceStore(folder.newFolder(), 1 << 20, false);
+             InvoiceIndex index = new InvoiceIndex(store)) {
+            store.put("A", json("1", null, InvoiceStatus.New, 1000));
+            store.put("C", json("3", null, InvoiceStatus.New, 3000));
+            store.put("D", json("4", null, InvoiceStatus.New, 4000));
+            // Out of order
+            store.put("B", json("2", null, InvoiceStatus.New, 2000));
+
+            assertEquals(Arrays.asList("B", "C"), index.findByInvoiceTime(2000, 4000));
+            assertEquals(Arrays.asList("A", "B", "C", "D"), index.findByInvoiceTime(0, Long.MAX_VALUE));
+            assertEquals(Collections.emptyList(), index.findByInvoiceTime(4001, 5000));
+        }
+    }
+
+    @Test
+    public void testShouldIndexRecordedInvoicesOnOpen() throws IOException {
+        File directory = folder.newFolder();
+        try (InvoiceStore store = new InvoiceStore(directory, 1 << 20, false)) {
+            for (int i = 0; i < 5000; i++) {
+                store.put("invoice-" + i, json("order-" + (i % 100), "pos-" + i, i % 2 == 0 ? InvoiceStatus.Paid : InvoiceStatus.New, i));
+            }
+            // Recorded last, but the oldest
+            store.put("invoice-early", json("order-7", "pos-early", InvoiceStatus.Paid, -1));
+        }
+
+        try (InvoiceStore store = new InvoiceStore(directory); InvoiceIndex index = new InvoiceIndex(store)) {
+            assertEquals(5001, index.size());
+            List<String> order = index.findByOrderId("order-7");
+            assertEquals(51, order.size());
+            assertEquals("invoice-early", order.get(0));
+            for (int i = 1; i < order.size(); i++) {
+                assertEquals("invoice-" + (7 + 100 * (i - 1)), order.get(i));
+            }
+            assertEquals(Collections.singletonList("invoice-4321"), index.findByPosData("pos-4321"));
+            assertEquals(2501, index.countByStatus(InvoiceStatus.Paid));
+            List<String> paid = index.findByStatus(InvoiceStatus.Paid);
+            assertEquals(Arrays.asList("invoice-early", "invoice-0", "invoice-2"), paid.subList(0, 3));
+            assertEquals("invoice-4998", paid.get(2500));
+            assertEquals(Arrays.asList("invoice-10", "invoice-11"), index.findByInvoiceTime(10, 12));
+        }
+    }
+
+    private static String json(String orderId, String posData, String status, long invoiceTime) {
+        return "{\"url\":\"https://bitpay.com/i/x\",\"posData\":" + (posData == null ? "null" : "\"" + posData.replace("\"", "\\\"") + "\"")
+                + ",\"status\":\"" + status + "\",\"buyer\":{\"name\":\"x\"},\"invoiceTime\":" + invoiceTime
+                + ",\"orderId\":\"" + orderId + "\"}";
+    }
+}
@@ -0,0 +1,214 @@
+package tests;
+
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.store.InvoiceNotRecordedException;
+import com.bitpay.sdk_light.store.InvoiceStore;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes, reopens, damages and compacts stores in a temporary directory.
+ */
+public class InvoiceStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testShouldRecoverRecordsOnReopen() throws IOException {
+        File directory = folder.newFolder();
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            store.put("A", json("A", "new"));
+            store.put("B", json("B", "new"));
+            store.put("A", json("A", "paid"));
+            assertEquals(json("A", "paid"), store.getJson("A"));
+        }
+
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            assertEquals(2, store.size());
+            assertEquals(3, store.getRecoveredRecordCount());
+            assertEquals(json("A", "paid"), store.getJson("A"));
+            assertEquals(json("B", "new"), store.getJson("B"));
+            assertNull(store.getJson("C"));
+            assertTrue(store.getDeadBytes() > 0);
+        }
+    }
+
+    @Test
+    public void testShouldCutOffTornRecord() throws IOException {
+        File directory = folder.newFolder();
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            store.put("A", json("A", "new"));
+            store.put("B", json("B", "new"));
+        }
+        File segment = segments(directory)[0];
+        long complete = segment.length();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // A crash in the middle of the third record
+            file.seek(complete);
+            file.writeInt(200);
+            file.writeInt(12345);
+            file.write(new byte[]{1, 0, 1, 'C'});
+        }
+
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            assertEquals(2, store.size());
+            assertEquals(12, store.getTruncatedBytes());
+            assertEquals(complete, segment.length());
+            store.put("C", json("C", "new"));
+        }
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            assertEquals(3, store.size());
+            assertEquals(0, store.getTruncatedBytes());
+        }
+    }
+
+    @Test
+    public void testShouldDropRecordWithBadChecksum() throws IOException {
+        File directory = folder.newFolder();
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            store.put("A", json("A", "new"));
+            store.put("B", json("B", "new"));
+        }
+        File segment = segments(directory)[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(segment.length() - 3);
+            file.write('x');
+        }
+
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            assertEquals(1, store.size());
+            assertTrue(store.contains("A"));
+            assertTrue(store.getTruncatedBytes() > 0);
+        }
+    }
+
+    @Test
+    public void testShouldNotCutOffRecordsAfterCorruptOne() throws IOException {
+        File directory = folder.newFolder();
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            store.put("A", json("A", "new"));
+            store.put("B", json("B", "new"));
+            store.put("C", json("C", "new"));
+        }
+        File segment = segments(directory)[0];
+        long complete = segment.length();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // A flipped byte in the middle of B, with C written and synced after it
+            file.seek(complete / 2);
+            file.write('x');
+        }
+
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            fail("Expected a corrupt record followed by valid ones to fail the open, not " + store.size() + " invoices");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("corrupt record"));
+        }
+        assertEquals(complete, segment.length());
+    }
+
+    @Test
+    public void testShouldCompactSupersededRecords() throws IOException {
+        File directory = folder.newFolder();
+        try (InvoiceStore store = new InvoiceStore(directory, 1024, false)) {
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 10; i++) {
+                    store.put("invoice-" + i, json("invoice-" + i, "round-" + round));
+                }
+            }
+            assertTrue(store.getSegmentCount() > 1);
+            assertTrue(store.compact());
+
+            assertEquals(2, store.getSegmentCount());
+            assertEquals(0, store.getDeadBytes());
+            assertEquals(json("invoice-3", "round-49"), store.getJson("invoice-3"));
+            store.put("invoice-3", json("invoice-3", "final"));
+        }
+
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            assertEquals(10, store.size());
+            assertEquals(11, store.getRecoveredRecordCount());
+            assertEquals(json("invoice-3", "final"), store.getJson("invoice-3"));
+            assertEquals(json("invoice-9", "round-49"), store.getJson("invoice-9"));
+        }
+    }
+
+    @Test
+    public void testShouldRecordInvoicesFromClient() throws Exception {
+        byte[] response = IpnReceiverTest.load("invoice.json");
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/invoices/", exchange -> {
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        File directory = folder.newFolder();
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            Client client = new Client("token", "http://127.0.0.1:" + server.getAddress().getPort(), HttpClients.createDefault());
+            client.setInvoiceStore(store);
+
+            Invoice invoice = client.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+
+            Invoice recorded = store.get(invoice.getId());
+            assertEquals(invoice.getStatus(), recorded.getStatus());
+            assertEquals(invoice.getTransactions().size(), recorded.getTransactions().size());
+        } finally {
+            server.stop(0);
+        }
+        try (InvoiceStore store = new InvoiceStore(directory)) {
+            assertTrue(store.contains("G3viJEJgE8Jk2oekSdgT2A"));
+        }
+    }
+
+    @Test
+    public void testShouldReturnInvoiceThatCouldNotBeRecorded() throws Exception {
+        byte[] response = IpnReceiverTest.load("invoice.json");
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/invoices", exchange -> {
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        try {
+            InvoiceStore store = new InvoiceStore(folder.newFolder());
+            store.close();
+            Client client = new Client("token", "http://127.0.0.1:" + server.getAddress().getPort(), HttpClients.createDefault());
+            client.setInvoiceStore(store);
+
+            try {
+                client.createInvoice(new Invoice(129.99, Currency.USD));
+                fail("Expected the closed store to fail");
+            } catch (InvoiceNotRecordedException e) {
+                assertEquals("G3viJEJgE8Jk2oekSdgT2A", e.getInvoice().getId());
+                assertTrue(e.getMessage(), e.getMessage().contains("closed"));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static File[] segments(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".log"));
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static String json(String id, String status) {
+        return "{\"id\":\"" + id + "\",\"status\":\"" + status + "\"}";
+    }
+}
@@ -0,0 +1,175 @@
+package tests;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.ipn.InvoiceNotification;
+import com.bitpay.sdk_light.ipn.InvoiceVerifier;
+import com.bitpay.sdk_light.ipn.VerifiedInvoiceHandler;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceStatus;
+import com.bitpay.sdk_light.tracking.InvoiceEventPublisher;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the verifier against a local server that answers every invoice fetch with the captured invoice.
+ */
+public class InvoiceVerifierTest {
+
+    private static final byte[] ERROR = "{\"error\":\"Service unavailable\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+    private final AtomicInteger failing = new AtomicInteger();
+    private Client client;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] invoice = IpnReceiverTest.load("invoice.json");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/invoices/", exchange -> {
+            fetches.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger()).incrementAndGet();
+            byte[] body = failing.getAndDecrement() > 0 ? ERROR : invoice;
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        client = new Client("token", "http://127.0.0.1:" + server.getAddress().getPort(), HttpClients.createDefault());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testShouldCoalesceNotificationsPerInvoice() throws Exception {
+        Map<String, List<InvoiceNotification>> verified = new ConcurrentHashMap<>();
+        List<Invoice> invoices = new CopyOnWriteArrayList<>();
+        InvoiceVerifier verifier = new InvoiceVerifier(client, (invoice, notifications) -> {
+            invoices.add(invoice);
+            verified.put(notifications.get(0).getInvoiceId(), notifications);
+        }, 200, TimeUnit.MILLISECONDS, 2);
+
+        for (int i = 0; i < 50; i++) {
+            verifier.onNotification(notification("A", i < 25 ? "paid" : "confirmed"));
+        }
+        verifier.onNotification(notification("B", "paid"));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+
+        assertEquals(1, fetches.get("/invoices/A").get());
+        assertEquals(1, fetches.get("/invoices/B").get());
+        assertEquals(2, verifier.getFetchCount());
+        assertEquals(51, verifier.getNotificationCount());
+        assertEquals(50, verified.get("A").size());
+        assertEquals("confirmed", verified.get("A").get(49).getStatus());
+        assertEquals(1, verified.get("B").size());
+        assertEquals("G3viJEJgE8Jk2oekSdgT2A", invoices.get(0).getId());
+    }
+
+    @Test
+    public void testShouldFetchAgainAfterWindow() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        InvoiceVerifier verifier = new InvoiceVerifier(client, (invoice, notifications) -> handled.incrementAndGet(),
+                10, TimeUnit.MILLISECONDS, 1);
+
+        verifier.onNotification(notification("A", "paid"));
+        waitFor(() -> handled.get() == 1);
+        verifier.onNotification(notification("A", "confirmed"));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+
+        assertEquals(2, handled.get());
+        assertEquals(2, fetches.get("/invoices/A").get());
+    }
+
+    @Test
+    public void testShouldRetryFailedFetch() throws Exception {
+        failing.set(2);
+        List<List<InvoiceNotification>> verified = new CopyOnWriteArrayList<>();
+        InvoiceVerifier verifier = new InvoiceVerifier(client, (invoice, notifications) -> verified.add(notifications),
+                10, TimeUnit.MILLISECONDS, 1);
+        verifier.setRetries(3, 200, TimeUnit.MILLISECONDS);
+
+        verifier.onNotification(notification("A", "paid"));
+        waitFor(() -> verifier.getRetryCount() == 1);
+        verifier.onNotification(notification("A", "confirmed"));
+        waitFor(() -> verified.size() == 1);
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+
+        assertEquals(3, fetches.get("/invoices/A").get());
+        assertEquals(2, verifier.getRetryCount());
+        assertEquals(1, verified.size());
+        assertEquals(2, verified.get(0).size());
+        assertEquals("paid", verified.get(0).get(0).getStatus());
+        assertEquals("confirmed", verified.get(0).get(1).getStatus());
+    }
+
+    @Test
+    public void testShouldReportFailureAfterRetries() throws Exception {
+        failing.set(Integer.MAX_VALUE);
+        List<List<InvoiceNotification>> failed = new CopyOnWriteArrayList<>();
+        InvoiceVerifier verifier = new InvoiceVerifier(client, new VerifiedInvoiceHandler() {
+            @Override
+            public void onVerifiedInvoice(Invoice invoice, List<InvoiceNotification> notifications) {
+                fail("Expected the fetch to fail");
+            }
+
+            @Override
+            public void onVerificationFailed(String invoiceId, List<InvoiceNotification> notifications, BitPayException e) {
+                failed.add(notifications);
+            }
+        }, 10, TimeUnit.MILLISECONDS, 1);
+        verifier.setRetries(2, 10, TimeUnit.MILLISECONDS);
+
+        verifier.onNotification(notification("A", "paid"));
+        waitFor(() -> failed.size() == 1);
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+
+        assertEquals(3, fetches.get("/invoices/A").get());
+        assertEquals(1, failed.size());
+        assertEquals("paid", failed.get(0).get(0).getStatus());
+    }
+
+    @Test
+    public void testShouldNotPublishForgedStatus() throws Exception {
+        InvoiceEventPublisher publisher = new InvoiceEventPublisher(16);
+        InvoiceVerifier verifier = new InvoiceVerifier(client, publisher, 10, TimeUnit.MILLISECONDS, 1);
+
+        // Anyone can post a notification: the captured invoice is still paid
+        verifier.onNotification(notification("G3viJEJgE8Jk2oekSdgT2A", InvoiceStatus.Complete));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+
+        assertEquals(1, publisher.getPublishedCount());
+        assertEquals(1, publisher.getTrackedCount());
+        assertTrue(publisher.publish("G3viJEJgE8Jk2oekSdgT2A", InvoiceStatus.Confirmed, "false", 1, null));
+        assertTrue(publisher.publish("G3viJEJgE8Jk2oekSdgT2A", InvoiceStatus.Complete, "false", 2, null));
+        assertEquals(0, publisher.getIgnoredCount());
+    }
+
+    private static InvoiceNotification notification(String invoiceId, String status) {
+        return new InvoiceNotification(1003, "invoice_paidInFull", invoiceId, null, status, "false", null, null, 0);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package tests;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceStatus;
+import com.bitpay.sdk_light.tracking.InvoiceListener;
+import com.bitpay.sdk_light.tracking.InvoiceWatcher;
+import com.bitpay.sdk_light.tracking.PollingPolicy;
+import com.bitpay.sdk_light.tracking.RequestBudget;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the polling policy, the request budget, and a watcher polling a local server whose invoice moves
+ * through its statuses.
+ */
+public class InvoiceWatcherTest {
+
+    private HttpServer server;
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicInteger failing = new AtomicInteger();
+    private volatile String[] statuses = {InvoiceStatus.Paid};
+    private Client client;
+
+    @Before
+    public void setUp() throws Exception {
+        String invoice = new String(IpnReceiverTest.load("invoice.json"), StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/invoices/", exchange -> {
+            int fetch = fetches.getAndIncrement();
+            String status = statuses[Math.min(fetch, statuses.length - 1)];
+            byte[] body = (failing.getAndDecrement() > 0 ? "{\"error\":\"Service unavailable\"}"
+                    : invoice.replace("\"status\": \"paid\"", "\"status\": \"" + status + "\""))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        client = new Client("token", "http://127.0.0.1:" + server.getAddress().getPort(), HttpClients.createDefault());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testShouldPollMoreOftenNearExpiry() {
+        PollingPolicy policy = new PollingPolicy();
+        policy.setJitter(0);
+
+        long far = policy.nextDelayMillis(invoice(InvoiceStatus.New, 3_600_000), 0);
+        long near = policy.nextDelayMillis(invoice(InvoiceStatus.New, 60_000), 0);
+        long nearUnchanged = policy.nextDelayMillis(invoice(InvoiceStatus.New, 60_000), 5);
+
+        assertTrue(far > near);
+        assertEquals(15_000, near);
+        assertEquals(near, nearUnchanged);
+        assertEquals(policy.getMinIntervalMillis() * 2, policy.nextDelayMillis(invoice(InvoiceStatus.New, -1_000), 0));
+    }
+
+    @Test
+    public void testShouldBackOffWhileUnchanged() {
+        PollingPolicy policy = new PollingPolicy();
+        policy.setJitter(0);
+        Invoice confirming = invoice(InvoiceStatus.Paid, -60_000);
+        confirming.setTargetConfirmations(1);
+
+        assertEquals(60_000, policy.nextDelayMillis(confirming, 0));
+        assertEquals(120_000, policy.nextDelayMillis(confirming, 1));
+        assertEquals(policy.getMaxIntervalMillis(), policy.nextDelayMillis(confirming, 10));
+        assertEquals(-1, policy.nextDelayMillis(invoice(InvoiceStatus.Complete, 0), 0));
+        assertEquals(-1, policy.nextDelayMillis(invoice(InvoiceStatus.Expired, 0), 0));
+    }
+
+    @Test
+    public void testShouldJitterDelays() {
+        PollingPolicy policy = new PollingPolicy();
+        boolean spread = false;
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.jitter(10_000);
+            assertTrue(delay >= 8_000 && delay <= 12_000);
+            spread |= delay != 10_000;
+        }
+        assertTrue(spread);
+    }
+
+    @Test
+    public void testShouldQueueReservationsBeyondBudget() {
+        RequestBudget budget = new RequestBudget(10, 2);
+
+        assertEquals(0, budget.reserve());
+        assertEquals(0, budget.reserve());
+        long third = budget.reserve();
+        long fourth = budget.reserve();
+
+        assertTrue(third > 0 && third <= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(fourth > third);
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    public void testShouldWatchUntilFinalStatus() throws Exception {
+        statuses = new String[]{InvoiceStatus.Paid, InvoiceStatus.Paid, InvoiceStatus.Confirmed, InvoiceStatus.Complete};
+        PollingPolicy policy = new PollingPolicy();
+        policy.setMinIntervalMillis(10);
+        policy.setMaxIntervalMillis(20);
+        policy.setJitter(0);
+        List<String> seen = new CopyOnWriteArrayList<>();
+        List<Boolean> changes = new CopyOnWriteArrayList<>();
+        InvoiceWatcher watcher = new InvoiceWatcher(client, (invoice, changed) -> {
+            seen.add(invoice.getStatus());
+            changes.add(changed);
+        }, policy, new RequestBudget(1000, 1), 1);
+
+        assertTrue(watcher.watch("G3viJEJgE8Jk2oekSdgT2A", 0, TimeUnit.MILLISECONDS));
+        assertFalse(watcher.watch("G3viJEJgE8Jk2oekSdgT2A", 0, TimeUnit.MILLISECONDS));
+        awaitTrue(() -> watcher.getFinishedCount() == 1);
+        Thread.sleep(100);
+
+        assertEquals(4, watcher.getPollCount());
+        assertEquals(0, watcher.getWatchedCount());
+        assertEquals(4, seen.size());
+        assertEquals(InvoiceStatus.Complete, seen.get(3));
+        assertEquals(true, changes.get(0));
+        assertEquals(false, changes.get(1));
+        assertEquals(true, changes.get(2));
+        watcher.close();
+    }
+
+    @Test
+    public void testShouldRetryWhenFailureListenerThrows() throws Exception {
+        failing.set(2);
+        statuses = new String[]{InvoiceStatus.Complete};
+        PollingPolicy policy = new PollingPolicy();
+        policy.setMinIntervalMillis(10);
+        policy.setMaxIntervalMillis(20);
+        policy.setJitter(0);
+        AtomicInteger failures = new AtomicInteger();
+        InvoiceWatcher watcher = new InvoiceWatcher(client, new InvoiceListener() {
+            @Override
+            public void onInvoice(Invoice invoice, boolean changed) {
+            }
+
+            @Override
+            public void onFetchFailed(String invoiceId, BitPayException e) {
+                failures.incrementAndGet();
+                throw new IllegalStateException("listener failure");
+            }
+        }, policy, new RequestBudget(1000, 1), 1);
+
+        assertTrue(watcher.watch("G3viJEJgE8Jk2oekSdgT2A", 0, TimeUnit.MILLISECONDS));
+        awaitTrue(() -> watcher.getFinishedCount() == 1);
+
+        assertEquals(2, failures.get());
+        assertEquals(2, watcher.getFailureCount());
+        assertEquals(3, watcher.getPollCount());
+        watcher.close();
+    }
+
+    @Test
+    public void testShouldStayWithinBudget() throws Exception {
+        PollingPolicy policy = new PollingPolicy();
+        policy.setMinIntervalMillis(1);
+        policy.setMaxIntervalMillis(1);
+        policy.setJitter(0);
+        InvoiceWatcher watcher = new InvoiceWatcher(client, (invoice, changed) -> {
+        }, policy, new RequestBudget(20, 1), 4);
+
+        for (int i = 0; i < 50; i++) {
+            watcher.watch("invoice-" + i, 0, TimeUnit.MILLISECONDS);
+        }
+        Thread.sleep(500);
+        assertTrue(watcher.close(5, TimeUnit.SECONDS));
+
+        assertTrue("fetches: " + fetches.get(), fetches.get() <= 12);
+        assertTrue(watcher.getThrottledCount() > 0);
+    }
+
+    private static Invoice invoice(String status, long expiresIn) {
+        Invoice invoice = new Invoice();
+        invoice.setStatus(status);
+        invoice.setCurrentTime(1586955412021L);
+        invoice.setExpirationTime(1586955412021L + expiresIn);
+        return invoice;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,162 @@
+package tests;
+
+import com.bitpay.sdk_light.ipn.InvoiceNotification;
+import com.bitpay.sdk_light.ipn.IpnReceiver;
+import com.bitpay.sdk_light.ipn.NotificationDeduplicator;
+import com.bitpay.sdk_light.ipn.NotificationParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IpnReceiverTest {
+
+    @Test
+    public void testShouldParseExtendedNotification() throws IOException {
+        InvoiceNotification notification = NotificationParser.parse(new ByteArrayInputStream(load("ipn.json")));
+
+        assertEquals(1003, notification.getEventCode());
+        assertEquals("invoice_paidInFull", notification.getEventName());
+        assertEquals("G3viJEJgE8Jk2oekSdgT2A", notification.getInvoiceId());
+        assertEquals("paid", notification.getStatus());
+        assertEquals("false", notification.getExceptionStatus());
+        assertEquals("ORD-20200415-0042", notification.getOrderId());
+        assertEquals(1586955412021L, notification.getCurrentTime());
+    }
+
+    @Test
+    public void testShouldParsePlainNotification() throws IOException {
+        String body = "{\"id\":\"G3viJEJgE8Jk2oekSdgT2A\",\"status\":\"confirmed\",\"buyerFields\":{\"buyerName\":\"x\"},\"exceptionStatus\":\"paidOver\"}";
+        InvoiceNotification notification = NotificationParser.parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0, notification.getEventCode());
+        assertEquals("G3viJEJgE8Jk2oekSdgT2A", notification.getInvoiceId());
+        assertEquals("confirmed", notification.getStatus());
+        assertEquals("paidOver", notification.getExceptionStatus());
+    }
+
+    @Test
+    public void testShouldDispatchAcceptedNotifications() throws Exception {
+        List<InvoiceNotification> handled = new CopyOnWriteArrayList<>();
+        try (IpnReceiver receiver = new IpnReceiver(handled::add, 2, 16)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(200, receiver.receive(new ByteArrayInputStream(load("ipn.json"))));
+            }
+            assertTrue(receiver.close(5, TimeUnit.SECONDS));
+
+            assertEquals(10, handled.size());
+            assertEquals(10, receiver.getHandledCount());
+            assertEquals(503, receiver.receive(new ByteArrayInputStream(load("ipn.json"))));
+        }
+    }
+
+    @Test
+    public void testShouldRefuseWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (IpnReceiver receiver = new IpnReceiver(n -> release.await(), 1, 1)) {
+            assertEquals(200, receiver.receive(new ByteArrayInputStream(load("ipn.json"))));
+            waitUntilQueueIsEmpty(receiver);
+            assertEquals(200, receiver.receive(new ByteArrayInputStream(load("ipn.json"))));
+            assertEquals(503, receiver.receive(new ByteArrayInputStream(load("ipn.json"))));
+            assertEquals(1, receiver.getRejectedCount());
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testShouldRejectMalformedBodies() {
+        try (IpnReceiver receiver = new IpnReceiver(n -> fail("unexpected " + n), 1, 1, 512)) {
+            assertEquals(400, receiver.receive(new ByteArrayInputStream("not json".getBytes(StandardCharsets.UTF_8))));
+            assertEquals(400, receiver.receive(new ByteArrayInputStream("{\"status\":\"paid\"}".getBytes(StandardCharsets.UTF_8))));
+            assertEquals(400, receiver.receive(new ByteArrayInputStream("{\"id\":\"../bills/X?token=\"}".getBytes(StandardCharsets.UTF_8))));
+            assertEquals(400, receiver.receive(new ByteArrayInputStream("{\"id\":\"\"}".getBytes(StandardCharsets.UTF_8))));
+            assertEquals(413, receiver.receive(new ByteArrayInputStream(load("ipn.json"))));
+            assertEquals(5, receiver.getMalformedCount());
+        }
+    }
+
+    @Test
+    public void testShouldDropRepeatedNotifications() throws Exception {
+        List<InvoiceNotification> handled = new CopyOnWriteArrayList<>();
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator(handled::add, 1, TimeUnit.HOURS, 1000);
+
+        deduplicator.onNotification(notification("A", "paid", 1003));
+        deduplicator.onNotification(notification("A", "paid", 1003));
+        deduplicator.onNotification(notification("A", "confirmed", 1005));
+        deduplicator.onNotification(notification("B", "paid", 1003));
+        deduplicator.onNotification(notification("A", "paid", 1003));
+
+        assertEquals(3, handled.size());
+        assertEquals(2, deduplicator.getHitCount());
+        assertEquals(3, deduplicator.getMissCount());
+        assertEquals(0.4, deduplicator.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void testShouldBoundRememberedNotifications() throws Exception {
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator(n -> { }, 1, TimeUnit.HOURS, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            deduplicator.onNotification(notification("invoice-" + i, "paid", 1003));
+        }
+
+        assertTrue(deduplicator.size() <= 100);
+        assertTrue(deduplicator.getRotationCount() > 0);
+        assertEquals(0, deduplicator.getHitCount());
+    }
+
+    @Test
+    public void testShouldForgetNotificationWhenHandlerFails() throws Exception {
+        List<InvoiceNotification> handled = new CopyOnWriteArrayList<>();
+        boolean[] fail = {true};
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator(n -> {
+            if (fail[0]) {
+                throw new IOException("database unavailable");
+            }
+            handled.add(n);
+        }, 1, TimeUnit.HOURS, 1000);
+
+        try {
+            deduplicator.onNotification(notification("A", "paid", 1003));
+            fail("expected the handler failure");
+        } catch (IOException expected) {
+        }
+        fail[0] = false;
+        deduplicator.onNotification(notification("A", "paid", 1003));
+
+        assertEquals(1, handled.size());
+    }
+
+    private static InvoiceNotification notification(String invoiceId, String status, int eventCode) {
+        return new InvoiceNotification(eventCode, null, invoiceId, null, status, "false", null, null, 0);
+    }
+
+    private static void waitUntilQueueIsEmpty(IpnReceiver receiver) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (receiver.getQueueSize() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    static byte[] load(String payload) {
+        try (InputStream in = IpnReceiverTest.class.getResourceAsStream("/payloads/" + payload)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
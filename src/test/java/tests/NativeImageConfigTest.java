@@ -0,0 +1,93 @@
+package tests;
+
+import com.bitpay.sdk_light.model.Bill.Bill;
+import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.model.Invoice.InvoiceSummary;
+import com.bitpay.sdk_light.model.Rate.Rate;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the native-image reflection metadata shipped in the jar lists every model class Jackson binds,
+ * found by walking the properties of the top-level models.
+ */
+public class NativeImageConfigTest {
+
+    private static final String REFLECT_CONFIG = "/META-INF/native-image/com.bitpay/bitpay_sdk_light/reflect-config.json";
+
+    @Test
+    public void testShouldListEveryBoundModelClass() throws Exception {
+        Set<String> listed = listedClasses();
+        ObjectMapper mapper = new ObjectMapper();
+
+        Set<Class<?>> bound = new HashSet<>();
+        Deque<JavaType> pending = new ArrayDeque<>();
+        for (Class<?> type : new Class<?>[]{Invoice.class, InvoiceSummary.class, Bill.class, Rate.class}) {
+            pending.add(mapper.constructType(type));
+        }
+        while (!pending.isEmpty()) {
+            JavaType type = pending.poll();
+            if (type.isContainerType()) {
+                pending.add(type.getContentType());
+                continue;
+            }
+            Class<?> raw = type.getRawClass();
+            if (!raw.getName().startsWith("com.bitpay.sdk_light.model.") || !bound.add(raw)) {
+                continue;
+            }
+            BeanDescription deserialized = mapper.getDeserializationConfig().introspect(type);
+            BeanDescription serialized = mapper.getSerializationConfig().introspect(type);
+            for (BeanDescription description : new BeanDescription[]{deserialized, serialized}) {
+                for (BeanPropertyDefinition property : description.findProperties()) {
+                    pending.add(property.getPrimaryType());
+                }
+            }
+        }
+
+        assertTrue(bound.size() > 10);
+        for (Class<?> type : bound) {
+            assertTrue(type.getName() + " is not in " + REFLECT_CONFIG, listed.contains(type.getName()));
+        }
+    }
+
+    @Test
+    public void testShouldListLoadableClasses() throws Exception {
+        for (String name : listedClasses()) {
+            Class.forName(name.endsWith("[]") ? "[L" + name.substring(0, name.length() - 2) + ";" : name);
+        }
+    }
+
+    @Test
+    public void testShouldValidateCurrencyWithoutReflection() {
+        assertTrue(Currency.isValid(Currency.USD));
+        assertTrue(Currency.isValid("ZWL"));
+        assertFalse(Currency.isValid("usd"));
+        assertFalse(Currency.isValid("CODES"));
+        assertFalse(Currency.isValid(null));
+    }
+
+    private static Set<String> listedClasses() throws IOException {
+        Set<String> names = new HashSet<>();
+        try (InputStream in = NativeImageConfigTest.class.getResourceAsStream(REFLECT_CONFIG)) {
+            assertNotNull(REFLECT_CONFIG, in);
+            for (JsonNode entry : new ObjectMapper().readTree(in)) {
+                names.add(entry.get("name").asText());
+            }
+        }
+        return names;
+    }
+}
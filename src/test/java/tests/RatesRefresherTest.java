@@ -0,0 +1,154 @@
+package tests;
+
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.rates.RatesRefresher;
+import com.bitpay.sdk_light.rates.RatesSnapshotFile;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs refreshers sharing one lock file against a local server answering rate fetches with the captured rates.
+ * Refreshers of one process compete for the lock like separate processes do.
+ */
+public class RatesRefresherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private final AtomicInteger fetches = new AtomicInteger();
+    private Client client;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] rates = IpnReceiverTest.load("rates.json");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rates", exchange -> {
+            fetches.incrementAndGet();
+            exchange.sendResponseHeaders(200, rates.length);
+            exchange.getResponseBody().write(rates);
+            exchange.close();
+        });
+        server.createContext("/unavailable/rates", exchange -> {
+            byte[] error = "{\"error\":\"Service unavailable\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, error.length);
+            exchange.getResponseBody().write(error);
+            exchange.close();
+        });
+        server.start();
+        client = new Client("token", "http://127.0.0.1:" + server.getAddress().getPort(), HttpClients.createDefault());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testShouldFetchOncePerPeriodForAllRefreshers() throws Exception {
+        File snapshot = new File(folder.getRoot(), "rates.snapshot");
+        File lock = new File(folder.getRoot(), "rates.lock");
+        RatesRefresher[] refreshers = new RatesRefresher[4];
+        for (int i = 0; i < refreshers.length; i++) {
+            refreshers[i] = new RatesRefresher(client, new RatesSnapshotFile(snapshot, 64 * 1024), lock, 1,
+                    TimeUnit.HOURS, TimeUnit.HOURS.toMillis(1));
+        }
+
+        for (int period = 0; period < 3; period++) {
+            for (RatesRefresher refresher : refreshers) {
+                refresher.refresh();
+            }
+        }
+
+        assertEquals(3, fetches.get());
+        assertTrue(refreshers[0].isLeader());
+        for (int i = 1; i < refreshers.length; i++) {
+            assertFalse(refreshers[i].isLeader());
+            assertEquals(0, refreshers[i].getFetchCount());
+        }
+        for (RatesRefresher refresher : refreshers) {
+            assertEquals(291449.56, refresher.getRates().getRate("USD"), 0);
+            refresher.close();
+        }
+    }
+
+    @Test
+    public void testShouldHandOverWhenLeaderStops() throws Exception {
+        File snapshot = new File(folder.getRoot(), "rates.snapshot");
+        File lock = new File(folder.getRoot(), "rates.lock");
+        RatesRefresher first = new RatesRefresher(client, new RatesSnapshotFile(snapshot, 64 * 1024), lock, 20,
+                TimeUnit.MILLISECONDS, 1000).start();
+        RatesRefresher second = new RatesRefresher(client, new RatesSnapshotFile(snapshot, 64 * 1024), lock, 20,
+                TimeUnit.MILLISECONDS, 1000).start();
+        awaitTrue(() -> first.isLeader() || second.isLeader());
+        RatesRefresher leader = first.isLeader() ? first : second;
+        RatesRefresher follower = leader == first ? second : first;
+        assertFalse(follower.isLeader());
+
+        leader.close();
+        awaitTrue(follower::isLeader);
+        int fetched = fetches.get();
+        awaitTrue(() -> fetches.get() > fetched);
+
+        assertEquals(1, follower.getElectionCount());
+        assertTrue(follower.getRates().getRate("USD") > 0);
+        follower.close();
+    }
+
+    @Test
+    public void testShouldGiveUpLeadAfterFailures() throws Exception {
+        File snapshot = new File(folder.getRoot(), "rates.snapshot");
+        File lock = new File(folder.getRoot(), "rates.lock");
+        Client unavailable = new Client("token", "http://127.0.0.1:" + server.getAddress().getPort() + "/unavailable/",
+                HttpClients.createDefault());
+        RatesRefresher failing = new RatesRefresher(unavailable, new RatesSnapshotFile(snapshot, 64 * 1024), lock, 1,
+                TimeUnit.HOURS, 1000);
+        RatesRefresher healthy = new RatesRefresher(client, new RatesSnapshotFile(snapshot, 64 * 1024), lock, 1,
+                TimeUnit.HOURS, 1000);
+        failing.setMaxConsecutiveFailures(2);
+
+        failing.refresh();
+        assertTrue(failing.isLeader());
+        healthy.refresh();
+        assertFalse(healthy.isLeader());
+        failing.refresh();
+        assertFalse(failing.isLeader());
+        assertEquals(1, failing.getResignationCount());
+
+        // Standing down for a period leaves the lead to the others
+        failing.refresh();
+        assertFalse(failing.isLeader());
+        healthy.refresh();
+        assertTrue(healthy.isLeader());
+        assertEquals(1, fetches.get());
+        assertTrue(healthy.getRates().getRate("USD") > 0);
+        failing.refresh();
+        assertFalse(failing.isLeader());
+        assertEquals(2, failing.getFailureCount());
+
+        failing.close();
+        healthy.close();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,191 @@
+package tests;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.model.Rate.Rate;
+import com.bitpay.sdk_light.model.Rate.Rates;
+import com.bitpay.sdk_light.rates.RatesSnapshotFile;
+import com.bitpay.sdk_light.rates.SharedRates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Publishes and reads rates through separate mappings of the same file, as separate processes would.
+ */
+public class RatesSnapshotFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testShouldReadPublishedRates() throws IOException {
+        File file = new File(folder.getRoot(), "rates.snapshot");
+        Rate[] table = new ObjectMapper().readValue(ModelRoundTripTest.loadData("rates.json").toString(), Rate[].class);
+        try (RatesSnapshotFile writer = new RatesSnapshotFile(file, 64 * 1024);
+             RatesSnapshotFile reader = new RatesSnapshotFile(file, 64 * 1024)) {
+            assertNull(reader.read());
+
+            assertEquals(1, writer.publish(new Rates(Arrays.asList(table), null)));
+            RatesSnapshotFile.Snapshot snapshot = reader.read();
+
+            assertEquals(1, snapshot.getVersion());
+            assertEquals(ModelRoundTripTest.describe(Arrays.asList(table)), ModelRoundTripTest.describe(snapshot.getRates()));
+            assertSame(snapshot, reader.read());
+
+            assertEquals(2, writer.publish(new Rates(Arrays.asList(table), null)));
+            assertEquals(2, reader.read().getVersion());
+        }
+    }
+
+    @Test
+    public void testShouldDetectStaleRates() throws Exception {
+        File file = new File(folder.getRoot(), "rates.snapshot");
+        try (RatesSnapshotFile writer = new RatesSnapshotFile(file, 4096);
+             RatesSnapshotFile reader = new RatesSnapshotFile(file, 4096)) {
+            try {
+                new SharedRates(reader, 1000);
+                fail("No rates published yet");
+            } catch (BitPayException expected) {
+            }
+
+            writer.publish(rates(2, 6500.0));
+            SharedRates rates = new SharedRates(reader, 50);
+            assertEquals(6500.0, rates.getRate("USD"), 0);
+            assertFalse(rates.isStale());
+
+            Thread.sleep(100);
+            assertTrue(rates.isStale());
+            try {
+                rates.update();
+                fail("Rates are stale");
+            } catch (BitPayException expected) {
+                assertTrue(expected.getMessage().contains("stale"));
+            }
+
+            writer.publish(rates(2, 6600.0));
+            rates.update();
+            assertEquals(6600.0, rates.getRate("USD"), 0);
+            assertEquals(2, rates.getVersion());
+        }
+    }
+
+    @Test
+    public void testShouldRecoverFromInterruptedPublish() throws IOException {
+        File file = new File(folder.getRoot(), "rates.snapshot");
+        try (RatesSnapshotFile writer = new RatesSnapshotFile(file, 4096)) {
+            writer.publish(rates(2, 1.0));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            // A publisher that died between the two sequence updates
+            raw.seek(8);
+            raw.writeLong(3);
+        }
+
+        try (RatesSnapshotFile file1 = new RatesSnapshotFile(file, 4096)) {
+            try {
+                file1.read();
+                fail("Snapshot is being written");
+            } catch (IOException expected) {
+            }
+            file1.publish(rates(2, 2.0));
+            assertEquals(2.0, file1.read().getRates().get(0).getValue(), 0);
+        }
+    }
+
+    @Test
+    public void testShouldRejectCorruptHeader() throws IOException {
+        File file = new File(folder.getRoot(), "rates.snapshot");
+        try (RatesSnapshotFile writer = new RatesSnapshotFile(file, 4096)) {
+            writer.publish(rates(3, 1.0));
+        }
+        // Fewer rates than written, more than written, another publish time
+        long[][] corruptions = {{32, 2, 4}, {32, 5, 4}, {24, 1, 8}};
+        for (long[] corruption : corruptions) {
+            byte[] original = new byte[(int) corruption[2]];
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.seek(corruption[0]);
+                raw.readFully(original);
+                raw.seek(corruption[0]);
+                if (corruption[2] == 4) {
+                    raw.writeInt((int) corruption[1]);
+                } else {
+                    raw.writeLong(corruption[1]);
+                }
+            }
+            try (RatesSnapshotFile reader = new RatesSnapshotFile(file, 4096)) {
+                reader.read();
+                fail("Corrupt header at " + corruption[0]);
+            } catch (IOException expected) {
+            }
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.seek(corruption[0]);
+                raw.write(original);
+            }
+        }
+        try (RatesSnapshotFile reader = new RatesSnapshotFile(file, 4096)) {
+            assertEquals(3, reader.read().getRates().size());
+        }
+    }
+
+    @Test
+    public void testShouldNeverReadTornSnapshot() throws Exception {
+        File file = new File(folder.getRoot(), "rates.snapshot");
+        try (RatesSnapshotFile writer = new RatesSnapshotFile(file, 64 * 1024);
+             RatesSnapshotFile reader = new RatesSnapshotFile(file, 64 * 1024)) {
+            writer.publish(rates(10, 0));
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread publisher = new Thread(() -> {
+                try {
+                    for (int i = 1; running.get(); i++) {
+                        // Every rate of a snapshot has the same value, and sizes differ between snapshots
+                        writer.publish(rates(10 + i % 50, i));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            publisher.start();
+
+            long deadline = System.currentTimeMillis() + 500;
+            int snapshots = 0;
+            while (System.currentTimeMillis() < deadline) {
+                List<Rate> read = reader.read().getRates();
+                double value = read.get(0).getValue();
+                assertEquals(10 + (long) value % 50, read.size());
+                for (Rate rate : read) {
+                    assertEquals(value, rate.getValue(), 0);
+                }
+                snapshots++;
+            }
+            running.set(false);
+            publisher.join();
+            assertNull(failure.get());
+            assertTrue(snapshots > 0);
+        }
+    }
+
+    private static Rates rates(int count, double value) {
+        List<Rate> rates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Rate rate = new Rate();
+            rate.setCode(i == 0 ? "USD" : "C" + i);
+            rate.setName("Currency " + i);
+            rate.setValue(value);
+            rates.add(rate);
+        }
+        return new Rates(rates, null);
+    }
+}
@@ -0,0 +1,167 @@
+package tests;
+
+import com.bitpay.sdk_light.BitPayException;
+import com.bitpay.sdk_light.Client;
+import com.bitpay.sdk_light.model.Currency;
+import com.bitpay.sdk_light.model.Invoice.Invoice;
+import com.bitpay.sdk_light.replay.RecordingHttpClient;
+import com.bitpay.sdk_light.replay.ReplayHttpClient;
+import com.bitpay.sdk_light.replay.TrafficLog;
+import com.bitpay.sdk_light.replay.TrafficRecord;
+import com.bitpay.sdk_light.replay.TrafficReplayer;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Records a client's traffic with a local server answering with the captured payloads, then replays it through
+ * clients without the server.
+ */
+public class TrafficReplayTest {
+
+    private static final String TOKEN = "Hn2WCJfDcVKT5kzS8YST33WghmUV3n7WDRKh5mhk4bW6";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] invoice = IpnReceiverTest.load("invoice.json");
+        byte[] rates = IpnReceiverTest.load("rates.json");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/invoices", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() != -1) {
+                    // drain the request body
+                }
+            }
+            exchange.sendResponseHeaders(200, invoice.length);
+            exchange.getResponseBody().write(invoice);
+            exchange.close();
+        });
+        server.createContext("/rates", exchange -> {
+            exchange.sendResponseHeaders(200, rates.length);
+            exchange.getResponseBody().write(rates);
+            exchange.close();
+        });
+        server.start();
+
+        file = folder.newFile("traffic.log.gz");
+        try (TrafficLog log = new TrafficLog(file)) {
+            Client client = new Client(TOKEN, "http://127.0.0.1:" + server.getAddress().getPort(),
+                    new RecordingHttpClient(HttpClients.createDefault(), log));
+            client.createInvoice(new Invoice(129.99, Currency.USD));
+            client.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+            client.getRates();
+            assertEquals(3, log.getCount());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testShouldRecordRedactedTraffic() throws Exception {
+        List<TrafficRecord> records = TrafficLog.read(file);
+
+        assertEquals(3, records.size());
+        assertEquals("POST", records.get(0).getMethod());
+        assertEquals("/invoices", records.get(0).getUri());
+        assertEquals("/invoices/G3viJEJgE8Jk2oekSdgT2A?token=" + TrafficLog.REDACTED, records.get(1).getUri());
+        assertEquals("/rates", records.get(2).getUri());
+        for (TrafficRecord record : records) {
+            assertEquals(200, record.getStatus());
+            assertFalse(record.getUri().contains(TOKEN));
+            assertTrue(record.getOffsetMicros() >= 0);
+        }
+        String request = new String(records.get(0).getRequestBody(), StandardCharsets.UTF_8);
+        assertTrue(request, request.contains("\"token\":\"" + TrafficLog.REDACTED + "\""));
+        assertFalse(request.contains(TOKEN));
+        assertNull(records.get(1).getRequestBody());
+
+        long bodies = records.stream().mapToLong(r -> r.getResponseBody().length).sum();
+        assertTrue("Log of " + file.length() + " bytes", file.length() < bodies / 2);
+    }
+
+    @Test
+    public void testShouldReplayThroughClient() throws Exception {
+        server.stop(0);
+        ReplayHttpClient transport = new ReplayHttpClient(TrafficLog.read(file), 0);
+        Client client = new Client("another-token", "http://replay.invalid", transport);
+
+        Invoice invoice = client.getInvoice("G3viJEJgE8Jk2oekSdgT2A");
+        Invoice created = client.createInvoice(new Invoice(10.0, Currency.EUR));
+
+        assertEquals("ORD-20200415-0042", invoice.getOrderId());
+        assertEquals("G3viJEJgE8Jk2oekSdgT2A", created.getId());
+        assertEquals(291449.56, client.getRates().getRate("USD"), 0);
+        try {
+            client.getInvoice("unknown");
+            fail("Expected an unrecorded request to fail");
+        } catch (BitPayException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("no recorded response"));
+        }
+        assertEquals(3, transport.getReplayedCount());
+        assertEquals(1, transport.getUnmatchedCount());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testShouldHaveNoConnectionsToManage() {
+        ReplayHttpClient transport = new ReplayHttpClient(Arrays.asList(), 0);
+
+        // Pool maintenance written against the old API must not fail on a replay client
+        transport.getConnectionManager().closeExpiredConnections();
+        transport.getConnectionManager().closeIdleConnections(0, TimeUnit.SECONDS);
+        transport.getConnectionManager().shutdown();
+        assertNotNull(transport.getConnectionManager().getSchemeRegistry().get("https"));
+    }
+
+    @Test
+    public void testShouldReplayRecordedRequests() throws Exception {
+        List<TrafficRecord> records = TrafficLog.read(file);
+        Client client = new Client(TOKEN, "http://replay.invalid", new ReplayHttpClient(records, 0));
+
+        TrafficReplayer replayer = new TrafficReplayer(client, records, 0, 2);
+        replayer.run();
+
+        assertEquals(3, replayer.getCallCount());
+        assertEquals(0, replayer.getFailureCount());
+    }
+
+    @Test
+    public void testShouldKeepPacingAtSpeed() throws Exception {
+        byte[] rates = IpnReceiverTest.load("rates.json");
+        List<TrafficRecord> records = Arrays.asList(
+                new TrafficRecord(0, 40000, "GET", "/rates", null, 200, rates),
+                new TrafficRecord(200000, 40000, "GET", "/rates", null, 200, rates),
+                new TrafficRecord(400000, 40000, "GET", "/rates", null, 200, rates));
+
+        Client original = new Client(TOKEN, "http://replay.invalid", new ReplayHttpClient(records, 1));
+        long originalMillis = new TrafficReplayer(original, records, 1, 2).run();
+        Client accelerated = new Client(TOKEN, "http://replay.invalid", new ReplayHttpClient(records, 4));
+        long acceleratedMillis = new TrafficReplayer(accelerated, records, 4, 2).run();
+
+        assertTrue("Original pacing took " + originalMillis + " ms", originalMillis >= 440);
+        assertTrue("Accelerated pacing took " + acceleratedMillis + " ms", acceleratedMillis >= 110 && acceleratedMillis < originalMillis);
+    }
+}